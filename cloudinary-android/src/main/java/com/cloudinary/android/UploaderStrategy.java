@@ -10,15 +10,22 @@ import java.util.Collection;
 import java.util.Map;
 
 import org.cloudinary.json.JSONException;
-import org.cloudinary.json.JSONObject;
 
+import com.cloudinary.FileRegion;
 import com.cloudinary.strategies.AbstractUploaderStrategy;
+import com.cloudinary.strategies.HttpStatusException;
+import com.cloudinary.utils.JsonDecoder;
 import com.cloudinary.utils.ObjectUtils;
 import com.cloudinary.utils.StringUtils;
 
 public class UploaderStrategy extends AbstractUploaderStrategy {
 
-    @SuppressWarnings("rawtypes")
+    @Override
+    public boolean supportsFileRegions() {
+        return true;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
     @Override
     public Map callApi(String action, Map<String, Object> params, Map options, Object file) throws IOException {
         // initialize options if passed as null
@@ -74,6 +81,8 @@ public class UploaderStrategy extends AbstractUploaderStrategy {
             multipart.addFilePart("file", (InputStream) file, filename);
         } else if (file instanceof byte[]) {
             multipart.addFilePart("file", new ByteArrayInputStream((byte[]) file), filename);
+        } else if (file instanceof FileRegion) {
+            multipart.addFilePart("file", ((FileRegion) file).openStream(), filename);
         }
         HttpURLConnection connection = multipart.execute();
         int code;
@@ -88,28 +97,28 @@ public class UploaderStrategy extends AbstractUploaderStrategy {
             }
         }
         InputStream responseStream = code >= 400 ? connection.getErrorStream() : connection.getInputStream();
-        String responseData = readFully(responseStream);
-        connection.disconnect();
-
-        if (code != 200 && code != 400 && code != 404 && code != 500) {
-            throw new RuntimeException("Server returned unexpected status code - " + code + " - " + responseData);
-        }
-
-        JSONObject result;
+        Map result;
         try {
-            result = new JSONObject(responseData);
-            if (result.has("error")) {
-                JSONObject error = result.getJSONObject("error");
-                if (returnError) {
-                    error.put("http_code", code);
-                } else {
-                    throw new RuntimeException(error.getString("message"));
-                }
+            if (code != 200 && code != 400 && code != 404 && code != 500) {
+                throw new HttpStatusException("Server returned unexpected status code - " + code + " - " + readFully(responseStream), code);
             }
-            return ObjectUtils.toMap(result);
+            result = JsonDecoder.decode(responseStream);
         } catch (JSONException e) {
             throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
+        } finally {
+            responseStream.close();
+            connection.disconnect();
+        }
+
+        if (result.containsKey("error")) {
+            Map error = (Map) result.get("error");
+            if (returnError) {
+                error.put("http_code", code);
+            } else {
+                throw new HttpStatusException((String) error.get("message"), code);
+            }
         }
+        return result;
     }
 
     protected static String readFully(InputStream in) throws IOException {
@@ -0,0 +1,80 @@
+package com.cloudinary.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Transformation;
+
+/**
+ * Rendering a gallery page: one {@code Url} per image versus {@code Url.generateAll()} and
+ * {@code Url.imageTags()} streaming every item into one buffer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GalleryBenchmark {
+    @Param({"500"})
+    public int items;
+
+    private Cloudinary cloudinary;
+    private List<String> publicIds;
+    private Map<String, String> attributes;
+
+    @Setup
+    public void setUp() {
+        cloudinary = Fixtures.urlOnlyCloudinary();
+        publicIds = new ArrayList<String>(items);
+        for (int i = 0; i < items; i++) {
+            publicIds.add("gallery/item_" + i + ".jpg");
+        }
+        attributes = Collections.singletonMap("alt", "gallery");
+    }
+
+    @Benchmark
+    public StringBuilder urlsOneByOne() {
+        StringBuilder out = new StringBuilder();
+        for (String publicId : publicIds) {
+            out.append(cloudinary.url().transformation(Fixtures.thumbnail()).signed(true).generate(publicId)).append('\n');
+        }
+        return out;
+    }
+
+    @Benchmark
+    public StringBuilder urlsBatch() throws IOException {
+        return cloudinary.url().transformation(Fixtures.thumbnail()).signed(true).generateAll(publicIds, new StringBuilder(), "\n");
+    }
+
+    @Benchmark
+    public StringBuilder imageTagsOneByOne() {
+        StringBuilder out = new StringBuilder();
+        for (String publicId : publicIds) {
+            out.append(cloudinary.url().transformation(new Transformation().width(300).height(200).crop("fill")).imageTag(publicId, attributes));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public StringBuilder imageTagsBatch() throws IOException {
+        return cloudinary.url().transformation(new Transformation().width(300).height(200).crop("fill")).imageTags(publicIds, attributes, new StringBuilder());
+    }
+}
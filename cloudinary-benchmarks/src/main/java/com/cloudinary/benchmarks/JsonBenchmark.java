@@ -0,0 +1,76 @@
+package com.cloudinary.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudinary.json.JSONObject;
+import org.cloudinary.json.JSONTokener;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cloudinary.utils.JsonDecoder;
+import com.cloudinary.utils.ObjectUtils;
+import com.cloudinary.utils.StringUtils;
+
+/**
+ * Response decoding: {@code new JSONObject(String)} followed by {@code ObjectUtils.toMap()}, from a string and
+ * from the response bytes as the HTTP strategies used to do, and {@code JsonDecoder.decode()} of the response bytes,
+ * over Admin API {@code resources} listings of increasing size. {@code parseReader} parses the string through a
+ * reader, as {@code new JSONObject(String)} did before it scanned its buffer directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonBenchmark {
+    @Param({"10", "500"})
+    public int resources;
+
+    private String listing;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        listing = Fixtures.resourcesListing(resources);
+        body = listing.getBytes("UTF-8");
+    }
+
+    @Benchmark
+    public JSONObject parse() {
+        return new JSONObject(listing);
+    }
+
+    @Benchmark
+    public JSONObject parseReader() {
+        return new JSONObject(new JSONTokener(new StringReader(listing)));
+    }
+
+    @Benchmark
+    public Map<String, Object> parseToMap() {
+        return ObjectUtils.toMap(new JSONObject(listing));
+    }
+
+    @Benchmark
+    public Map<String, Object> readParseToMap() throws IOException {
+        return ObjectUtils.toMap(new JSONObject(StringUtils.read(new ByteArrayInputStream(body))));
+    }
+
+    @Benchmark
+    public Map<String, Object> decodeStream() throws IOException {
+        return JsonDecoder.decode(new ByteArrayInputStream(body));
+    }
+}
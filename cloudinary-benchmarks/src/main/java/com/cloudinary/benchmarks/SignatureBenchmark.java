@@ -0,0 +1,75 @@
+package com.cloudinary.benchmarks;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Signer;
+import com.cloudinary.utils.StringUtils;
+
+/**
+ * Request signing: {@code Cloudinary.apiSignRequest()} with SHA-1 and SHA-256, against the previous
+ * implementation that joined the parameters into one string and digested its UTF-8 bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SignatureBenchmark {
+    private Cloudinary cloudinary;
+    private Map<String, Object> params;
+    private Signer sha256;
+
+    @Setup
+    public void setUp() {
+        cloudinary = Fixtures.urlOnlyCloudinary();
+        params = Fixtures.uploadParams();
+        sha256 = Signer.getInstance(Signer.SHA256);
+    }
+
+    @Benchmark
+    public String apiSignRequest() {
+        return cloudinary.apiSignRequest(params, cloudinary.config.apiSecret);
+    }
+
+    @Benchmark
+    public String apiSignRequestSha256() {
+        return sha256.signParameters(params, cloudinary.config.apiSecret);
+    }
+
+    @Benchmark
+    public String apiSignRequestLegacy() throws NoSuchAlgorithmException, UnsupportedEncodingException {
+        Collection<String> pairs = new ArrayList<String>();
+        for (Map.Entry<String, Object> param : new TreeMap<String, Object>(params).entrySet()) {
+            if (param.getValue() instanceof Collection) {
+                pairs.add(param.getKey() + "=" + StringUtils.join((Collection) param.getValue(), ","));
+            } else if (param.getValue() instanceof Object[]) {
+                pairs.add(param.getKey() + "=" + StringUtils.join((Object[]) param.getValue(), ","));
+            } else if (StringUtils.isNotBlank(param.getValue())) {
+                pairs.add(param.getKey() + "=" + param.getValue().toString());
+            }
+        }
+        MessageDigest md = MessageDigest.getInstance("SHA-1");
+        byte[] digest = md.digest((StringUtils.join(pairs, "&") + cloudinary.config.apiSecret).getBytes("UTF-8"));
+        return StringUtils.encodeHexString(digest);
+    }
+}
@@ -0,0 +1,62 @@
+package com.cloudinary.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cloudinary.CompiledTransformation;
+import com.cloudinary.Transformation;
+
+/**
+ * Transformation serialization: {@code Transformation.generate()}, and a frozen
+ * {@link CompiledTransformation} for comparison.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformationBenchmark {
+    private Transformation single;
+    private Transformation thumbnail;
+    private Transformation threeStepChain;
+    private CompiledTransformation compiledThreeStepChain;
+
+    @Setup
+    public void setUp() {
+        single = new Transformation().width(100).height(101).crop("fill");
+        thumbnail = Fixtures.thumbnail();
+        threeStepChain = Fixtures.threeStepChain();
+        compiledThreeStepChain = threeStepChain.freeze();
+    }
+
+    @Benchmark
+    public String generateSingle() {
+        return single.generate();
+    }
+
+    @Benchmark
+    public String generateThumbnail() {
+        return thumbnail.generate();
+    }
+
+    @Benchmark
+    public String generateThreeStepChain() {
+        return threeStepChain.generate();
+    }
+
+    @Benchmark
+    public String generateCompiledThreeStepChain() {
+        return compiledThreeStepChain.generate();
+    }
+}
@@ -0,0 +1,85 @@
+package com.cloudinary.benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import com.cloudinary.utils.ObjectUtils;
+
+/**
+ * Chunked uploads: {@code Uploader.uploadLarge()} of an in-memory payload and of a file (streamed as file regions)
+ * through the Apache HTTP 4.4 adapter against an in-process {@link StubServer}, one chunk at a time and 4 in parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UploadLargeBenchmark {
+    @Param({"16777216"})
+    public int payloadSize;
+
+    @Param({"1048576", "5242880"})
+    public int chunkSize;
+
+    @Param({"1", "4"})
+    public int parallelChunks;
+
+    private StubServer server;
+    private Cloudinary cloudinary;
+    private Uploader uploader;
+    private byte[] payload;
+    private File file;
+    private Map options;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        server = new StubServer("{\"public_id\":\"benchmark\",\"version\":1476881467,\"resource_type\":\"raw\",\"type\":\"upload\"}");
+        cloudinary = new Cloudinary(Fixtures.CLOUDINARY_URL + "?upload_prefix=" + server.prefix());
+        uploader = cloudinary.uploader();
+        payload = new byte[payloadSize];
+        new Random(42).nextBytes(payload);
+        file = File.createTempFile("upload_large_benchmark", ".bin");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(payload);
+        out.close();
+        options = ObjectUtils.asMap("resource_type", "raw", "chunk_size", chunkSize, "parallel_chunks", parallelChunks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        cloudinary.close();
+        server.stop();
+        file.delete();
+    }
+
+    @Benchmark
+    public Map uploadLarge() throws IOException {
+        return uploader.uploadLarge(payload, options);
+    }
+
+    @Benchmark
+    public Map uploadLargeFile() throws IOException {
+        return uploader.uploadLarge(file, options);
+    }
+}
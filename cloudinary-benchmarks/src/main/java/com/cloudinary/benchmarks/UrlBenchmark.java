@@ -0,0 +1,92 @@
+package com.cloudinary.benchmarks;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.CompiledTransformation;
+import com.cloudinary.Transformation;
+
+/**
+ * URL building: {@code Url.generate()}, {@code Url.imageTag()} and {@code Url.videoTag()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UrlBenchmark {
+    private Cloudinary cloudinary;
+    private Cloudinary signatureCachingCloudinary;
+    private Transformation thumbnail;
+    private CompiledTransformation compiledThumbnail;
+    private Map<String, String> attributes;
+
+    @Setup
+    public void setUp() {
+        cloudinary = Fixtures.urlOnlyCloudinary();
+        signatureCachingCloudinary = Fixtures.urlOnlyCloudinary();
+        signatureCachingCloudinary.config.urlSignatureCacheSize = 1000;
+        thumbnail = Fixtures.thumbnail();
+        compiledThumbnail = thumbnail.freeze();
+        attributes = Collections.singletonMap("alt", "sample");
+    }
+
+    @Benchmark
+    public String generatePlain() {
+        return cloudinary.url().generate("sample");
+    }
+
+    @Benchmark
+    public String generateWithTransformation() {
+        return cloudinary.url().transformation(thumbnail).format("jpg").generate("folder/sample");
+    }
+
+    @Benchmark
+    public String generateWithCompiledTransformation() {
+        return cloudinary.url().transformation(compiledThumbnail).format("jpg").generate("folder/sample");
+    }
+
+    @Benchmark
+    public String generateSigned() {
+        return cloudinary.url().transformation(thumbnail).signed(true).generate("folder/sample.jpg");
+    }
+
+    @Benchmark
+    public String generateSignedCached() {
+        return signatureCachingCloudinary.url().transformation(thumbnail).signed(true).generate("folder/sample.jpg");
+    }
+
+    @Benchmark
+    public String generateSecureCdnSubdomain() {
+        return cloudinary.url().secure(true).cdnSubdomain(true).transformation(thumbnail).generate("folder/sample.jpg");
+    }
+
+    @Benchmark
+    public String generateFetch() {
+        return cloudinary.url().type("fetch").transformation(thumbnail).generate("http://www.example.com/images/some image.jpg");
+    }
+
+    @Benchmark
+    public String imageTag() {
+        return cloudinary.url().transformation(new Transformation().width(300).height(200).crop("fill")).imageTag("sample.jpg", attributes);
+    }
+
+    @Benchmark
+    public String videoTag() {
+        return cloudinary.url().transformation(new Transformation().width(640).height(360).crop("fill")).videoTag("dog", attributes);
+    }
+}
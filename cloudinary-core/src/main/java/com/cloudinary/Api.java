@@ -35,8 +35,23 @@ public class Api {
     public final Cloudinary cloudinary;
 
     private AbstractApiStrategy strategy;
-    protected ApiResponse callApi(HttpMethod method, Iterable<String> uri, Map<String, ? extends Object> params, Map options) throws Exception {
-        return this.strategy.callApi(method, uri, params, options);
+    protected ApiResponse callApi(final HttpMethod method, final Iterable<String> uri, final Map<String, ? extends Object> params, final Map options) throws Exception {
+        RequestCoalescer coalescer = cloudinary.requestCoalescer();
+        if (coalescer == null || method != HttpMethod.GET) {
+            return this.strategy.callApiWithRetries(method, uri, params, options);
+        }
+        String key = coalescer.key(method, uri, params, options, cloudinary.config);
+        ResourceCache cache = cloudinary.resourceCache();
+        if (cache != null) {
+            // a call made after an invalidation must not share a request sent before it, and cache its response as new
+            key += " " + cache.generation();
+        }
+        return coalescer.execute(key, new RequestCoalescer.Request() {
+            @Override
+            public ApiResponse call() throws Exception {
+                return strategy.callApiWithRetries(method, uri, params, options);
+            }
+        });
     }
 
     public Api(Cloudinary cloudinary, AbstractApiStrategy strategy) {
@@ -45,6 +60,10 @@ public class Api {
         this.strategy.init(this);
     }
 
+    public AbstractApiStrategy getStrategy() {
+        return strategy;
+    }
+
     public ApiResponse ping(Map options) throws Exception {
         if (options == null) options = ObjectUtils.emptyMap();
         return callApi(HttpMethod.GET, Arrays.asList("ping"), ObjectUtils.emptyMap(), options);
@@ -83,8 +102,47 @@ public class Api {
         String resourceType = ObjectUtils.asString(options.get("resource_type"), "image");
         String type = ObjectUtils.asString(options.get("type"), "upload");
         Map params = ObjectUtils.only(options, "tags", "context", "moderations");
-        params.put("public_ids", publicIds);
-        return callApi(HttpMethod.GET, Arrays.asList("resources", resourceType, type), params, options);
+        ResourceCache cache = cloudinary.resourceCache();
+        if (cache == null) {
+            params.put("public_ids", publicIds);
+            return callApi(HttpMethod.GET, Arrays.asList("resources", resourceType, type), params, options);
+        }
+
+        // only the resources that are not cached are fetched
+        String variant = cacheVariant("by_ids", resourceType, type, params, options);
+        Map<String, Map> found = new HashMap<String, Map>();
+        List<String> missing = new ArrayList<String>();
+        for (String publicId : publicIds) {
+            Map cached = cache.get(publicId, variant);
+            if (cached != null) {
+                found.put(publicId, cached);
+            } else {
+                missing.add(publicId);
+            }
+        }
+        ApiResponse response = null;
+        if (!missing.isEmpty()) {
+            long generation = cache.generation();
+            params.put("public_ids", missing);
+            response = callApi(HttpMethod.GET, Arrays.asList("resources", resourceType, type), params, options);
+            List<Map> resources = (List<Map>) response.get("resources");
+            if (resources == null) return response;
+            boolean merge = !found.isEmpty();
+            for (Map resource : resources) {
+                String publicId = (String) resource.get("public_id");
+                cache.put(publicId, variant, resource, generation);
+                found.put(publicId, resource);
+            }
+            if (!merge) return response;
+        }
+        List<Map> resources = new ArrayList<Map>();
+        for (String publicId : publicIds) {
+            Map resource = found.get(publicId);
+            if (resource != null) resources.add(resource);
+        }
+        Map result = response == null ? new HashMap() : new HashMap(response);
+        result.put("resources", resources);
+        return new ResourceCache.Response(result, response);
     }
 
     public ApiResponse resourcesByModeration(String kind, String status, Map options) throws Exception {
@@ -97,9 +155,19 @@ public class Api {
         if (options == null) options = ObjectUtils.emptyMap();
         String resourceType = ObjectUtils.asString(options.get("resource_type"), "image");
         String type = ObjectUtils.asString(options.get("type"), "upload");
-        return callApi(HttpMethod.GET, Arrays.asList("resources", resourceType, type, public_id),
-                ObjectUtils.only(options, "exif", "colors", "faces", "coordinates",
-                        "image_metadata", "pages", "phash", "max_results"), options);
+        Map params = ObjectUtils.only(options, "exif", "colors", "faces", "coordinates",
+                "image_metadata", "pages", "phash", "max_results");
+        ResourceCache cache = cloudinary.resourceCache();
+        if (cache == null) {
+            return callApi(HttpMethod.GET, Arrays.asList("resources", resourceType, type, public_id), params, options);
+        }
+        String variant = cacheVariant("resource", resourceType, type, params, options);
+        Map cached = cache.get(public_id, variant);
+        if (cached != null) return new ResourceCache.Response(cached, null);
+        long generation = cache.generation();
+        ApiResponse response = callApi(HttpMethod.GET, Arrays.asList("resources", resourceType, type, public_id), params, options);
+        cache.put(public_id, variant, response, generation);
+        return response;
     }
 
     public ApiResponse update(String public_id, Map options) throws Exception {
@@ -109,8 +177,12 @@ public class Api {
         Map params = new HashMap<String, Object>();
         Util.processWriteParameters(options, params);
         params.put("moderation_status", options.get("moderation_status"));
-        return callApi(HttpMethod.POST, Arrays.asList("resources", resourceType, type, public_id),
-                params, options);
+        try {
+            return callApi(HttpMethod.POST, Arrays.asList("resources", resourceType, type, public_id),
+                    params, options);
+        } finally {
+            invalidateCachedResources(Collections.singletonList(public_id));
+        }
     }
 
     public ApiResponse deleteResources(Iterable<String> publicIds, Map options) throws Exception {
@@ -119,7 +191,11 @@ public class Api {
         String type = ObjectUtils.asString(options.get("type"), "upload");
         Map params = ObjectUtils.only(options, "keep_original", "invalidate", "next_cursor");
         params.put("public_ids", publicIds);
-        return callApi(HttpMethod.DELETE, Arrays.asList("resources", resourceType, type), params, options);
+        try {
+            return callApi(HttpMethod.DELETE, Arrays.asList("resources", resourceType, type), params, options);
+        } finally {
+            invalidateCachedResources(publicIds);
+        }
     }
 
     public ApiResponse deleteResourcesByPrefix(String prefix, Map options) throws Exception {
@@ -128,13 +204,59 @@ public class Api {
         String type = ObjectUtils.asString(options.get("type"), "upload");
         Map params = ObjectUtils.only(options, "keep_original", "invalidate", "next_cursor");
         params.put("prefix", prefix);
-        return callApi(HttpMethod.DELETE, Arrays.asList("resources", resourceType, type), params, options);
+        try {
+            return callApi(HttpMethod.DELETE, Arrays.asList("resources", resourceType, type), params, options);
+        } finally {
+            invalidateCachedResources(null);
+        }
     }
 
     public ApiResponse deleteResourcesByTag(String tag, Map options) throws Exception {
         if (options == null) options = ObjectUtils.emptyMap();
         String resourceType = ObjectUtils.asString(options.get("resource_type"), "image");
-        return callApi(HttpMethod.DELETE, Arrays.asList("resources", resourceType, "tags", tag), ObjectUtils.only(options, "keep_original", "invalidate", "next_cursor"), options);
+        try {
+            return callApi(HttpMethod.DELETE, Arrays.asList("resources", resourceType, "tags", tag), ObjectUtils.only(options, "keep_original", "invalidate", "next_cursor"), options);
+        } finally {
+            invalidateCachedResources(null);
+        }
+    }
+
+    /**
+     * Delete any number of resources in batches sent in parallel, see {@link BulkDelete}. The <code>batch_size</code>
+     * option sets the number of public IDs per call (at most 100) and <code>parallel_requests</code> the number of
+     * calls in flight (4 by default).
+     *
+     * @return the aggregated result of the calls
+     */
+    public Map bulkDeleteResources(Iterator<String> publicIds, Map options) throws Exception {
+        return new BulkDelete(this, options).deletePublicIds(publicIds);
+    }
+
+    public Map bulkDeleteResources(Iterable<String> publicIds, Map options) throws Exception {
+        return bulkDeleteResources(publicIds.iterator(), options);
+    }
+
+    /**
+     * Delete all the resources with the prefix, following the <code>next_cursor</code> of partial deletions.
+     *
+     * @return the aggregated result of the calls, with the <code>next_cursor</code> to continue from if a call failed
+     */
+    public Map bulkDeleteResourcesByPrefix(final String prefix, Map options) throws Exception {
+        return new BulkDelete(this, options).deletePages(new BulkDelete.Call() {
+            @Override
+            public ApiResponse delete(Map options) throws Exception {
+                return deleteResourcesByPrefix(prefix, options);
+            }
+        });
+    }
+
+    public Map bulkDeleteResourcesByTag(final String tag, Map options) throws Exception {
+        return new BulkDelete(this, options).deletePages(new BulkDelete.Call() {
+            @Override
+            public ApiResponse delete(Map options) throws Exception {
+                return deleteResourcesByTag(tag, options);
+            }
+        });
     }
 
     public ApiResponse deleteAllResources(Map options) throws Exception {
@@ -143,12 +265,20 @@ public class Api {
         String type = ObjectUtils.asString(options.get("type"), "upload");
         Map filtered = ObjectUtils.only(options, "keep_original", "invalidate", "next_cursor");
         filtered.put("all", true);
-        return callApi(HttpMethod.DELETE, Arrays.asList("resources", resourceType, type), filtered, options);
+        try {
+            return callApi(HttpMethod.DELETE, Arrays.asList("resources", resourceType, type), filtered, options);
+        } finally {
+            invalidateCachedResources(null);
+        }
     }
 
     public ApiResponse deleteDerivedResources(Iterable<String> derivedResourceIds, Map options) throws Exception {
         if (options == null) options = ObjectUtils.emptyMap();
-        return callApi(HttpMethod.DELETE, Arrays.asList("derived_resources"), ObjectUtils.asMap("derived_resource_ids", derivedResourceIds), options);
+        try {
+            return callApi(HttpMethod.DELETE, Arrays.asList("derived_resources"), ObjectUtils.asMap("derived_resource_ids", derivedResourceIds), options);
+        } finally {
+            invalidateCachedResources(null);
+        }
     }
 
     public ApiResponse tags(Map options) throws Exception {
@@ -162,6 +292,45 @@ public class Api {
         return callApi(HttpMethod.GET, Arrays.asList("transformations"), ObjectUtils.only(options, "next_cursor", "max_results"), options);
     }
 
+    /**
+     * Iterate over all the resources listed by {@link #resources(Map)}, fetching the pages lazily, see {@link PagedIterator}.
+     */
+    public Iterator<Map> iterateResources(Map options) {
+        return new PagedIterator<Map>(options, "resources") {
+            @Override
+            protected ApiResponse fetch(Map options) throws Exception {
+                return resources(options);
+            }
+        };
+    }
+
+    public Iterator<Map> iterateResourcesByTag(final String tag, Map options) {
+        return new PagedIterator<Map>(options, "resources") {
+            @Override
+            protected ApiResponse fetch(Map options) throws Exception {
+                return resourcesByTag(tag, options);
+            }
+        };
+    }
+
+    public Iterator<String> iterateTags(Map options) {
+        return new PagedIterator<String>(options, "tags") {
+            @Override
+            protected ApiResponse fetch(Map options) throws Exception {
+                return tags(options);
+            }
+        };
+    }
+
+    public Iterator<Map> iterateTransformations(Map options) {
+        return new PagedIterator<Map>(options, "transformations") {
+            @Override
+            protected ApiResponse fetch(Map options) throws Exception {
+                return transformations(options);
+            }
+        };
+    }
+
     public ApiResponse transformation(String transformation, Map options) throws Exception {
         if (options == null) options = ObjectUtils.emptyMap();
         return callApi(HttpMethod.GET, Arrays.asList("transformations", transformation), ObjectUtils.only(options, "next_cursor", "max_results"), options);
@@ -234,7 +403,11 @@ public class Api {
         String type = ObjectUtils.asString(options.get("type"), "upload");
         Map params = new HashMap<String, Object>();
         params.put("public_ids", publicIds);
-        return callApi(HttpMethod.POST, Arrays.asList("resources", resourceType, type, "restore"), params, options);
+        try {
+            return callApi(HttpMethod.POST, Arrays.asList("resources", resourceType, type, "restore"), params, options);
+        } finally {
+            invalidateCachedResources(publicIds);
+        }
     }
 
     public ApiResponse uploadMappings(Map options) throws Exception {
@@ -296,7 +469,40 @@ public class Api {
         Map params = new HashMap<String, Object>();
         params.put(byKey, value);
         params.putAll(ObjectUtils.only(options, "invalidate", "overwrite"));
-        return callApi(HttpMethod.POST, uri, params, options);
+        try {
+            return callApi(HttpMethod.POST, uri, params, options);
+        } finally {
+            if ("public_ids".equals(byKey)) {
+                invalidateCachedResources((Iterable<String>) value);
+            } else {
+                invalidateCachedResources(null);
+            }
+        }
+    }
+
+    /**
+     * @return the key of the cached resources read with <code>params</code>, which includes the account, as it may
+     * be given in the options of the call
+     */
+    private static String cacheVariant(String call, String resourceType, String type, Map params, Map options) {
+        return call + "/" + resourceType + "/" + type + "/" + ObjectUtils.asString(options.get("cloud_name"), "")
+                + new TreeMap(params);
+    }
+
+    /**
+     * Drop the cached resources of <code>publicIds</code>, or all of them if null. Called by the calls of this class
+     * that change resources, and by asynchronous callers when their calls complete.
+     */
+    public void invalidateCachedResources(Iterable<String> publicIds) {
+        ResourceCache cache = cloudinary.resourceCache();
+        if (cache == null) return;
+        if (publicIds == null) {
+            cache.clear();
+            return;
+        }
+        for (String publicId : publicIds) {
+            cache.invalidate(publicId);
+        }
     }
 
     /**
@@ -0,0 +1,149 @@
+package com.cloudinary;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.utils.ObjectUtils;
+
+/**
+ * Deletes many resources with as few calls as possible (the <code>bulkDeleteResources</code> methods of {@link Api}).
+ * <p>
+ * Public IDs are read lazily from their iterator and sent in batches of <code>batch_size</code> (at most
+ * {@link #MAX_BATCH_SIZE}, the server's limit), with up to <code>parallel_requests</code> batches in flight, so any
+ * number of IDs is deleted in constant memory. A failed batch is reported in the result and the deletion goes on.
+ * Deletions by prefix or tag are done by the server a page at a time, so their calls are sent one after the other
+ * until the server no longer reports a <code>partial</code> deletion, and the first error stops them.
+ * <p>
+ * The result has the number of resources by deletion status (<code>deleted</code>, <code>not_found</code>...) in
+ * <code>deleted_counts</code>, the number of calls in <code>requests</code>, and, after errors, their messages in
+ * <code>errors</code> and the public IDs of the failed batches in <code>failed</code>.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+class BulkDelete {
+    static final int MAX_BATCH_SIZE = 100;
+
+    interface Call {
+        ApiResponse delete(Map options) throws Exception;
+    }
+
+    private final Api api;
+    private final Map options;
+    private final int batchSize;
+    private final int parallelRequests;
+    private final Map<String, Long> deletedCounts = new HashMap<String, Long>();
+    private final List<String> failed = new ArrayList<String>();
+    private final List<String> errors = new ArrayList<String>();
+    private long requests;
+
+    BulkDelete(Api api, Map options) {
+        this.api = api;
+        this.options = options == null ? new HashMap() : new HashMap(options);
+        this.batchSize = Math.max(1, Math.min(MAX_BATCH_SIZE, ObjectUtils.asInteger(this.options.get("batch_size"), MAX_BATCH_SIZE)));
+        this.parallelRequests = Math.max(1, ObjectUtils.asInteger(this.options.get("parallel_requests"), 4));
+        this.options.remove("next_cursor");
+    }
+
+    Map deletePublicIds(Iterator<String> publicIds) throws IOException {
+        ParallelTasks<Batch> batches = new ParallelTasks<Batch>("cloudinary-delete", parallelRequests, "deleting resources");
+        try {
+            while (publicIds.hasNext()) {
+                List<String> ids = new ArrayList<String>(batchSize);
+                while (ids.size() < batchSize && publicIds.hasNext()) {
+                    ids.add(publicIds.next());
+                }
+                if (batches.isFull()) collect(batches.take());
+                batches.submit(new Batch(ids));
+            }
+            while (batches.inFlight() > 0) {
+                collect(batches.take());
+            }
+        } finally {
+            batches.shutdown();
+        }
+        return result(null);
+    }
+
+    Map deletePages(Call call) {
+        String cursor = null;
+        while (true) {
+            Map pageOptions = new HashMap(options);
+            if (cursor != null) pageOptions.put("next_cursor", cursor);
+            ApiResponse response;
+            try {
+                response = call.delete(pageOptions);
+            } catch (Exception e) {
+                requests++;
+                errors.add(e.getMessage());
+                return result(cursor);
+            }
+            int deleted = count(response);
+            cursor = (String) response.get("next_cursor");
+            boolean partial = ObjectUtils.asBoolean(response.get("partial"), false);
+            // a page without deletions would be sent again forever
+            if (cursor == null && (!partial || deleted == 0)) return result(null);
+        }
+    }
+
+    private void collect(Batch batch) {
+        if (batch.error != null) {
+            requests++;
+            errors.add(batch.error.getMessage());
+            failed.addAll(batch.publicIds);
+        } else {
+            count(batch.response);
+        }
+    }
+
+    /**
+     * @return the number of resources deleted by the call
+     */
+    private int count(ApiResponse response) {
+        requests++;
+        Map<String, Object> deleted = (Map<String, Object>) response.get("deleted");
+        if (deleted == null) return 0;
+        int count = 0;
+        for (Object status : deleted.values()) {
+            String key = String.valueOf(status);
+            Long current = deletedCounts.get(key);
+            deletedCounts.put(key, current == null ? 1L : current + 1);
+            if ("deleted".equals(key)) count++;
+        }
+        return count;
+    }
+
+    private Map result(String nextCursor) {
+        Map result = ObjectUtils.asMap("deleted_counts", deletedCounts, "requests", requests);
+        if (!errors.isEmpty()) {
+            result.put("errors", errors);
+            result.put("failed", failed);
+        }
+        if (nextCursor != null) result.put("next_cursor", nextCursor);
+        return result;
+    }
+
+    private class Batch implements Callable<Batch> {
+        final List<String> publicIds;
+        ApiResponse response;
+        Exception error;
+
+        Batch(List<String> publicIds) {
+            this.publicIds = publicIds;
+        }
+
+        @Override
+        public Batch call() {
+            try {
+                response = api.deleteResources(publicIds, options);
+            } catch (Exception e) {
+                error = e;
+            }
+            return this;
+        }
+    }
+}
@@ -1,20 +1,24 @@
 package com.cloudinary;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import com.cloudinary.api.RateLimiter;
+import com.cloudinary.metrics.CallListener;
+import com.cloudinary.metrics.CallMetrics;
 import com.cloudinary.strategies.AbstractApiStrategy;
 import com.cloudinary.strategies.AbstractUploaderStrategy;
 import com.cloudinary.strategies.StrategyLoader;
@@ -22,18 +26,20 @@ import com.cloudinary.utils.ObjectUtils;
 import com.cloudinary.utils.StringUtils;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
-public class Cloudinary {
+public class Cloudinary implements Closeable {
 
     private static List<String> UPLOAD_STRATEGIES = new ArrayList<String>(Arrays.asList(
             "com.cloudinary.android.UploaderStrategy",
             "com.cloudinary.http42.UploaderStrategy",
             "com.cloudinary.http43.UploaderStrategy",
-            "com.cloudinary.http44.UploaderStrategy"));
+            "com.cloudinary.http44.UploaderStrategy",
+            "com.cloudinary.httpjdk.UploaderStrategy"));
     private static List<String> API_STRATEGIES = new ArrayList<String>(Arrays.asList(
             "com.cloudinary.android.ApiStrategy",
             "com.cloudinary.http42.ApiStrategy",
             "com.cloudinary.http43.ApiStrategy",
-            "com.cloudinary.http44.ApiStrategy"));
+            "com.cloudinary.http44.ApiStrategy",
+            "com.cloudinary.httpjdk.ApiStrategy"));
 
     public final static String CF_SHARED_CDN = "d3jpl91pxevbkh.cloudfront.net";
     public final static String OLD_AKAMAI_SHARED_CDN = "cloudinary-a.akamaihd.net";
@@ -44,6 +50,13 @@ public class Cloudinary {
     public final static String USER_AGENT = "CloudinaryJava/" + VERSION;
 
     public final Configuration config;
+    private volatile UrlFactory urlFactory;
+    private volatile SignatureCache urlSignatureCache;
+    private volatile RateLimiter apiRateLimiter;
+    private volatile ResourceCache resourceCache;
+    private volatile RequestCoalescer requestCoalescer;
+    private volatile CallMetrics callMetrics;
+    private final List<CallListener> callListeners = new CopyOnWriteArrayList<CallListener>();
     private AbstractUploaderStrategy uploaderStrategy;
     private AbstractApiStrategy apiStrategy;
 
@@ -56,6 +69,22 @@ public class Cloudinary {
         return new Api(this, apiStrategy);
     }
 
+    /**
+     * Close the HTTP connections pooled by the platform adapter for this instance.
+     * A later call through {@link #uploader()} or {@link #api()} opens a new pool.
+     */
+    public void close() throws IOException {
+        try {
+            if (uploaderStrategy != null) uploaderStrategy.close();
+        } finally {
+            if (apiStrategy != null) apiStrategy.close();
+        }
+    }
+
+    /**
+     * Add an upload strategy to the classes tried, in order, by new instances. The first one that can be loaded
+     * is used, and strategies that need a newer Java version than the running one are skipped.
+     */
     public static void registerUploaderStrategy(String className) {
         if (!UPLOAD_STRATEGIES.contains(className)) {
             UPLOAD_STRATEGIES.add(className);
@@ -63,6 +92,9 @@ public class Cloudinary {
 
     }
 
+    /**
+     * Add an Admin API strategy to the classes tried, in order, by new instances, see {@link #registerUploaderStrategy(String)}.
+     */
     public static void registerAPIStrategy(String className) {
         if (!API_STRATEGIES.contains(className)) {
             API_STRATEGIES.add(className);
@@ -104,7 +136,137 @@ public class Cloudinary {
     }
 
     public Url url() {
-        return new Url(this);
+        return urlFactory().url();
+    }
+
+    /**
+     * @return a {@link UrlFactory} for the current configuration. The factory is reused for as long
+     * as the URL related configuration parameters do not change.
+     */
+    public UrlFactory urlFactory() {
+        UrlFactory factory = this.urlFactory;
+        if (factory == null || !factory.isCurrent(config)) {
+            factory = new UrlFactory(this);
+            this.urlFactory = factory;
+        }
+        return factory;
+    }
+
+    /**
+     * @return the cache of signed delivery URL signatures, or null unless the
+     * <code>url_signature_cache_size</code> configuration parameter is positive
+     */
+    public SignatureCache urlSignatureCache() {
+        int maxEntries = config.urlSignatureCacheSize;
+        if (maxEntries <= 0) return null;
+        SignatureCache cache = this.urlSignatureCache;
+        if (cache == null || cache.maxEntries() != maxEntries || !cache.isFor(config.apiSecret)) {
+            cache = new SignatureCache(maxEntries, config.apiSecret);
+            this.urlSignatureCache = cache;
+        }
+        return cache;
+    }
+
+    /**
+     * @return the limiter shared by the Admin API calls of this instance, or null if <code>rate_limit_pacing</code> is off
+     */
+    public RateLimiter apiRateLimiter() {
+        if (!config.rateLimitPacing) return null;
+        RateLimiter limiter = this.apiRateLimiter;
+        if (limiter == null) {
+            synchronized (this) {
+                limiter = this.apiRateLimiter;
+                if (limiter == null) {
+                    limiter = new RateLimiter(config.rateLimitBurst);
+                    this.apiRateLimiter = limiter;
+                }
+            }
+        }
+        return limiter;
+    }
+
+    /**
+     * @return the cache of Admin API resources of this instance, or null unless the
+     * <code>resource_cache_max_weight</code> configuration parameter is positive
+     */
+    public ResourceCache resourceCache() {
+        int maxWeight = config.resourceCacheMaxWeight;
+        if (maxWeight <= 0) return null;
+        ResourceCache cache = this.resourceCache;
+        if (cache == null || !cache.isFor(maxWeight, config.resourceCacheTtl)) {
+            synchronized (this) {
+                cache = this.resourceCache;
+                if (cache == null || !cache.isFor(maxWeight, config.resourceCacheTtl)) {
+                    cache = new ResourceCache(maxWeight, config.resourceCacheTtl);
+                    this.resourceCache = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @return the coalescer of the Admin API GET calls of this instance, or null if <code>coalesce_requests</code> is off
+     */
+    public RequestCoalescer requestCoalescer() {
+        if (!config.coalesceRequests) return null;
+        RequestCoalescer coalescer = this.requestCoalescer;
+        if (coalescer == null) {
+            synchronized (this) {
+                coalescer = this.requestCoalescer;
+                if (coalescer == null) {
+                    coalescer = new RequestCoalescer();
+                    this.requestCoalescer = coalescer;
+                }
+            }
+        }
+        return coalescer;
+    }
+
+    /**
+     * @return the metrics of the API calls of this instance, or null if <code>call_metrics</code> is off
+     */
+    public CallMetrics callMetrics() {
+        if (!config.callMetrics) return null;
+        CallMetrics metrics = this.callMetrics;
+        if (metrics == null) {
+            synchronized (this) {
+                metrics = this.callMetrics;
+                if (metrics == null) {
+                    metrics = new CallMetrics();
+                    callListeners.add(metrics);
+                    this.callMetrics = metrics;
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Notify <code>listener</code> of the API calls of this instance, see {@link CallListener}.
+     */
+    public void addCallListener(CallListener listener) {
+        callListeners.add(listener);
+    }
+
+    public void removeCallListener(CallListener listener) {
+        callListeners.remove(listener);
+    }
+
+    /**
+     * @return the listeners notified of the API calls of this instance, including the {@link #callMetrics()}
+     */
+    public List<CallListener> callListeners() {
+        callMetrics();
+        return Collections.unmodifiableList(callListeners);
+    }
+
+    /**
+     * @return the stats of the connection pool of the HTTP adapter, empty if it does not report them
+     */
+    public Map<String, Number> connectionPoolStats() {
+        if (apiStrategy == null) return Collections.emptyMap();
+        return apiStrategy.getConnectionPoolStats();
     }
 
     public String cloudinaryApiUrl(String action, Map options) {
@@ -131,27 +293,14 @@ public class Cloudinary {
     }
 
     public String apiSignRequest(Map<String, Object> paramsToSign, String apiSecret) {
-        Collection<String> params = new ArrayList<String>();
-        for (Map.Entry<String, Object> param : new TreeMap<String, Object>(paramsToSign).entrySet()) {
-            if (param.getValue() instanceof Collection) {
-                params.add(param.getKey() + "=" + StringUtils.join((Collection) param.getValue(), ","));
-            } else if (param.getValue() instanceof Object[]) {
-                params.add(param.getKey() + "=" + StringUtils.join((Object[]) param.getValue(), ","));
-            } else {
-                if (StringUtils.isNotBlank(param.getValue())) {
-                    params.add(param.getKey() + "=" + param.getValue().toString());
-                }
-            }
-        }
-        String to_sign = StringUtils.join(params, "&");
-        MessageDigest md = null;
-        try {
-            md = MessageDigest.getInstance("SHA-1");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Unexpected exception", e);
-        }
-        byte[] digest = md.digest(getUTF8Bytes(to_sign + apiSecret));
-        return StringUtils.encodeHexString(digest);
+        return signer().signParameters(paramsToSign, apiSecret);
+    }
+
+    /**
+     * @return the {@link Signer} for the configured <code>signature_algorithm</code>
+     */
+    public Signer signer() {
+        return Signer.getInstance(ObjectUtils.asString(config.signatureAlgorithm, Signer.SHA1));
     }
 
     public void signRequest(Map<String, Object> params, Map<String, Object> options) {
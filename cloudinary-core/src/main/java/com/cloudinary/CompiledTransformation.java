@@ -0,0 +1,104 @@
+package com.cloudinary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable {@link Transformation} that is serialized once, when it is created by
+ * {@link Transformation#freeze()}.
+ * <p>
+ * The serialized form and the {@code htmlWidth}, {@code htmlHeight}, {@code isResponsive} and
+ * {@code hiDPI} flags are cached, so instances can be kept in static fields and shared between
+ * threads and {@link Url} instances. Global defaults (see {@link Transformation#setDefaultDPR(Object)},
+ * {@link Transformation#setDefaultIsResponsive(boolean)} and
+ * {@link Transformation#setResponsiveWidthTransformation(Map)}) are applied as they are at freeze time.
+ * <p>
+ * Any attempt to modify the transformation throws {@link UnsupportedOperationException};
+ * use {@link Transformation#Transformation(Transformation)} to obtain a mutable copy.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public final class CompiledTransformation extends Transformation {
+    private final String serialized;
+    private final String compiledHtmlWidth;
+    private final String compiledHtmlHeight;
+    private final boolean compiledResponsive;
+    private final boolean compiledHiDPI;
+
+    CompiledTransformation(Transformation transformation) {
+        super(copyOf(transformation));
+        this.hiDPI = transformation.isHiDPI();
+        this.isResponsive = transformation.isResponsive();
+        this.serialized = super.generate(this.transformations);
+        this.compiledHtmlWidth = this.htmlWidth;
+        this.compiledHtmlHeight = this.htmlHeight;
+        this.compiledResponsive = this.isResponsive;
+        this.compiledHiDPI = this.hiDPI;
+
+        List<Map> components = new ArrayList<Map>(this.transformations.size());
+        for (Map component : this.transformations) {
+            components.add(Collections.unmodifiableMap(component));
+        }
+        this.transformations = Collections.unmodifiableList(components);
+        this.transformation = components.get(components.size() - 1);
+    }
+
+    private static List<Map> copyOf(Transformation transformation) {
+        List<Map> components = dup(transformation.transformations);
+        if (components.isEmpty()) {
+            components.add(Collections.emptyMap());
+        }
+        return components;
+    }
+
+    @Override
+    public String generate() {
+        return serialized;
+    }
+
+    @Override
+    public String generate(Iterable<Map> optionsList) {
+        return new Transformation().generate(optionsList);
+    }
+
+    @Override
+    public String generate(Map options) {
+        return new Transformation().generate(options);
+    }
+
+    @Override
+    public String getHtmlWidth() {
+        return compiledHtmlWidth;
+    }
+
+    @Override
+    public String getHtmlHeight() {
+        return compiledHtmlHeight;
+    }
+
+    @Override
+    public boolean isResponsive() {
+        return compiledResponsive;
+    }
+
+    @Override
+    public boolean isHiDPI() {
+        return compiledHiDPI;
+    }
+
+    @Override
+    public CompiledTransformation freeze() {
+        return this;
+    }
+
+    @Override
+    public Transformation param(String key, Object value) {
+        throw new UnsupportedOperationException("CompiledTransformation is immutable");
+    }
+
+    @Override
+    public Transformation params(Map transformation) {
+        throw new UnsupportedOperationException("CompiledTransformation is immutable");
+    }
+}
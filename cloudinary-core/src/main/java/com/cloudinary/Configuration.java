@@ -39,6 +39,21 @@ public class Configuration {
     public int timeout;
     public boolean loadStrategies = true;
     public boolean clientHints = false;
+    public int urlSignatureCacheSize;
+    public String signatureAlgorithm = Signer.SHA1;
+    public int maxConnections = 20;
+    public int maxConnectionsPerRoute = 20;
+    public int connectionKeepAlive;
+    public int idleConnectionTimeout = 60;
+    public int maxRetries;
+    public int retryBaseDelay = 500;
+    public int retryMaxDelay = 60000;
+    public boolean rateLimitPacing;
+    public int rateLimitBurst = 10;
+    public int resourceCacheMaxWeight;
+    public int resourceCacheTtl = 300;
+    public boolean coalesceRequests;
+    public boolean callMetrics;
 
     public Configuration() {
     }
@@ -92,6 +107,21 @@ public class Configuration {
         this.loadStrategies = ObjectUtils.asBoolean(config.get("load_strategies"), true);
         this.timeout = ObjectUtils.asInteger(config.get("timeout"), 0);
         this.clientHints = ObjectUtils.asBoolean(config.get("client_hints"), false);
+        this.urlSignatureCacheSize = ObjectUtils.asInteger(config.get("url_signature_cache_size"), 0);
+        this.signatureAlgorithm = ObjectUtils.asString(config.get("signature_algorithm"), Signer.SHA1);
+        this.maxConnections = ObjectUtils.asInteger(config.get("max_connections"), 20);
+        this.maxConnectionsPerRoute = ObjectUtils.asInteger(config.get("max_connections_per_route"), 20);
+        this.connectionKeepAlive = ObjectUtils.asInteger(config.get("connection_keep_alive"), 0);
+        this.idleConnectionTimeout = ObjectUtils.asInteger(config.get("idle_connection_timeout"), 60);
+        this.maxRetries = ObjectUtils.asInteger(config.get("max_retries"), 0);
+        this.retryBaseDelay = ObjectUtils.asInteger(config.get("retry_base_delay"), 500);
+        this.retryMaxDelay = ObjectUtils.asInteger(config.get("retry_max_delay"), 60000);
+        this.rateLimitPacing = ObjectUtils.asBoolean(config.get("rate_limit_pacing"), false);
+        this.rateLimitBurst = ObjectUtils.asInteger(config.get("rate_limit_burst"), 10);
+        this.resourceCacheMaxWeight = ObjectUtils.asInteger(config.get("resource_cache_max_weight"), 0);
+        this.resourceCacheTtl = ObjectUtils.asInteger(config.get("resource_cache_ttl"), 300);
+        this.coalesceRequests = ObjectUtils.asBoolean(config.get("coalesce_requests"), false);
+        this.callMetrics = ObjectUtils.asBoolean(config.get("call_metrics"), false);
     }
 
     @SuppressWarnings("rawtypes")
@@ -115,6 +145,21 @@ public class Configuration {
         map.put("load_strategies", loadStrategies);
         map.put("timeout", timeout);
         map.put("client_hints", clientHints);
+        map.put("url_signature_cache_size", urlSignatureCacheSize);
+        map.put("signature_algorithm", signatureAlgorithm);
+        map.put("max_connections", maxConnections);
+        map.put("max_connections_per_route", maxConnectionsPerRoute);
+        map.put("connection_keep_alive", connectionKeepAlive);
+        map.put("idle_connection_timeout", idleConnectionTimeout);
+        map.put("max_retries", maxRetries);
+        map.put("retry_base_delay", retryBaseDelay);
+        map.put("retry_max_delay", retryMaxDelay);
+        map.put("rate_limit_pacing", rateLimitPacing);
+        map.put("rate_limit_burst", rateLimitBurst);
+        map.put("resource_cache_max_weight", resourceCacheMaxWeight);
+        map.put("resource_cache_ttl", resourceCacheTtl);
+        map.put("coalesce_requests", coalesceRequests);
+        map.put("call_metrics", callMetrics);
         return map;
     }
 
@@ -137,6 +182,21 @@ public class Configuration {
         this.useRootPath = other.useRootPath;
         this.timeout = other.timeout;
         this.clientHints = other.clientHints;
+        this.urlSignatureCacheSize = other.urlSignatureCacheSize;
+        this.signatureAlgorithm = other.signatureAlgorithm;
+        this.maxConnections = other.maxConnections;
+        this.maxConnectionsPerRoute = other.maxConnectionsPerRoute;
+        this.connectionKeepAlive = other.connectionKeepAlive;
+        this.idleConnectionTimeout = other.idleConnectionTimeout;
+        this.maxRetries = other.maxRetries;
+        this.retryBaseDelay = other.retryBaseDelay;
+        this.retryMaxDelay = other.retryMaxDelay;
+        this.rateLimitPacing = other.rateLimitPacing;
+        this.rateLimitBurst = other.rateLimitBurst;
+        this.resourceCacheMaxWeight = other.resourceCacheMaxWeight;
+        this.resourceCacheTtl = other.resourceCacheTtl;
+        this.coalesceRequests = other.coalesceRequests;
+        this.callMetrics = other.callMetrics;
     }
 
     /**
@@ -227,6 +287,21 @@ public class Configuration {
         private boolean loadStrategies = true;
         private int timeout;
         private boolean clientHints = false;
+        private int urlSignatureCacheSize;
+        private String signatureAlgorithm = Signer.SHA1;
+        private int maxConnections = 20;
+        private int maxConnectionsPerRoute = 20;
+        private int connectionKeepAlive;
+        private int idleConnectionTimeout = 60;
+        private int maxRetries;
+        private int retryBaseDelay = 500;
+        private int retryMaxDelay = 60000;
+        private boolean rateLimitPacing;
+        private int rateLimitBurst = 10;
+        private int resourceCacheMaxWeight;
+        private int resourceCacheTtl = 300;
+        private boolean coalesceRequests;
+        private boolean callMetrics;
 
         /**
          * Set the HTTP connection timeout.
@@ -245,6 +320,21 @@ public class Configuration {
         public Configuration build() {
             final Configuration configuration = new Configuration(cloudName, apiKey, apiSecret, secureDistribution, cname, uploadPrefix, secure, privateCdn, cdnSubdomain, shorten, callback, proxyHost, proxyPort, secureCdnSubdomain, useRootPath, timeout, loadStrategies);
             configuration.clientHints = clientHints;
+            configuration.urlSignatureCacheSize = urlSignatureCacheSize;
+            configuration.signatureAlgorithm = signatureAlgorithm;
+            configuration.maxConnections = maxConnections;
+            configuration.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            configuration.connectionKeepAlive = connectionKeepAlive;
+            configuration.idleConnectionTimeout = idleConnectionTimeout;
+            configuration.maxRetries = maxRetries;
+            configuration.retryBaseDelay = retryBaseDelay;
+            configuration.retryMaxDelay = retryMaxDelay;
+            configuration.rateLimitPacing = rateLimitPacing;
+            configuration.rateLimitBurst = rateLimitBurst;
+            configuration.resourceCacheMaxWeight = resourceCacheMaxWeight;
+            configuration.resourceCacheTtl = resourceCacheTtl;
+            configuration.coalesceRequests = coalesceRequests;
+            configuration.callMetrics = callMetrics;
             return configuration;
         }
 
@@ -353,6 +443,149 @@ public class Configuration {
             return this;
         }
 
+        /**
+         * Cache the signatures of up to <code>urlSignatureCacheSize</code> signed delivery URLs.
+         *
+         * @param urlSignatureCacheSize maximum number of cached signatures, or 0 to disable the cache
+         * @return builder for chaining
+         */
+        public Builder setUrlSignatureCacheSize(int urlSignatureCacheSize) {
+            this.urlSignatureCacheSize = urlSignatureCacheSize;
+            return this;
+        }
+
+        /**
+         * The digest algorithm used to sign API requests, {@link Signer#SHA1} (the default) or {@link Signer#SHA256}.
+         * Delivery URL signatures always use SHA-1.
+         */
+        public Builder setSignatureAlgorithm(String signatureAlgorithm) {
+            this.signatureAlgorithm = signatureAlgorithm;
+            return this;
+        }
+
+        /**
+         * Limit the size of the HTTP connection pool shared by the uploader and the admin API.
+         *
+         * @param maxConnections maximum number of open connections (default 20)
+         * @return builder for chaining
+         */
+        public Builder setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * @param maxConnectionsPerRoute maximum number of open connections to a single host (default 20)
+         * @return builder for chaining
+         */
+        public Builder setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * @param connectionKeepAlive time in seconds a pooled connection may be reused, or 0 to keep it as long as the server allows
+         * @return builder for chaining
+         */
+        public Builder setConnectionKeepAlive(int connectionKeepAlive) {
+            this.connectionKeepAlive = connectionKeepAlive;
+            return this;
+        }
+
+        /**
+         * @param idleConnectionTimeout time in seconds after which idle pooled connections are closed (default 60), or 0 to keep them
+         * @return builder for chaining
+         */
+        public Builder setIdleConnectionTimeout(int idleConnectionTimeout) {
+            this.idleConnectionTimeout = idleConnectionTimeout;
+            return this;
+        }
+
+        /**
+         * Retry API calls and uploads that fail with a rate limit (420), a server error or an I/O error,
+         * see {@link com.cloudinary.strategies.RetryPolicy}.
+         *
+         * @param maxRetries number of retries of a failed call (default 0, no retries)
+         * @return builder for chaining
+         */
+        public Builder setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * @param retryBaseDelay time in milliseconds before the first retry (default 500), doubled for each further retry
+         * @return builder for chaining
+         */
+        public Builder setRetryBaseDelay(int retryBaseDelay) {
+            this.retryBaseDelay = retryBaseDelay;
+            return this;
+        }
+
+        /**
+         * @param retryMaxDelay longest time in milliseconds to wait before a retry (default 60000), including the wait
+         *                      for a rate limit reset
+         * @return builder for chaining
+         */
+        public Builder setRetryMaxDelay(int retryMaxDelay) {
+            this.retryMaxDelay = retryMaxDelay;
+            return this;
+        }
+
+        /**
+         * Pace Admin API calls so that the remaining rate limit budget reported by the server lasts until its reset,
+         * see {@link com.cloudinary.api.RateLimiter}.
+         */
+        public Builder setRateLimitPacing(boolean rateLimitPacing) {
+            this.rateLimitPacing = rateLimitPacing;
+            return this;
+        }
+
+        /**
+         * @param rateLimitBurst number of Admin API calls that may be sent at once when paced (default 10)
+         * @return builder for chaining
+         */
+        public Builder setRateLimitBurst(int rateLimitBurst) {
+            this.rateLimitBurst = rateLimitBurst;
+            return this;
+        }
+
+        /**
+         * Cache the responses of <code>Api.resource</code> and <code>Api.resourcesByIds</code>, see {@link com.cloudinary.ResourceCache}.
+         *
+         * @param resourceCacheMaxWeight maximum total weight of the cached resources, or 0 to disable the cache
+         * @return builder for chaining
+         */
+        public Builder setResourceCacheMaxWeight(int resourceCacheMaxWeight) {
+            this.resourceCacheMaxWeight = resourceCacheMaxWeight;
+            return this;
+        }
+
+        /**
+         * @param resourceCacheTtl seconds a cached resource is used for (default 300)
+         * @return builder for chaining
+         */
+        public Builder setResourceCacheTtl(int resourceCacheTtl) {
+            this.resourceCacheTtl = resourceCacheTtl;
+            return this;
+        }
+
+        /**
+         * Let concurrent identical Admin API GET calls share a single request, see {@link com.cloudinary.RequestCoalescer}.
+         */
+        public Builder setCoalesceRequests(boolean coalesceRequests) {
+            this.coalesceRequests = coalesceRequests;
+            return this;
+        }
+
+        /**
+         * Keep latency histograms and counters of the API calls by endpoint, see {@link com.cloudinary.metrics.CallMetrics}.
+         */
+        public Builder setCallMetrics(boolean callMetrics) {
+            this.callMetrics = callMetrics;
+            return this;
+        }
+
         /**
          * Initialize builder from existing {@link Configuration}
          *
@@ -378,6 +611,21 @@ public class Configuration {
             this.loadStrategies = other.loadStrategies;
             this.timeout = other.timeout;
             this.clientHints = other.clientHints;
+            this.urlSignatureCacheSize = other.urlSignatureCacheSize;
+            this.signatureAlgorithm = other.signatureAlgorithm;
+            this.maxConnections = other.maxConnections;
+            this.maxConnectionsPerRoute = other.maxConnectionsPerRoute;
+            this.connectionKeepAlive = other.connectionKeepAlive;
+            this.idleConnectionTimeout = other.idleConnectionTimeout;
+            this.maxRetries = other.maxRetries;
+            this.retryBaseDelay = other.retryBaseDelay;
+            this.retryMaxDelay = other.retryMaxDelay;
+            this.rateLimitPacing = other.rateLimitPacing;
+            this.rateLimitBurst = other.rateLimitBurst;
+            this.resourceCacheMaxWeight = other.resourceCacheMaxWeight;
+            this.resourceCacheTtl = other.resourceCacheTtl;
+            this.coalesceRequests = other.coalesceRequests;
+            this.callMetrics = other.callMetrics;
             return this;
         }
     }
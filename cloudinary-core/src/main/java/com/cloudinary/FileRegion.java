@@ -0,0 +1,126 @@
+package com.cloudinary;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A part of a file, used as the body of one chunk by {@link Uploader#uploadLarge(Object, java.util.Map)} so that
+ * the chunk is streamed from disk instead of being read into memory first.
+ * <p>
+ * Upload strategies that return true from {@link com.cloudinary.strategies.AbstractUploaderStrategy#supportsFileRegions()}
+ * accept it as the <code>file</code> argument of <code>callApi</code>. Each call to {@link #writeTo(OutputStream)} or
+ * {@link #openStream()} opens the file again, so a region can be sent more than once and from several threads.
+ */
+public final class FileRegion {
+    private final File file;
+    private final long offset;
+    private final long length;
+
+    public FileRegion(File file, long offset, long length) {
+        if (offset < 0 || length < 0) {
+            throw new IllegalArgumentException("Invalid file region " + offset + "+" + length);
+        }
+        this.file = file;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Transfer the region to <code>out</code> with {@link FileChannel#transferTo}, which copies the file
+     * directly to channels that support it and through a small buffer otherwise.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = offset;
+            long end = offset + length;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new EOFException("File " + file + " is shorter than " + end + " bytes");
+                }
+                position += transferred;
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @return a stream of the region's bytes, for clients that cannot write to an output stream
+     */
+    public InputStream openStream() throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            in.getChannel().position(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new RegionInputStream(in, length);
+    }
+
+    private static class RegionInputStream extends FilterInputStream {
+        private long remaining;
+
+        RegionInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) return -1;
+            int b = in.read();
+            if (b != -1) remaining--;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) return -1;
+            int bytesRead = in.read(b, off, (int) Math.min(len, remaining));
+            if (bytesRead > 0) remaining -= bytesRead;
+            return bytesRead;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
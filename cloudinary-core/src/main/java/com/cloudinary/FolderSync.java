@@ -0,0 +1,328 @@
+package com.cloudinary;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import com.cloudinary.utils.ObjectUtils;
+import com.cloudinary.utils.StringUtils;
+
+/**
+ * Mirrors a local directory into a folder, uploading only the files that are new or changed since the last run
+ * (the <code>syncFolder</code> method of {@link Uploader}).
+ * <p>
+ * Each file of the directory tree is uploaded under the public ID <code>folder/relative/path</code>, without its
+ * extension unless the <code>resource_type</code> is <code>raw</code>. A file is unchanged if its MD5 digest is the
+ * one recorded in the manifest by the previous run and its resource still exists. Files whose size and modification
+ * time are those of the manifest are not read again, so an unchanged run only lists the folder. Without a manifest
+ * entry, an existing resource is kept if its <code>etag</code>, or else its <code>bytes</code>, match the file.
+ * <p>
+ * Options:
+ * <ul>
+ * <li><code>manifest</code>: the file of the manifest, by default <code>.cloudinary_sync</code> in the directory</li>
+ * <li><code>parallel_uploads</code>: the number of uploads in flight, 4 by default</li>
+ * <li><code>delete_orphans</code>: delete the resources of the folder that have no local file, which are otherwise
+ * only reported</li>
+ * <li><code>resource_type</code> and <code>type</code> of the resources, <code>image</code> and <code>upload</code>
+ * by default</li>
+ * <li><code>upload_options</code>: additional options of the uploads</li>
+ * </ul>
+ * The result has the number of <code>uploaded</code>, <code>unchanged</code> and <code>hashed</code> files, the
+ * <code>uploaded_bytes</code>, the <code>orphans</code> and the result of their deletion in <code>deleted</code>,
+ * the <code>failed</code> files with their <code>errors</code>, the <code>seconds</code> of the run and its
+ * <code>files_per_second</code> and <code>bytes_per_second</code>.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+class FolderSync {
+    static final String DEFAULT_MANIFEST = ".cloudinary_sync";
+    // the manifest is saved as uploads complete, so that an interrupted run does not upload them again
+    private static final int SAVE_EVERY = 100;
+
+    private final Api api;
+    private final Uploader uploader;
+    private final File directory;
+    private final String folder;
+    private final Map options;
+    private final File manifestFile;
+    private final int parallelUploads;
+    private final boolean raw;
+    private final Properties manifest = new Properties();
+    private final List<String> failed = new ArrayList<String>();
+    private final List<String> errors = new ArrayList<String>();
+    private long uploaded;
+    private long uploadedBytes;
+    private long unchanged;
+    private long hashed;
+
+    FolderSync(Api api, Uploader uploader, File directory, String folder, Map options) {
+        if (!directory.isDirectory()) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        this.api = api;
+        this.uploader = uploader;
+        this.directory = directory;
+        this.folder = folder.endsWith("/") ? folder.substring(0, folder.length() - 1) : folder;
+        this.options = options == null ? new HashMap() : new HashMap(options);
+        String manifest = ObjectUtils.asString(this.options.get("manifest"));
+        this.manifestFile = manifest == null ? new File(directory, DEFAULT_MANIFEST) : new File(manifest);
+        this.parallelUploads = Math.max(1, ObjectUtils.asInteger(this.options.get("parallel_uploads"), 4));
+        this.raw = "raw".equals(this.options.get("resource_type"));
+    }
+
+    Map run() throws Exception {
+        long start = System.currentTimeMillis();
+        loadManifest();
+        Map<String, Map> remote = listRemote();
+        Map<String, File> local = new HashMap<String, File>();
+        listLocal(directory, "", local);
+
+        List<Change> changes = new ArrayList<Change>();
+        Set<String> kept = new HashSet<String>();
+        for (Map.Entry<String, File> entry : local.entrySet()) {
+            String path = entry.getKey();
+            File file = entry.getValue();
+            String publicId = publicId(path);
+            kept.add(publicId);
+            String md5;
+            try {
+                md5 = digest(path, file);
+            } catch (IOException e) {
+                fail(path, e);
+                continue;
+            }
+            if (isUnchanged(path, md5, file.length(), remote.get(publicId))) {
+                record(path, file, md5);
+                unchanged++;
+            } else {
+                changes.add(new Change(path, file, md5, publicId));
+            }
+        }
+        upload(changes);
+
+        List<String> orphans = new ArrayList<String>();
+        for (String publicId : remote.keySet()) {
+            if (!kept.contains(publicId)) orphans.add(publicId);
+        }
+        // entries of deleted files
+        manifest.keySet().retainAll(local.keySet());
+        saveManifest();
+
+        Map result = ObjectUtils.asMap("uploaded", uploaded, "unchanged", unchanged, "hashed", hashed,
+                "uploaded_bytes", uploadedBytes, "orphans", orphans);
+        if (!orphans.isEmpty() && ObjectUtils.asBoolean(options.get("delete_orphans"), false)) {
+            result.put("deleted", api.bulkDeleteResources(orphans, resourceOptions()));
+        }
+        if (!failed.isEmpty()) {
+            result.put("failed", failed);
+            result.put("errors", errors);
+        }
+        double seconds = Math.max(1, System.currentTimeMillis() - start) / 1000.0;
+        result.put("seconds", seconds);
+        result.put("files_per_second", local.size() / seconds);
+        result.put("bytes_per_second", uploadedBytes / seconds);
+        return result;
+    }
+
+    private Map resourceOptions() {
+        return ObjectUtils.asMap("resource_type", ObjectUtils.asString(options.get("resource_type"), "image"),
+                "type", ObjectUtils.asString(options.get("type"), "upload"));
+    }
+
+    private Map<String, Map> listRemote() {
+        Map listOptions = resourceOptions();
+        listOptions.put("prefix", folder + "/");
+        listOptions.put("max_results", 500);
+        Map<String, Map> remote = new HashMap<String, Map>();
+        Iterator<Map> resources = api.iterateResources(listOptions);
+        while (resources.hasNext()) {
+            Map resource = resources.next();
+            remote.put((String) resource.get("public_id"), resource);
+        }
+        return remote;
+    }
+
+    private void listLocal(File dir, String prefix, Map<String, File> local) {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        for (File file : files) {
+            if (file.isHidden() || file.equals(manifestFile)) continue;
+            String path = prefix + file.getName();
+            if (file.isDirectory()) {
+                listLocal(file, path + "/", local);
+            } else {
+                local.put(path, file);
+            }
+        }
+    }
+
+    String publicId(String path) {
+        if (!raw) {
+            int dot = path.lastIndexOf('.');
+            if (dot > path.lastIndexOf('/') + 1) path = path.substring(0, dot);
+        }
+        return folder + "/" + path;
+    }
+
+    private boolean isUnchanged(String path, String md5, long size, Map resource) {
+        if (resource == null) return false;
+        String[] entry = manifestEntry(path);
+        if (entry != null) return md5.equals(entry[2]);
+        Object etag = resource.get("etag");
+        if (etag != null) return md5.equals(etag);
+        Object bytes = resource.get("bytes");
+        return bytes instanceof Number && ((Number) bytes).longValue() == size;
+    }
+
+    /**
+     * @return the MD5 of the file, from the manifest if it was not modified since it was recorded
+     */
+    private String digest(String path, File file) throws IOException {
+        String[] entry = manifestEntry(path);
+        if (entry != null && entry[0].equals(String.valueOf(file.length())) && entry[1].equals(String.valueOf(file.lastModified()))) {
+            return entry[2];
+        }
+        hashed++;
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Unexpected exception", e);
+        }
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[65536];
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+        return StringUtils.encodeHexString(digest.digest());
+    }
+
+    private void upload(List<Change> changes) throws IOException {
+        if (changes.isEmpty()) return;
+        ParallelTasks<Change> uploads = new ParallelTasks<Change>("cloudinary-sync", parallelUploads, "uploading files");
+        try {
+            for (Change change : changes) {
+                if (uploads.isFull()) collect(uploads.take());
+                uploads.submit(change);
+            }
+            while (uploads.inFlight() > 0) {
+                collect(uploads.take());
+            }
+        } catch (InterruptedIOException e) {
+            saveManifest();
+            throw e;
+        } finally {
+            uploads.shutdown();
+        }
+    }
+
+    private void collect(Change change) throws IOException {
+        if (change.error != null) {
+            fail(change.path, change.error);
+            return;
+        }
+        record(change.path, change.file, change.md5);
+        uploaded++;
+        uploadedBytes += change.file.length();
+        if (uploaded % SAVE_EVERY == 0) saveManifest();
+    }
+
+    private void fail(String path, Exception error) {
+        failed.add(path);
+        errors.add(path + ": " + error.getMessage());
+    }
+
+    private String[] manifestEntry(String path) {
+        String value = manifest.getProperty(path);
+        if (value == null) return null;
+        String[] entry = value.split(",");
+        return entry.length == 3 ? entry : null;
+    }
+
+    private void record(String path, File file, String md5) {
+        manifest.setProperty(path, file.length() + "," + file.lastModified() + "," + md5);
+    }
+
+    private void loadManifest() throws IOException {
+        if (!manifestFile.isFile()) return;
+        InputStream in = new FileInputStream(manifestFile);
+        try {
+            manifest.load(in);
+        } finally {
+            in.close();
+        }
+        // a manifest of another folder does not describe its resources
+        if (!folder.equals(manifest.remove("#folder"))) manifest.clear();
+    }
+
+    private void saveManifest() throws IOException {
+        Properties saved = new Properties();
+        saved.putAll(manifest);
+        saved.setProperty("#folder", folder);
+        // written aside and renamed, so that a crash does not leave a truncated manifest
+        File temporary = new File(manifestFile.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(temporary);
+        try {
+            saved.store(out, "Cloudinary folder sync manifest: path=size,modified,md5");
+        } finally {
+            out.close();
+        }
+        if (!temporary.renameTo(manifestFile)) {
+            // not atomic on platforms that do not rename over an existing file
+            if (!manifestFile.delete() || !temporary.renameTo(manifestFile)) {
+                throw new IOException("Cannot write the manifest " + manifestFile);
+            }
+        }
+    }
+
+    private class Change implements Callable<Change> {
+        final String path;
+        final File file;
+        final String md5;
+        final String publicId;
+        Exception error;
+
+        Change(String path, File file, String md5, String publicId) {
+            this.path = path;
+            this.file = file;
+            this.md5 = md5;
+            this.publicId = publicId;
+        }
+
+        @Override
+        public Change call() {
+            Map uploadOptions = new HashMap();
+            Map extra = (Map) options.get("upload_options");
+            if (extra != null) uploadOptions.putAll(extra);
+            uploadOptions.putAll(resourceOptions());
+            uploadOptions.put("public_id", publicId);
+            uploadOptions.put("overwrite", true);
+            uploadOptions.put("invalidate", ObjectUtils.asBoolean(uploadOptions.get("invalidate"), true));
+            try {
+                uploader.upload(file, uploadOptions);
+            } catch (Exception e) {
+                error = e;
+            }
+            return this;
+        }
+    }
+}
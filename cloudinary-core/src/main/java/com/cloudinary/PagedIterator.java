@@ -0,0 +1,116 @@
+package com.cloudinary;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import com.cloudinary.api.ApiResponse;
+
+/**
+ * Iterates over the items of a paginated Admin API listing, such as {@link Api#iterateResources(Map)}, following
+ * its <code>next_cursor</code>.
+ * <p>
+ * Pages are fetched when needed: the first one by the first call to {@link #hasNext()}, and each next page in the
+ * background as soon as the previous one arrived, so that it is usually ready by the time the previous page is
+ * consumed. At most two pages are held at a time, as each page is released once it is iterated. Errors of the API
+ * calls are thrown from {@link #hasNext()} wrapped in a RuntimeException, and the failed page is fetched again by
+ * the next call to {@link #hasNext()}.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+abstract class PagedIterator<T> implements Iterator<T> {
+    private final String itemsKey;
+    private Iterator<T> page = Collections.<T>emptyList().iterator();
+    // the options of the next page, or null after the last one
+    private Map pending;
+    private FutureTask<ApiResponse> next;
+
+    PagedIterator(Map options, String itemsKey) {
+        this.pending = options == null ? new HashMap() : new HashMap(options);
+        this.itemsKey = itemsKey;
+    }
+
+    /**
+     * Call the listing API with <code>options</code>, which include the <code>next_cursor</code> of the page.
+     */
+    protected abstract ApiResponse fetch(Map options) throws Exception;
+
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (pending == null) return false;
+            ApiResponse response;
+            if (next != null) {
+                FutureTask<ApiResponse> task = next;
+                // a failed prefetch is not awaited again, the page is fetched again instead
+                next = null;
+                response = await(task);
+            } else {
+                response = fetchPage(pending);
+            }
+            Object cursor = response.get("next_cursor");
+            if (cursor != null) {
+                pending = new HashMap(pending);
+                pending.put("next_cursor", cursor);
+                next = prefetch(pending);
+            } else {
+                pending = null;
+            }
+            List<T> items = (List<T>) response.get(itemsKey);
+            page = items == null ? Collections.<T>emptyList().iterator() : items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return page.next();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private ApiResponse fetchPage(Map pageOptions) {
+        try {
+            return fetch(pageOptions);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private FutureTask<ApiResponse> prefetch(final Map pageOptions) {
+        FutureTask<ApiResponse> task = new FutureTask<ApiResponse>(new Callable<ApiResponse>() {
+            @Override
+            public ApiResponse call() throws Exception {
+                return fetch(pageOptions);
+            }
+        });
+        // a thread per page rather than a pool, so that an abandoned iterator leaves nothing to shut down
+        ParallelTasks.daemonThread(task, "cloudinary-listing").start();
+        return task;
+    }
+
+    private static ApiResponse await(FutureTask<ApiResponse> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the next page", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.cloudinary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Sends the chunks of a large upload over several connections (the <code>parallel_chunks</code> option of
+ * {@link Uploader#uploadLarge(Object, Map)}).
+ * <p>
+ * When reading a stream, the calling thread reads the next chunk while up to <code>parallel_chunks</code> chunks are
+ * in flight, so at most <code>parallel_chunks + 1</code> chunk buffers are allocated and they are reused. Files are
+ * sent as {@link FileRegion}s and need no buffers. The final chunk is sent last, after every other chunk was
+ * acknowledged, as the server completes the asset when it receives it. When an {@link UploadJournal} is given, each
+ * acknowledged chunk is recorded in it.
+ */
+@SuppressWarnings({"rawtypes"})
+class ParallelChunkUpload {
+    private final Uploader uploader;
+    private final Map params;
+    private final Map options;
+    private final String uploadId;
+    private final int chunkSize;
+    private final long length;
+    private final int parallelChunks;
+    private final ProgressCallback progress;
+    private final UploadJournal journal;
+    private long uploaded;
+
+    ParallelChunkUpload(Uploader uploader, Map params, Map options, String uploadId, int chunkSize, long length, int parallelChunks,
+                        UploadJournal journal) {
+        this.uploader = uploader;
+        this.params = params;
+        this.options = options;
+        this.uploadId = uploadId;
+        this.chunkSize = chunkSize;
+        this.length = length;
+        this.parallelChunks = parallelChunks;
+        this.progress = (ProgressCallback) options.get("progress_callback");
+        this.journal = journal;
+    }
+
+    Map upload(InputStream input) throws IOException {
+        ParallelTasks<Chunk> chunks = newTasks();
+        LinkedList<byte[]> buffers = new LinkedList<byte[]>();
+        long offset = 0;
+        int next = -1;
+        try {
+            while (true) {
+                byte[] buffer = buffers.isEmpty() ? new byte[chunkSize] : buffers.removeFirst();
+                int size = 0;
+                if (next != -1) buffer[size++] = (byte) next;
+                size = fill(input, buffer, size);
+                // a full buffer may still be the last one
+                next = size == chunkSize ? input.read() : -1;
+
+                if (next == -1) {
+                    while (chunks.inFlight() > 0) {
+                        Map error = collect(chunks.take(), buffers);
+                        if (error != null) return error;
+                    }
+                    long total = length == -1 ? offset + size : length;
+                    Map response = uploader.uploadChunk(params, options, uploadId, Arrays.copyOf(buffer, size), offset, size, total);
+                    acknowledge(size, total);
+                    return response;
+                }
+
+                if (chunks.isFull()) {
+                    Map error = collect(chunks.take(), buffers);
+                    if (error != null) return error;
+                }
+                chunks.submit(new Chunk(buffer, offset, chunkSize));
+                offset += chunkSize;
+            }
+        } finally {
+            chunks.shutdown();
+        }
+    }
+
+    /**
+     * @param offset where to start, when resuming an upload
+     */
+    Map upload(File file, long offset) throws IOException {
+        ParallelTasks<Chunk> chunks = newTasks();
+        uploaded = offset;
+        try {
+            while (length - offset > chunkSize) {
+                if (chunks.isFull()) {
+                    Map error = collect(chunks.take(), null);
+                    if (error != null) return error;
+                }
+                chunks.submit(new Chunk(uploader.fileChunk(file, offset, chunkSize), offset, chunkSize));
+                offset += chunkSize;
+            }
+            while (chunks.inFlight() > 0) {
+                Map error = collect(chunks.take(), null);
+                if (error != null) return error;
+            }
+            long size = length - offset;
+            Map response = uploader.uploadChunk(params, options, uploadId, uploader.fileChunk(file, offset, size), offset, size, length);
+            acknowledge(size, length);
+            return response;
+        } finally {
+            chunks.shutdown();
+        }
+    }
+
+    private ParallelTasks<Chunk> newTasks() {
+        return new ParallelTasks<Chunk>("cloudinary-upload", parallelChunks, "uploading chunks");
+    }
+
+    private static int fill(InputStream input, byte[] buffer, int size) throws IOException {
+        while (size < buffer.length) {
+            int bytesRead = input.read(buffer, size, buffer.length - size);
+            if (bytesRead == -1) break;
+            size += bytesRead;
+        }
+        return size;
+    }
+
+    /**
+     * Keep the buffer of a sent chunk, if any, for the next chunks.
+     *
+     * @return the server response if it reported an error, null otherwise
+     */
+    private static Map collect(Chunk chunk, LinkedList<byte[]> buffers) {
+        if (chunk.body instanceof byte[]) buffers.add((byte[]) chunk.body);
+        return chunk.response.containsKey("error") ? chunk.response : null;
+    }
+
+    private synchronized void acknowledge(long bytes, long total) {
+        uploaded += bytes;
+        if (progress != null) progress.onProgress(uploaded, total);
+    }
+
+    private class Chunk implements Callable<Chunk> {
+        final Object body;
+        final long offset;
+        final long size;
+        Map response;
+
+        Chunk(Object body, long offset, long size) {
+            this.body = body;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public Chunk call() throws IOException {
+            response = uploader.uploadChunk(params, options, uploadId, body, offset, size, length);
+            if (journal != null && !response.containsKey("error")) journal.acknowledge(offset, size);
+            acknowledge(size, length);
+            return this;
+        }
+    }
+}
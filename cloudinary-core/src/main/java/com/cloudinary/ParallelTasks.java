@@ -0,0 +1,100 @@
+package com.cloudinary;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the calls of an operation that sends many of them, such as {@link BulkDelete}, with at most
+ * <code>parallelism</code> in flight. Tasks are submitted and their results taken, in completion order, by a single
+ * thread. The threads are daemon threads, so that an abandoned operation does not keep the JVM running.
+ */
+class ParallelTasks<T> {
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final ExecutorService executor;
+    private final CompletionService<T> completion;
+    private final int parallelism;
+    private final String activity;
+    private int inFlight;
+
+    /**
+     * @param name     the prefix of the names of the threads
+     * @param activity what the tasks do, for the message of an interruption, e.g. <code>"deleting resources"</code>
+     */
+    ParallelTasks(final String name, int parallelism, String activity) {
+        this.executor = Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return daemonThread(runnable, name);
+            }
+        });
+        this.completion = new ExecutorCompletionService<T>(executor);
+        this.parallelism = parallelism;
+        this.activity = activity;
+    }
+
+    /**
+     * @return a daemon thread named <code>name</code> followed by a number, not started
+     */
+    static Thread daemonThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name + "-" + THREAD_NUMBER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * @return true if <code>parallelism</code> tasks are in flight, so that one must be taken before submitting
+     */
+    boolean isFull() {
+        return inFlight == parallelism;
+    }
+
+    int inFlight() {
+        return inFlight;
+    }
+
+    void submit(Callable<T> task) {
+        completion.submit(task);
+        inFlight++;
+    }
+
+    /**
+     * Wait for a task in flight to complete.
+     *
+     * @return its result
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     * @throws IOException            if the task threw it; other exceptions of the task are thrown as they are,
+     *                                or wrapped in a RuntimeException if they are checked
+     */
+    T take() throws IOException {
+        try {
+            T result = completion.take().get();
+            inFlight--;
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while " + activity);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Interrupt the tasks in flight and stop the threads.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,15 @@
+package com.cloudinary;
+
+/**
+ * Receives the progress of {@link Uploader#uploadLarge(Object, java.util.Map)}, given in the <code>progress_callback</code> option.
+ */
+public interface ProgressCallback {
+    /**
+     * Called each time the server acknowledges a chunk. Calls are never concurrent, even when chunks
+     * are uploaded in parallel, but they may come from the threads sending the chunks.
+     *
+     * @param bytesUploaded total bytes acknowledged so far
+     * @param totalBytes    size of the upload, or -1 while the end of an input stream was not reached
+     */
+    void onProgress(long bytesUploaded, long totalBytes);
+}
@@ -0,0 +1,118 @@
+package com.cloudinary;
+
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.utils.ObjectUtils;
+import com.cloudinary.utils.StringUtils;
+
+/**
+ * Lets concurrent identical Admin API GET calls share one request: a call made while an identical one is in flight
+ * waits for it and gets a copy of its response, or its exception, instead of sending its own request. Calls are
+ * identical when they have the same method, URI, parameters, account and credentials, and no {@link ResourceCache}
+ * invalidation happened between them. Nothing is kept once a request completes, so this is not a cache; see
+ * {@link ResourceCache} for that. Enabled with the <code>coalesce_requests</code> configuration parameter, see
+ * {@link Cloudinary#requestCoalescer()}.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class RequestCoalescer {
+    interface Request {
+        ApiResponse call() throws Exception;
+    }
+
+    private final ConcurrentMap<String, Call> inFlight = new ConcurrentHashMap<String, Call>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    RequestCoalescer() {
+    }
+
+    ApiResponse execute(String key, Request request) throws Exception {
+        calls.incrementAndGet();
+        Call call = new Call();
+        Call leader = inFlight.putIfAbsent(key, call);
+        if (leader != null) {
+            coalesced.incrementAndGet();
+            return leader.await();
+        }
+        try {
+            ApiResponse response = request.call();
+            // a copy for the waiting calls, as the caller may change its response
+            call.response = new ResourceCache.Response((Map) ResourceCache.copy(response), response);
+            return response;
+        } catch (Exception e) {
+            call.error = e;
+            throw e;
+        } catch (Error e) {
+            call.error = e;
+            throw e;
+        } finally {
+            // removed before the release, so that a call made after it sends a new request
+            inFlight.remove(key, call);
+            call.done.countDown();
+        }
+    }
+
+    /**
+     * @return the key of the call, which includes the account, credentials and API host that the options may
+     * override; the API secret as a digest, so that the key does not hold it
+     */
+    String key(Api.HttpMethod method, Iterable<String> uri, Map params, Map options, Configuration config) {
+        StringBuilder key = new StringBuilder();
+        key.append(ObjectUtils.asString(options.get("upload_prefix"), config.uploadPrefix)).append(' ')
+                .append(ObjectUtils.asString(options.get("cloud_name"), config.cloudName)).append(' ')
+                .append(ObjectUtils.asString(options.get("api_key"), config.apiKey)).append(' ')
+                .append(StringUtils.encodeHexString(Signer.getInstance(Signer.SHA256)
+                        .digest("", ObjectUtils.asString(options.get("api_secret"), config.apiSecret)))).append(' ')
+                .append(method);
+        for (String component : uri) {
+            key.append('/').append(component);
+        }
+        return key.append(' ').append(new TreeMap(params)).toString();
+    }
+
+    /**
+     * @return the number of calls made through this coalescer
+     */
+    public long calls() {
+        return calls.get();
+    }
+
+    /**
+     * @return the number of calls that shared the request of an identical call instead of sending their own
+     */
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of requests currently in flight
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private static class Call {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile ApiResponse response;
+        volatile Throwable error;
+
+        ApiResponse await() throws Exception {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for an identical call");
+            }
+            if (error instanceof Exception) throw (Exception) error;
+            if (error instanceof Error) throw (Error) error;
+            return new ResourceCache.Response((Map) ResourceCache.copy(response), response);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.cloudinary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.api.RateLimit;
+import com.cloudinary.utils.JsonDecoder;
+
+/**
+ * A time and weight bounded cache of the resources returned by {@link Api#resource(String, Map)} and
+ * {@link Api#resourcesByIds(Iterable, Map)}, keyed by public ID and by the options of the call.
+ * <p>
+ * The weight of a resource is the number of values in its response, so resources with large metadata take more
+ * room; the values that {@link JsonDecoder} did not decode yet are weighed by the length of their text instead, so
+ * that caching a response does not decode them. Entries are spread over segments by public ID, each an access
+ * ordered map guarded by its own lock; a full segment evicts its least recently used public IDs. The resources of a
+ * public ID are invalidated when it is changed through the {@link Uploader} or the {@link Api} of the same
+ * {@link Cloudinary} instance, and a response that was fetched while an invalidation happened is not cached. Enabled
+ * with the <code>resource_cache_max_weight</code> configuration parameter, see {@link Cloudinary#resourceCache()}.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ResourceCache {
+    private static final int MAX_SEGMENTS = 16;
+    // the rough length of a value in JSON text, to weigh the values not decoded yet
+    private static final int CHARS_PER_VALUE = 16;
+
+    private final int maxWeight;
+    private final long ttl;
+    private final Segment[] segments;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    ResourceCache(int maxWeight, int ttlSeconds) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.maxWeight = maxWeight;
+        this.ttl = ttlSeconds * 1000L;
+        int count = Math.min(MAX_SEGMENTS, maxWeight);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxWeight / count + (i < maxWeight % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * @return the cached resource of <code>publicId</code> for the options in <code>variant</code>, or null
+     */
+    public Map get(String publicId, String variant) {
+        return get(publicId, variant, System.currentTimeMillis());
+    }
+
+    Map get(String publicId, String variant, long now) {
+        Segment segment = segmentFor(publicId);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.find(publicId, variant, now);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        // a copy, so that callers changing the response do not change the cache
+        return (Map) copy(entry.resource);
+    }
+
+    /**
+     * @return the current generation, to pass to {@link #put} along with the response of a call started after it
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Cache <code>resource</code>, unless an invalidation happened since <code>generation</code>, in which case the
+     * resource may have been fetched before a change.
+     */
+    public void put(String publicId, String variant, Map resource, long generation) {
+        put(publicId, variant, resource, generation, System.currentTimeMillis());
+    }
+
+    void put(String publicId, String variant, Map resource, long generation, long now) {
+        if (publicId == null || resource == null) return;
+        Entry entry = new Entry((Map) copy(resource), now + ttl, weigh(resource));
+        Segment segment = segmentFor(publicId);
+        synchronized (segment) {
+            // checked under the lock, as invalidations are done under it as well
+            if (generation != this.generation.get()) return;
+            segment.add(publicId, variant, entry);
+        }
+    }
+
+    public void invalidate(String publicId) {
+        if (publicId == null) return;
+        Segment segment = segmentFor(publicId);
+        synchronized (segment) {
+            generation.incrementAndGet();
+            segment.drop(publicId);
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                generation.incrementAndGet();
+                segment.dropAll();
+            }
+        }
+    }
+
+    /**
+     * @return the total weight of the cached resources
+     */
+    public long weight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public int maxWeight() {
+        return maxWeight;
+    }
+
+    public long ttl() {
+        return ttl;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the ratio of lookups that found a resource, or 0 before any lookup
+     */
+    public double hitRate() {
+        long hits = this.hits.get();
+        long total = hits + misses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    boolean isFor(int maxWeight, int ttlSeconds) {
+        return this.maxWeight == maxWeight && this.ttl == ttlSeconds * 1000L;
+    }
+
+    /**
+     * @return the number of values in <code>value</code>, counting those of nested maps and lists,
+     * and estimating those not decoded yet
+     */
+    static int weigh(Object value) {
+        int pending = JsonDecoder.pendingLength(value);
+        if (pending >= 0) return 1 + pending / CHARS_PER_VALUE;
+        int weight = 1;
+        if (value instanceof Map) {
+            for (Object nested : ((Map) value).values()) {
+                weight += weigh(nested);
+            }
+        } else if (value instanceof Collection) {
+            for (Object nested : (Collection) value) {
+                weight += weigh(nested);
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * @return a copy of <code>value</code> that shares none of its nested maps and lists, and leaves those not
+     * decoded yet undecoded
+     */
+    static Object copy(Object value) {
+        Object pending = JsonDecoder.pendingCopy(value);
+        if (pending != null) return pending;
+        if (value instanceof Map) {
+            Map<Object, Object> map = (Map<Object, Object>) value;
+            Map copy = new HashMap(map.size() * 4 / 3 + 1);
+            for (Map.Entry<Object, Object> nested : map.entrySet()) {
+                copy.put(nested.getKey(), copy(nested.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List) {
+            List list = (List) value;
+            List copy = new ArrayList(list.size());
+            for (Object nested : list) {
+                copy.add(copy(nested));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private Segment segmentFor(String publicId) {
+        int hash = publicId.hashCode();
+        hash ^= hash >>> 16;
+        return segments[(hash & 0x7fffffff) % segments.length];
+    }
+
+    private static class Entry {
+        final Map resource;
+        final long expires;
+        final int weight;
+
+        Entry(Map resource, long expires, int weight) {
+            this.resource = resource;
+            this.expires = expires;
+            this.weight = weight;
+        }
+    }
+
+    private static class Segment extends LinkedHashMap<String, Map<String, Entry>> {
+        private static final long serialVersionUID = -5324367266429253714L;
+        private final int capacity;
+        long weight;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        Entry find(String publicId, String variant, long now) {
+            Map<String, Entry> variants = get(publicId);
+            if (variants == null) return null;
+            Entry entry = variants.get(variant);
+            if (entry == null) return null;
+            if (entry.expires <= now) {
+                variants.remove(variant);
+                weight -= entry.weight;
+                if (variants.isEmpty()) remove(publicId);
+                return null;
+            }
+            return entry;
+        }
+
+        void add(String publicId, String variant, Entry entry) {
+            if (entry.weight > capacity) return;
+            Map<String, Entry> variants = get(publicId);
+            if (variants == null) {
+                variants = new HashMap<String, Entry>(4);
+                put(publicId, variants);
+            }
+            Entry previous = variants.put(variant, entry);
+            weight += entry.weight - (previous == null ? 0 : previous.weight);
+            Iterator<Map<String, Entry>> eldest = values().iterator();
+            while (weight > capacity && eldest.hasNext()) {
+                for (Entry evicted : eldest.next().values()) {
+                    weight -= evicted.weight;
+                }
+                eldest.remove();
+            }
+        }
+
+        void drop(String publicId) {
+            Map<String, Entry> variants = remove(publicId);
+            if (variants == null) return;
+            for (Entry entry : variants.values()) {
+                weight -= entry.weight;
+            }
+        }
+
+        void dropAll() {
+            clear();
+            weight = 0;
+        }
+    }
+
+    /**
+     * A response served from the cache, merged from cached resources and a response, or copied from a shared one.
+     */
+    static class Response extends HashMap implements ApiResponse {
+        private static final long serialVersionUID = 4618427561098437351L;
+        private final ApiResponse source;
+
+        Response(Map result, ApiResponse source) {
+            super(result);
+            this.source = source;
+        }
+
+        @Override
+        public Map<String, RateLimit> rateLimits() throws java.text.ParseException {
+            return source == null ? new HashMap<String, RateLimit>() : source.rateLimits();
+        }
+
+        @Override
+        public RateLimit apiRateLimit() throws java.text.ParseException {
+            return source == null ? null : source.apiRateLimit();
+        }
+    }
+}
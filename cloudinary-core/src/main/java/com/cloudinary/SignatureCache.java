@@ -0,0 +1,115 @@
+package com.cloudinary;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size bounded cache of delivery URL signatures, keyed by the string that is signed (without the API secret).
+ * <p>
+ * Entries are spread over a fixed number of segments, each an access ordered map guarded by its own lock,
+ * so concurrent lookups rarely contend. A full segment evicts its least recently used entry.
+ * Enabled with the <code>url_signature_cache_size</code> configuration parameter, see
+ * {@link Cloudinary#urlSignatureCache()}.
+ */
+public class SignatureCache {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final String apiSecret;
+    private final int maxEntries;
+    private final Segment[] segments;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    SignatureCache(int maxEntries, String apiSecret) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.apiSecret = apiSecret;
+        this.maxEntries = maxEntries;
+        int count = Math.min(MAX_SEGMENTS, maxEntries);
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxEntries / count + (i < maxEntries % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * @return the cached signature of <code>toSign</code>, or null
+     */
+    public String get(String toSign) {
+        Segment segment = segmentFor(toSign);
+        String signature;
+        synchronized (segment) {
+            signature = segment.get(toSign);
+        }
+        if (signature == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return signature;
+    }
+
+    public void put(String toSign, String signature) {
+        Segment segment = segmentFor(toSign);
+        synchronized (segment) {
+            segment.put(toSign, signature);
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    boolean isFor(String apiSecret) {
+        return this.apiSecret == null ? apiSecret == null : this.apiSecret.equals(apiSecret);
+    }
+
+    private Segment segmentFor(String toSign) {
+        int hash = toSign.hashCode();
+        hash ^= hash >>> 16;
+        return segments[(hash & 0x7fffffff) % segments.length];
+    }
+
+    private static class Segment extends LinkedHashMap<String, String> {
+        private static final long serialVersionUID = 3016770064075306202L;
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > capacity;
+        }
+    }
+}
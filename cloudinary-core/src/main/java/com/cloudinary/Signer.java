@@ -0,0 +1,213 @@
+package com.cloudinary;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.cloudinary.utils.StringUtils;
+
+/**
+ * Computes request and URL signatures with a message digest algorithm ("SHA-1" or "SHA-256").
+ * <p>
+ * Each thread reuses its own {@link MessageDigest} and encoding buffer: the sorted parameters and the
+ * API secret are encoded to UTF-8 and fed to the digest piece by piece, without building the string to sign.
+ * Instances are obtained with {@link #getInstance(String)} and are thread safe.
+ */
+public final class Signer {
+    public static final String SHA1 = "SHA-1";
+    public static final String SHA256 = "SHA-256";
+
+    private static final ConcurrentMap<String, Signer> INSTANCES = new ConcurrentHashMap<String, Signer>();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int BUFFER_SIZE = 512;
+
+    private final String algorithm;
+    private final ThreadLocal<Digester> digesters = new ThreadLocal<Digester>() {
+        @Override
+        protected Digester initialValue() {
+            return new Digester(newDigest(algorithm));
+        }
+    };
+
+    private Signer(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * @param algorithm a {@link MessageDigest} algorithm name, e.g. {@link #SHA1} or {@link #SHA256}
+     * @return the signer for <code>algorithm</code>
+     * @throws IllegalArgumentException if the algorithm is not available
+     */
+    public static Signer getInstance(String algorithm) {
+        Signer signer = INSTANCES.get(algorithm);
+        if (signer == null) {
+            newDigest(algorithm);
+            signer = new Signer(algorithm);
+            Signer existing = INSTANCES.putIfAbsent(algorithm, signer);
+            if (existing != null) signer = existing;
+        }
+        return signer;
+    }
+
+    public String algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Sign API request parameters: the non blank parameters, sorted by name and serialized as
+     * <code>name=value</code> pairs joined by '&amp;' (array and collection values joined by ','), followed by the API secret.
+     *
+     * @return the signature as a lower case hex string
+     */
+    public String signParameters(Map<String, ?> paramsToSign, String apiSecret) {
+        Object[] keys = paramsToSign.keySet().toArray();
+        Arrays.sort(keys);
+        Digester digester = digesters.get().reset();
+        boolean first = true;
+        for (Object key : keys) {
+            Object value = paramsToSign.get(key);
+            if (value instanceof Collection) {
+                first = digester.separator(first);
+                digester.pair(key, ((Collection) value).toArray());
+            } else if (value instanceof Object[]) {
+                first = digester.separator(first);
+                digester.pair(key, (Object[]) value);
+            } else if (value != null) {
+                String string = value.toString();
+                if (StringUtils.isNotBlank(string)) {
+                    first = digester.separator(first);
+                    digester.update(key.toString()).update('=').update(string);
+                }
+            }
+        }
+        digester.update(String.valueOf(apiSecret));
+        return digester.hex();
+    }
+
+    /**
+     * @return the digest of <code>toSign</code> followed by <code>apiSecret</code>, both encoded as UTF-8
+     */
+    public byte[] digest(CharSequence toSign, String apiSecret) {
+        return digesters.get().reset().update(toSign).update(String.valueOf(apiSecret)).digest();
+    }
+
+    private static MessageDigest newDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported signature algorithm " + algorithm, e);
+        }
+    }
+
+    /**
+     * A digest with a buffer of UTF-8 bytes not yet passed to it. Used by a single thread.
+     */
+    private static final class Digester {
+        private final MessageDigest md;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int length;
+        private char pendingHighSurrogate;
+
+        Digester(MessageDigest md) {
+            this.md = md;
+        }
+
+        // discards anything left over by a call that failed
+        Digester reset() {
+            md.reset();
+            length = 0;
+            pendingHighSurrogate = 0;
+            return this;
+        }
+
+        boolean separator(boolean first) {
+            if (!first) update('&');
+            return false;
+        }
+
+        void pair(Object key, Object[] values) {
+            update(key.toString()).update('=');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) update(',');
+                if (values[i] != null) update(values[i].toString());
+            }
+        }
+
+        Digester update(CharSequence value) {
+            for (int i = 0; i < value.length(); i++) {
+                update(value.charAt(i));
+            }
+            return this;
+        }
+
+        // same encoding as String.getBytes("UTF-8"): unpaired surrogates are replaced with '?'
+        Digester update(char c) {
+            if (pendingHighSurrogate != 0) {
+                char high = pendingHighSurrogate;
+                pendingHighSurrogate = 0;
+                if (Character.isLowSurrogate(c)) {
+                    int codePoint = Character.toCodePoint(high, c);
+                    ensure(4);
+                    buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+                    return this;
+                }
+                ensure(1);
+                buffer[length++] = '?';
+            }
+            if (c < 0x80) {
+                ensure(1);
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[length++] = (byte) (0xC0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c)) {
+                pendingHighSurrogate = c;
+            } else if (Character.isLowSurrogate(c)) {
+                ensure(1);
+                buffer[length++] = '?';
+            } else {
+                ensure(3);
+                buffer[length++] = (byte) (0xE0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+            return this;
+        }
+
+        private void ensure(int bytes) {
+            if (length + bytes > buffer.length) {
+                md.update(buffer, 0, length);
+                length = 0;
+            }
+        }
+
+        byte[] digest() {
+            if (pendingHighSurrogate != 0) {
+                pendingHighSurrogate = 0;
+                ensure(1);
+                buffer[length++] = '?';
+            }
+            md.update(buffer, 0, length);
+            length = 0;
+            return md.digest();
+        }
+
+        String hex() {
+            byte[] digest = digest();
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX[(digest[i] >> 4) & 0x0F];
+                hex[i * 2 + 1] = HEX[digest[i] & 0x0F];
+            }
+            return new String(hex);
+        }
+    }
+}
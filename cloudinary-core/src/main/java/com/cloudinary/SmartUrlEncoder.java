@@ -4,11 +4,41 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 
 public class SmartUrlEncoder {
+    /**
+     * URL encode <code>input</code>, keeping '/' and ':' and encoding spaces as "%20".
+     * Equivalent to {@code URLEncoder.encode(input, "UTF-8").replace("%2F", "/").replace("%3A", ":").replace("+", "%20")}
+     */
     public static String encode(String input) {
+        String encoded;
         try {
-            return URLEncoder.encode(input, "UTF-8").replace("%2F", "/").replace("%3A", ":").replace("+", "%20");
+            encoded = URLEncoder.encode(input, "UTF-8");
         } catch (UnsupportedEncodingException e) {
             throw new RuntimeException(e);
         }
+        int length = encoded.length();
+        StringBuilder result = null;
+        int copied = 0;
+        for (int i = 0; i < length; i++) {
+            char c = encoded.charAt(i);
+            String replacement;
+            int skip = 1;
+            if (c == '+') {
+                replacement = "%20";
+            } else if (c == '%' && encoded.startsWith("2F", i + 1)) {
+                replacement = "/";
+                skip = 3;
+            } else if (c == '%' && encoded.startsWith("3A", i + 1)) {
+                replacement = ":";
+                skip = 3;
+            } else {
+                continue;
+            }
+            if (result == null) result = new StringBuilder(length + 16);
+            result.append(encoded, copied, i).append(replacement);
+            copied = i + skip;
+            i = copied - 1;
+        }
+        if (result == null) return encoded;
+        return result.append(encoded, copied, length).toString();
     }
 }
@@ -24,6 +24,78 @@ public class Transformation {
     protected static Map responsiveWidthTransformation = null;
     private static final Pattern RANGE_VALUE_RE = Pattern.compile("^((?:\\d+\\.)?\\d+)([%pP])?$");
     private static final Pattern RANGE_RE = Pattern.compile("^(\\d+\\.)?\\d+[%pP]?\\.\\.(\\d+\\.)?\\d+[%pP]?$");
+    private static final int DEFAULT_BUILDER_CAPACITY = 128;
+
+    /**
+     * Describes how a single transformation parameter is serialized
+     */
+    private static final class Param {
+        static final int SIMPLE = 0;
+        static final int JOINED = 1;
+        static final int COLOR = 2;
+        static final int NAMED = 3;
+        static final int CROP = 4;
+        static final int DPR = 5;
+        static final int DURATION = 6;
+        static final int START_OFFSET = 7;
+        static final int END_OFFSET = 8;
+        static final int VIDEO_CODEC = 9;
+        static final int WIDTH = 10;
+        static final int HEIGHT = 11;
+        static final int OVERLAY = 12;
+        static final int UNDERLAY = 13;
+
+        final String key;
+        final String name;
+        final int kind;
+
+        Param(String key, String name, int kind) {
+            this.key = key;
+            this.name = name;
+            this.kind = kind;
+        }
+    }
+
+    /**
+     * All the parameters of a transformation component, in the order they are serialized (sorted by key)
+     */
+    private static final Param[] PARAMS = new Param[]{
+            new Param("a", "angle", Param.JOINED),
+            new Param("ac", "audio_codec", Param.SIMPLE),
+            new Param("af", "audio_frequency", Param.SIMPLE),
+            new Param("ar", "aspect_ratio", Param.SIMPLE),
+            new Param("b", "background", Param.COLOR),
+            new Param("bo", "border", Param.SIMPLE),
+            new Param("br", "bit_rate", Param.SIMPLE),
+            new Param("c", "crop", Param.CROP),
+            new Param("co", "color", Param.COLOR),
+            new Param("cs", "color_space", Param.SIMPLE),
+            new Param("d", "default_image", Param.SIMPLE),
+            new Param("dl", "delay", Param.SIMPLE),
+            new Param("dn", "density", Param.SIMPLE),
+            new Param("dpr", "dpr", Param.DPR),
+            new Param("du", "duration", Param.DURATION),
+            new Param("e", "effect", Param.SIMPLE),
+            new Param("eo", "end_offset", Param.END_OFFSET),
+            new Param("f", "fetch_format", Param.SIMPLE),
+            new Param("fl", "flags", Param.JOINED),
+            new Param("g", "gravity", Param.SIMPLE),
+            new Param("h", "height", Param.HEIGHT),
+            new Param("l", "overlay", Param.OVERLAY),
+            new Param("o", "opacity", Param.SIMPLE),
+            new Param("p", "prefix", Param.SIMPLE),
+            new Param("pg", "page", Param.SIMPLE),
+            new Param("q", "quality", Param.SIMPLE),
+            new Param("r", "radius", Param.SIMPLE),
+            new Param("so", "start_offset", Param.START_OFFSET),
+            new Param("t", "transformation", Param.NAMED),
+            new Param("u", "underlay", Param.UNDERLAY),
+            new Param("vc", "video_codec", Param.VIDEO_CODEC),
+            new Param("vs", "video_sampling", Param.SIMPLE),
+            new Param("w", "width", Param.WIDTH),
+            new Param("x", "x", Param.SIMPLE),
+            new Param("y", "y", Param.SIMPLE),
+            new Param("z", "zoom", Param.SIMPLE)};
 
     public Transformation(Transformation transformation) {
         this(dup(transformation.transformations));
@@ -412,6 +484,16 @@ public class Transformation {
         return params(new HashMap());
     }
 
+    /**
+     * Serialize this transformation once and return an immutable, thread safe copy of it.
+     * Further changes to this object do not affect the returned one.
+     *
+     * @return a {@link CompiledTransformation} caching the serialized form and HTML attributes
+     */
+    public CompiledTransformation freeze() {
+        return new CompiledTransformation(this);
+    }
+
     public Transformation chainWith(Transformation transformation) {
         List<Map> transformations = dup(this.transformations);
         transformations.addAll(dup(transformation.transformations));
@@ -442,16 +524,29 @@ public class Transformation {
     }
 
     public String generate(Iterable<Map> optionsList) {
-        List<String> components = new ArrayList<String>();
+        StringBuilder builder = new StringBuilder(DEFAULT_BUILDER_CAPACITY);
+        int items = 0;
         for (Map options : optionsList) {
-            if(options.size() > 0){
-                components.add(generate(options));
+            if (options.size() > 0) {
+                if (items++ > 0) builder.append('/');
+                appendTransformation(builder, options);
             }
         }
-        return StringUtils.join(components, "/");
+        return builder.toString();
     }
 
     public String generate(Map options) {
+        StringBuilder builder = new StringBuilder(DEFAULT_BUILDER_CAPACITY);
+        appendTransformation(builder, options);
+        return builder.toString();
+    }
+
+    /**
+     * Serialize a single transformation component into <code>builder</code>. Nested (base) transformations
+     * and the responsive width transformation are appended to the same builder, so an entire chain is
+     * serialized without any intermediate strings.
+     */
+    private void appendTransformation(StringBuilder builder, Map options) {
         boolean isResponsive = ObjectUtils.asBoolean(options.get("responsive_width"), defaultIsResponsive);
 
         String size = (String) options.get("size");
@@ -462,13 +557,16 @@ public class Transformation {
         }
         String width = this.htmlWidth = ObjectUtils.asString(options.get("width"));
         String height = this.htmlHeight = ObjectUtils.asString(options.get("height"));
-        boolean hasLayer = options.get("overlay") != null && StringUtils.isNotBlank(options.get("overlay").toString())
-                || options.get("underlay") != null && StringUtils.isNotBlank(options.get("underlay").toString());
+        Object overlay = options.get("overlay");
+        String overlayValue = overlay == null ? null : overlay.toString();
+        Object underlay = options.get("underlay");
+        String underlayValue = underlay == null ? null : underlay.toString();
+        boolean hasLayer = StringUtils.isNotBlank(overlayValue) || StringUtils.isNotBlank(underlayValue);
 
         String crop = (String) options.get("crop");
-        String angle = StringUtils.join(ObjectUtils.asArray(options.get("angle")), ".");
+        Object angle = options.get("angle");
 
-        boolean noHtmlSizes = hasLayer || StringUtils.isNotBlank(angle) || "fit".equals(crop) || "limit".equals(crop);
+        boolean noHtmlSizes = hasLayer || isNotBlankJoined(angle) || "fit".equals(crop) || "limit".equals(crop);
         if (width != null && (width.startsWith("auto") || !isValidAttrValue(width) || noHtmlSizes || isResponsive)) {
             this.htmlWidth = null;
         }
@@ -477,46 +575,35 @@ public class Transformation {
         }
 
         String background = (String) options.get("background");
-        if (background != null) {
-            background = background.replaceFirst("^#", "rgb:");
-        }
-
         String color = (String) options.get("color");
-        if (color != null) {
-            color = color.replaceFirst("^#", "rgb:");
-        }
 
-        List transformations = ObjectUtils.asArray(options.get("transformation"));
+        int items = 0;
+        Object baseTransformations = options.get("transformation");
         boolean allNamed = true;
-        for (Object baseTransformation : transformations) {
-            if (baseTransformation instanceof Map) {
+        int baseCount = arrayLength(baseTransformations);
+        for (int i = 0; i < baseCount; i++) {
+            if (arrayElement(baseTransformations, i) instanceof Map) {
                 allNamed = false;
                 break;
             }
         }
-        String namedTransformation = null;
+        Object namedTransformation = null;
         if (allNamed) {
-            namedTransformation = StringUtils.join(transformations, ".");
-            transformations = new ArrayList();
+            namedTransformation = baseTransformations;
         } else {
-            List ts = transformations;
-            transformations = new ArrayList();
-            for (Object baseTransformation : ts) {
-                String transformationString;
+            for (int i = 0; i < baseCount; i++) {
+                Object baseTransformation = arrayElement(baseTransformations, i);
+                if (items++ > 0) builder.append('/');
                 if (baseTransformation instanceof Map) {
-                    transformationString = generate((Map) baseTransformation);
+                    appendTransformation(builder, (Map) baseTransformation);
                 } else {
                     Map map = new HashMap();
                     map.put("transformation", baseTransformation);
-                    transformationString = generate(map);
+                    appendTransformation(builder, map);
                 }
-                transformations.add(transformationString);
             }
         }
 
-
-        String flags = StringUtils.join(ObjectUtils.asArray(options.get("flags")), ".");
-
         String duration = normRangeValue(options.get("duration"));
         String startOffset = normRangeValue(options.get("start_offset"));
         String endOffset = normRangeValue(options.get("end_offset"));
@@ -529,71 +616,77 @@ public class Transformation {
         String videoCodec = processVideoCodecParam(options.get("video_codec"));
         String dpr = ObjectUtils.asString(options.get("dpr"), null == defaultDPR ? null : defaultDPR.toString());
 
-        SortedMap<String, String> params = new TreeMap<String, String>();
-        params.put("a", angle);
-        params.put("b", background);
-        params.put("c", crop);
-        params.put("co", color);
-        params.put("dpr", dpr);
-        params.put("du", duration);
-        params.put("eo", endOffset);
-        params.put("fl", flags);
-        params.put("h", height);
-        params.put("so", startOffset);
-        params.put("t", namedTransformation);
-        params.put("vc", videoCodec);
-        params.put("w", width);
-
-        String[] simple_params = new String[]{
-                "ac", "audio_codec",
-                "af", "audio_frequency",
-                "ar", "aspect_ratio",
-                "bo", "border",
-                "br", "bit_rate",
-                "cs", "color_space",
-                "d", "default_image",
-                "dl", "delay",
-                "dn", "density",
-                "e", "effect",
-                "f", "fetch_format",
-                "g", "gravity",
-                "l", "overlay",
-                "o", "opacity",
-                "p", "prefix",
-                "pg", "page",
-                "q", "quality",
-                "r", "radius",
-                "u", "underlay",
-                "vs", "video_sampling",
-                "x", "x",
-                "y", "y",
-                "z", "zoom"};
-
-        for (int i = 0; i < simple_params.length; i += 2) {
-            params.put(simple_params[i], ObjectUtils.asString(options.get(simple_params[i + 1])));
+        // The component is written in place; the separator is rolled back if it turns out to be empty
+        if (items > 0) builder.append('/');
+        int componentStart = builder.length();
+
+        String ifValue = (String) options.get("if");
+        if (ifValue != null) {
+            builder.append("if_").append(new Condition(ifValue).toString());
         }
-        List<String> components = new ArrayList<String>();
-        for (Map.Entry<String, String> param : params.entrySet()) {
-            if (StringUtils.isNotBlank(param.getValue())) {
-                components.add(param.getKey() + "_" + param.getValue());
+
+        for (Param param : PARAMS) {
+            switch (param.kind) {
+                case Param.SIMPLE:
+                    appendParam(builder, componentStart, param.key, options.get(param.name));
+                    break;
+                case Param.JOINED:
+                    appendJoinedParam(builder, componentStart, param.key, options.get(param.name));
+                    break;
+                case Param.COLOR:
+                    appendColorParam(builder, componentStart, param.key, "b".equals(param.key) ? background : color);
+                    break;
+                case Param.NAMED:
+                    appendJoinedParam(builder, componentStart, param.key, namedTransformation);
+                    break;
+                case Param.CROP:
+                    appendParam(builder, componentStart, param.key, crop);
+                    break;
+                case Param.DPR:
+                    appendParam(builder, componentStart, param.key, dpr);
+                    break;
+                case Param.DURATION:
+                    appendParam(builder, componentStart, param.key, duration);
+                    break;
+                case Param.START_OFFSET:
+                    appendParam(builder, componentStart, param.key, startOffset);
+                    break;
+                case Param.END_OFFSET:
+                    appendParam(builder, componentStart, param.key, endOffset);
+                    break;
+                case Param.VIDEO_CODEC:
+                    appendParam(builder, componentStart, param.key, videoCodec);
+                    break;
+                case Param.WIDTH:
+                    appendParam(builder, componentStart, param.key, width);
+                    break;
+                case Param.HEIGHT:
+                    appendParam(builder, componentStart, param.key, height);
+                    break;
+                case Param.OVERLAY:
+                    appendParam(builder, componentStart, param.key, overlayValue);
+                    break;
+                case Param.UNDERLAY:
+                    appendParam(builder, componentStart, param.key, underlayValue);
+                    break;
             }
         }
+
         String raw_transformation = (String) options.get("raw_transformation");
         if (raw_transformation != null) {
-            components.add(raw_transformation);
+            if (builder.length() > componentStart) builder.append(',');
+            builder.append(raw_transformation);
         }
 
-        String ifValue = (String) options.get("if");
-        if(ifValue != null){
-            components.add(0, "if_" + new Condition(ifValue).toString());
-        }
-
-        if (!components.isEmpty()) {
-            transformations.add(StringUtils.join(components, ","));
+        if (builder.length() > componentStart || raw_transformation != null) {
+            items++;
+        } else if (items > 0) {
+            builder.setLength(componentStart - 1);
         }
 
         if (isResponsive) {
-            transformations.add(generate(getResponsiveWidthTransformation()));
+            if (items++ > 0) builder.append('/');
+            appendTransformation(builder, getResponsiveWidthTransformation());
         }
 
         if ("auto".equals(width) || isResponsive) {
@@ -603,8 +696,104 @@ public class Transformation {
         if ("auto".equals(dpr)) {
             this.hiDPI = true;
         }
+    }
+
+    private static void appendParam(StringBuilder builder, int componentStart, String key, Object value) {
+        if (!isNotBlankValue(value)) return;
+        appendKey(builder, componentStart, key);
+        appendValue(builder, value);
+    }
+
+    private static void appendColorParam(StringBuilder builder, int componentStart, String key, String value) {
+        if (value == null) return;
+        if (value.startsWith("#")) {
+            appendKey(builder, componentStart, key);
+            builder.append("rgb:").append(value, 1, value.length());
+        } else {
+            appendParam(builder, componentStart, key, value);
+        }
+    }
+
+    private static void appendJoinedParam(StringBuilder builder, int componentStart, String key, Object values) {
+        if (!isNotBlankJoined(values)) return;
+        appendKey(builder, componentStart, key);
+        int length = arrayLength(values);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) builder.append('.');
+            Object value = arrayElement(values, i);
+            if (value != null) appendValue(builder, value);
+        }
+    }
+
+    private static void appendKey(StringBuilder builder, int componentStart, String key) {
+        if (builder.length() > componentStart) builder.append(',');
+        builder.append(key).append('_');
+    }
+
+    private static void appendValue(StringBuilder builder, Object value) {
+        if (value instanceof String) {
+            builder.append((String) value);
+        } else if (value instanceof Integer) {
+            builder.append(((Integer) value).intValue());
+        } else if (value instanceof Long) {
+            builder.append(((Long) value).longValue());
+        } else if (value instanceof Float) {
+            builder.append(((Float) value).floatValue());
+        } else if (value instanceof Double) {
+            builder.append(((Double) value).doubleValue());
+        } else {
+            builder.append(value.toString());
+        }
+    }
 
-        return StringUtils.join(transformations, "/");
+    /**
+     * Equivalent to {@code StringUtils.isNotBlank(StringUtils.join(ObjectUtils.asArray(values), "."))}
+     * without building the joined string
+     */
+    private static boolean isNotBlankJoined(Object values) {
+        int length = arrayLength(values);
+        if (length == 0) return false;
+        if (length > 1) return true;
+        return isNotBlankValue(arrayElement(values, 0));
+    }
+
+    private static boolean isNotBlankValue(Object value) {
+        if (value instanceof String) {
+            return StringUtils.isNotBlank((String) value);
+        }
+        return value instanceof Number || StringUtils.isNotBlank(value);
+    }
+
+    /**
+     * @return the number of elements {@link ObjectUtils#asArray(Object)} would return for <code>value</code>
+     */
+    private static int arrayLength(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof int[]) {
+            return ((int[]) value).length;
+        } else if (value instanceof Object[]) {
+            return ((Object[]) value).length;
+        } else if (value instanceof List) {
+            return ((List) value).size();
+        } else {
+            return 1;
+        }
+    }
+
+    /**
+     * @return the element <code>index</code> of {@link ObjectUtils#asArray(Object)} for <code>value</code>
+     */
+    private static Object arrayElement(Object value, int index) {
+        if (value instanceof int[]) {
+            return ((int[]) value)[index];
+        } else if (value instanceof Object[]) {
+            return ((Object[]) value)[index];
+        } else if (value instanceof List) {
+            return ((List) value).get(index);
+        } else {
+            return value;
+        }
     }
 
     /**
@@ -630,7 +819,7 @@ public class Transformation {
         return htmlHeight;
     }
 
-    private static List<Map> dup(List<Map> transformations) {
+    static List<Map> dup(List<Map> transformations) {
         List<Map> result = new ArrayList<Map>();
         for (Map params : transformations) {
             result.add(new HashMap(params));
@@ -693,6 +882,7 @@ public class Transformation {
     }
 
     private static String processVideoCodecParam(Object param) {
+        if (param == null) return null;
         StringBuilder outParam = new StringBuilder();
         if (param instanceof String) {
             outParam.append(param);
@@ -0,0 +1,162 @@
+package com.cloudinary;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import com.cloudinary.utils.StringUtils;
+
+/**
+ * The checkpoint of a resumable large upload (the <code>resume_journal</code> option of {@link Uploader#uploadLarge(Object, java.util.Map)}),
+ * kept in a small properties file: the uploaded file, its fingerprint, the upload id, the chunk size and the offset
+ * up to which every chunk was acknowledged by the server.
+ * <p>
+ * The journal is rewritten after each acknowledged chunk (to a temporary file that then replaces it) and deleted
+ * once the upload completes. {@link Uploader#resumeLarge(Object, java.util.Map)} continues an upload from it.
+ */
+final class UploadJournal {
+    private static final int FINGERPRINT_SAMPLE = 64 * 1024;
+
+    final File journal;
+    final File file;
+    final String uploadId;
+    final int chunkSize;
+    private final String fingerprint;
+    private long acknowledged;
+    // chunks acknowledged past the contiguous prefix, by offset, when they complete out of order
+    private final TreeMap<Long, Long> ahead = new TreeMap<Long, Long>();
+
+    private UploadJournal(File journal, File file, String uploadId, int chunkSize, String fingerprint, long acknowledged) {
+        this.journal = journal;
+        this.file = file;
+        this.uploadId = uploadId;
+        this.chunkSize = chunkSize;
+        this.fingerprint = fingerprint;
+        this.acknowledged = acknowledged;
+    }
+
+    static UploadJournal create(File journal, File file, String uploadId, int chunkSize) throws IOException {
+        UploadJournal result = new UploadJournal(journal, file.getAbsoluteFile(), uploadId, chunkSize, fingerprint(file), 0);
+        result.write();
+        return result;
+    }
+
+    /**
+     * @throws IOException if the journal cannot be read or the file changed since the upload started
+     */
+    static UploadJournal load(File journal) throws IOException {
+        if (!journal.isFile()) {
+            throw new FileNotFoundException("Upload journal not found: " + journal);
+        }
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(journal);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        String path = properties.getProperty("file");
+        String uploadId = properties.getProperty("upload_id");
+        String fingerprint = properties.getProperty("fingerprint");
+        if (path == null || uploadId == null || fingerprint == null) {
+            throw new IOException("Invalid upload journal " + journal);
+        }
+        File file = new File(path);
+        if (!file.isFile() || !fingerprint.equals(fingerprint(file))) {
+            throw new IOException("File " + file + " changed since the upload started");
+        }
+        try {
+            int chunkSize = Integer.parseInt(properties.getProperty("chunk_size"));
+            long acknowledged = Long.parseLong(properties.getProperty("acknowledged"));
+            return new UploadJournal(journal, file, uploadId, chunkSize, fingerprint, acknowledged);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid upload journal " + journal);
+        }
+    }
+
+    synchronized long acknowledged() {
+        return acknowledged;
+    }
+
+    /**
+     * Record that the server acknowledged the chunk at <code>offset</code>, and save the journal if it extends
+     * the acknowledged prefix of the file.
+     */
+    synchronized void acknowledge(long offset, long size) throws IOException {
+        if (offset != acknowledged) {
+            if (offset > acknowledged) ahead.put(offset, size);
+            return;
+        }
+        acknowledged += size;
+        Long next;
+        while ((next = ahead.remove(acknowledged)) != null) {
+            acknowledged += next;
+        }
+        write();
+    }
+
+    void delete() {
+        journal.delete();
+    }
+
+    private void write() throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("file", file.getPath());
+        properties.setProperty("upload_id", uploadId);
+        properties.setProperty("chunk_size", String.valueOf(chunkSize));
+        properties.setProperty("fingerprint", fingerprint);
+        properties.setProperty("acknowledged", String.valueOf(acknowledged));
+
+        File temp = new File(journal.getPath() + ".tmp");
+        OutputStream out = new FileOutputStream(temp);
+        try {
+            properties.store(out, "Cloudinary resumable upload");
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(journal)) {
+            // renameTo does not replace an existing file on every platform
+            journal.delete();
+            if (!temp.renameTo(journal)) {
+                throw new IOException("Cannot write upload journal " + journal);
+            }
+        }
+    }
+
+    /**
+     * @return the file's length, modification time and a digest of its first and last 64 KB
+     */
+    static String fingerprint(File file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Unexpected exception", e);
+        }
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            long length = in.length();
+            byte[] sample = new byte[(int) Math.min(FINGERPRINT_SAMPLE, length)];
+            in.readFully(sample);
+            md.update(sample);
+            if (length > FINGERPRINT_SAMPLE) {
+                sample = new byte[(int) Math.min(FINGERPRINT_SAMPLE, length - FINGERPRINT_SAMPLE)];
+                in.seek(length - sample.length);
+                in.readFully(sample);
+                md.update(sample);
+            }
+            return length + ":" + file.lastModified() + ":" + StringUtils.encodeHexString(md.digest());
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.cloudinary;
 
 import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
@@ -19,7 +21,35 @@ import com.cloudinary.utils.StringUtils;
 @SuppressWarnings({"rawtypes", "unchecked"})
 public class Uploader {
     public Map callApi(String action, Map<String, Object> params, Map options, Object file) throws IOException {
-        return strategy.callApi(action, params, options, file);
+        try {
+            return strategy.callApiWithRetries(action, params, options, file);
+        } finally {
+            invalidateCachedResources(params);
+        }
+    }
+
+    /**
+     * Drop the cached Admin API resources that the call with <code>params</code> may have changed. Called for the
+     * calls sent through {@link #callApi}, and by asynchronous callers when their calls complete.
+     */
+    public void invalidateCachedResources(Map<String, Object> params) {
+        ResourceCache cache = cloudinary.resourceCache();
+        if (cache == null || params == null) return;
+        if ("set_exclusive".equals(params.get("command"))) {
+            // removes the tag from every other resource
+            cache.clear();
+            return;
+        }
+        for (String key : new String[]{"public_id", "from_public_id", "to_public_id"}) {
+            Object publicId = params.get(key);
+            if (publicId != null) cache.invalidate(publicId.toString());
+        }
+        Object publicIds = params.get("public_ids");
+        if (publicIds instanceof Iterable) {
+            for (Object publicId : (Iterable) publicIds) {
+                cache.invalidate(String.valueOf(publicId));
+            }
+        }
     }
 
     private Cloudinary cloudinary;
@@ -35,6 +65,10 @@ public class Uploader {
         return this.cloudinary;
     }
 
+    public AbstractUploaderStrategy getStrategy() {
+        return strategy;
+    }
+
     public Map<String, Object> buildUploadParams(Map options) {
         return Util.buildUploadParams(options);
     }
@@ -75,16 +109,20 @@ public class Uploader {
     public Map uploadLarge(Object file, Map options, int bufferSize) throws IOException {
         InputStream input;
         long length = -1;
+        Object journal = options.get("resume_journal");
+        if (journal != null && (file instanceof InputStream || file instanceof byte[])) {
+            throw new IllegalArgumentException("resume_journal is only supported when uploading a file");
+        }
         if (file instanceof InputStream) {
             input = (InputStream) file;
-        } else if (file instanceof File) {
-            length = ((File) file).length();
-            input = new FileInputStream((File) file);
         } else if (file instanceof byte[]) {
             length = ((byte[]) file).length;
             input = new ByteArrayInputStream((byte[]) file);
         } else {
-            File f = new File(file.toString());
+            File f = file instanceof File ? (File) file : new File(file.toString());
+            if (strategy.supportsFileRegions() || journal != null) {
+                return uploadLargeFile(f, options, bufferSize);
+            }
             length = f.length();
             input = new FileInputStream(f);
         }
@@ -96,14 +134,105 @@ public class Uploader {
         }
     }
 
+    /**
+     * Continue a large upload that was started with the <code>resume_journal</code> option and interrupted,
+     * sending the file from the last chunk acknowledged by the server.
+     *
+     * @param journal the journal file, as a File or a path
+     * @param options the options the upload was started with; its chunk size is kept
+     * @return the server response for the final chunk
+     * @throws IOException if the journal cannot be read or the file changed since the upload started
+     */
+    public Map resumeLarge(Object journal, Map options) throws IOException {
+        if (options == null)
+            options = ObjectUtils.emptyMap();
+        UploadJournal state = UploadJournal.load(journal instanceof File ? (File) journal : new File(journal.toString()));
+        return uploadFileChunks(state.file, options, state.chunkSize, state.uploadId, state.acknowledged(), state);
+    }
+
+    /**
+     * Upload the files of a directory tree that are new or changed since the last sync to a folder, see
+     * {@link FolderSync} for the options. Resources of the folder that have no local file are reported in
+     * <code>orphans</code> and deleted with the <code>delete_orphans</code> option.
+     *
+     * @return the counts of uploaded and unchanged files, the orphans and the throughput of the sync
+     */
+    public Map syncFolder(File directory, String folder, Map options) throws Exception {
+        return new FolderSync(cloudinary.api(), this, directory, folder, options).run();
+    }
+
+    /**
+     * Upload a file in chunks that are streamed from disk as {@link FileRegion}s, without chunk buffers,
+     * recording the progress in the <code>resume_journal</code> option if given
+     */
+    private Map uploadLargeFile(File file, Map options, int chunkSize) throws IOException {
+        if (!file.isFile()) {
+            throw new FileNotFoundException(file.getPath());
+        }
+        String uploadId = cloudinary().randomPublicId();
+        UploadJournal journal = null;
+        Object journalFile = options.get("resume_journal");
+        if (journalFile != null) {
+            journal = UploadJournal.create(journalFile instanceof File ? (File) journalFile : new File(journalFile.toString()),
+                    file, uploadId, chunkSize);
+        }
+        return uploadFileChunks(file, options, chunkSize, uploadId, 0, journal);
+    }
+
+    private Map uploadFileChunks(File file, Map options, int chunkSize, String uploadId, long offset, UploadJournal journal) throws IOException {
+        Map params = buildUploadParams(options);
+        long length = file.length();
+
+        Map response;
+        int parallelChunks = ObjectUtils.asInteger(options.get("parallel_chunks"), 1);
+        if (parallelChunks > 1) {
+            response = new ParallelChunkUpload(this, params, options, uploadId, chunkSize, length, parallelChunks, journal).upload(file, offset);
+        } else {
+            ProgressCallback progress = (ProgressCallback) options.get("progress_callback");
+            while (true) {
+                long size = Math.min(chunkSize, length - offset);
+                response = uploadChunk(params, options, uploadId, fileChunk(file, offset, size), offset, size, length);
+                if (response.containsKey("error")) return response;
+                offset += size;
+                if (progress != null) progress.onProgress(offset, length);
+                if (offset >= length) break;
+                if (journal != null) journal.acknowledge(offset - size, size);
+            }
+        }
+        if (journal != null && !response.containsKey("error")) journal.delete();
+        return response;
+    }
+
+    /**
+     * @return the chunk of <code>file</code> as a {@link FileRegion}, or read into memory if the strategy does not support them
+     */
+    Object fileChunk(File file, long offset, long size) throws IOException {
+        FileRegion region = new FileRegion(file, offset, size);
+        if (strategy.supportsFileRegions()) return region;
+        byte[] chunk = new byte[(int) size];
+        InputStream in = region.openStream();
+        try {
+            int read = 0;
+            while (read < chunk.length) {
+                int bytesRead = in.read(chunk, read, chunk.length - read);
+                if (bytesRead == -1) throw new EOFException("File " + file + " is shorter than " + (offset + size) + " bytes");
+                read += bytesRead;
+            }
+        } finally {
+            in.close();
+        }
+        return chunk;
+    }
+
     private Map uploadLargeParts(InputStream input, Map options, int bufferSize, long length) throws IOException {
         Map params = buildUploadParams(options);
+        String uploadId = cloudinary().randomPublicId();
 
-        Map sentOptions = new HashMap();
-        sentOptions.putAll(options);
-        Map extraHeaders = new HashMap();
-        extraHeaders.put("X-Unique-Upload-Id", cloudinary().randomPublicId());
-        sentOptions.put("extra_headers", extraHeaders);
+        int parallelChunks = ObjectUtils.asInteger(options.get("parallel_chunks"), 1);
+        if (parallelChunks > 1) {
+            return new ParallelChunkUpload(this, params, options, uploadId, bufferSize, length, parallelChunks, null).upload(input);
+        }
+        ProgressCallback progress = (ProgressCallback) options.get("progress_callback");
 
         byte[] buffer = new byte[bufferSize];
         byte[] nibbleBuffer = new byte[1];
@@ -120,7 +249,7 @@ public class Uploader {
 
             if (atEnd || fullBuffer) {
                 totalBytes += currentBufferSize;
-                int currentLoc = bufferSize * partNumber;
+                long currentLoc = (long) bufferSize * partNumber;
                 if (!atEnd) {
                     //verify not on end - try read another byte
                     bytesRead = input.read(nibbleBuffer, 0, 1);
@@ -132,11 +261,8 @@ public class Uploader {
                     System.arraycopy(buffer, 0, finalBuffer, 0, currentBufferSize);
                     buffer = finalBuffer;
                 }
-                String range = String.format("bytes %d-%d/%d", currentLoc, currentLoc + currentBufferSize - 1, length);
-                extraHeaders.put("Content-Range", range);
-                Map sentParams = new HashMap();
-                sentParams.putAll(params);
-                response = callApi("upload", sentParams, sentOptions, buffer);
+                response = uploadChunk(params, options, uploadId, buffer, currentLoc, buffer.length, length);
+                if (progress != null) progress.onProgress(totalBytes, length);
                 if (atEnd) break;
                 buffer[0] = nibbleBuffer[0];
                 currentBufferSize = 1;
@@ -146,6 +272,23 @@ public class Uploader {
         return response;
     }
 
+    /**
+     * Send one chunk of a large upload
+     *
+     * @param chunk  the chunk's content, a byte[] or a {@link FileRegion}
+     * @param offset position of the chunk in the upload
+     * @param size   size of the chunk
+     * @param length total size of the upload, or -1 if not known yet
+     */
+    Map uploadChunk(Map params, Map options, String uploadId, Object chunk, long offset, long size, long length) throws IOException {
+        Map extraHeaders = new HashMap();
+        extraHeaders.put("X-Unique-Upload-Id", uploadId);
+        extraHeaders.put("Content-Range", String.format("bytes %d-%d/%d", offset, offset + size - 1, length));
+        Map sentOptions = new HashMap(options);
+        sentOptions.put("extra_headers", extraHeaders);
+        return callApi("upload", new HashMap(params), sentOptions, chunk);
+    }
+
     public Map destroy(String publicId, Map options) throws IOException {
         if (options == null)
             options = ObjectUtils.emptyMap();
@@ -1,13 +1,11 @@
 package com.cloudinary;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.regex.Matcher;
@@ -20,7 +18,8 @@ import com.cloudinary.utils.StringUtils;
 
 public class Url {
     private final Cloudinary cloudinary;
-    private final Configuration config;
+    private final UrlFactory factory;
+    private Configuration config;
     String publicId = null;
     String type = null;
     String resourceType = null;
@@ -44,9 +43,24 @@ public class Url {
 
     public Url(Cloudinary cloudinary) {
         this.cloudinary = cloudinary;
+        this.factory = null;
         this.config = new Configuration(cloudinary.config);
     }
 
+    Url(Cloudinary cloudinary, UrlFactory factory) {
+        this.cloudinary = cloudinary;
+        this.factory = factory;
+        this.config = factory.config;
+    }
+
+    // the configuration is shared with the factory until one of the setters changes it
+    private Configuration mutableConfig() {
+        if (factory != null && config == factory.config) {
+            config = new Configuration(config);
+        }
+        return config;
+    }
+
     public Url clone() {
         Url cloned = cloudinary.url();
 
@@ -59,7 +73,8 @@ public class Url {
         cloned.resourceType = this.resourceType;
         cloned.signUrl = this.signUrl;
         cloned.source = this.source;
-        if (this.transformation != null) cloned.transformation = new Transformation(this.transformation);
+        if (this.transformation instanceof CompiledTransformation) cloned.transformation = this.transformation;
+        else if (this.transformation != null) cloned.transformation = new Transformation(this.transformation);
         if (this.sourceTransformation != null) {
             cloned.sourceTransformation = new HashMap<String, Transformation>();
             for (Map.Entry<String, Transformation> keyValuePair : this.sourceTransformation.entrySet()) {
@@ -140,17 +155,17 @@ public class Url {
     }
 
     public Url cloudName(String cloudName) {
-        this.config.cloudName = cloudName;
+        mutableConfig().cloudName = cloudName;
         return this;
     }
 
     public Url secureDistribution(String secureDistribution) {
-        this.config.secureDistribution = secureDistribution;
+        mutableConfig().secureDistribution = secureDistribution;
         return this;
     }
 
     public Url secureCdnSubdomain(boolean secureCdnSubdomain) {
-        this.config.secureCdnSubdomain = secureCdnSubdomain;
+        mutableConfig().secureCdnSubdomain = secureCdnSubdomain;
         return this;
     }
 
@@ -165,7 +180,7 @@ public class Url {
     }
 
     public Url cname(String cname) {
-        this.config.cname = cname;
+        mutableConfig().cname = cname;
         return this;
     }
 
@@ -180,22 +195,22 @@ public class Url {
     }
 
     public Url secure(boolean secure) {
-        this.config.secure = secure;
+        mutableConfig().secure = secure;
         return this;
     }
 
     public Url privateCdn(boolean privateCdn) {
-        this.config.privateCdn = privateCdn;
+        mutableConfig().privateCdn = privateCdn;
         return this;
     }
 
     public Url cdnSubdomain(boolean cdnSubdomain) {
-        this.config.cdnSubdomain = cdnSubdomain;
+        mutableConfig().cdnSubdomain = cdnSubdomain;
         return this;
     }
 
     public Url shorten(boolean shorten) {
-        this.config.shorten = shorten;
+        mutableConfig().shorten = shorten;
         return this;
     }
 
@@ -287,7 +302,115 @@ public class Url {
     }
 
     public String generate(String source) {
+        boolean useRootPath = checkConfiguration();
 
+        if (source == null) {
+            if (publicId == null) {
+                if (this.source == null) {
+                    return null;
+                }
+                source = this.source;
+            } else {
+                source = publicId;
+            }
+        }
+
+        if (isHttpUrl(source, true)) {
+            if (StringUtils.isEmpty(type) || "asset".equals(type)) {
+                return source;
+            }
+        }
+
+
+        if (type != null && type.equals("fetch") && !StringUtils.isEmpty(format)) {
+            if (transformation instanceof CompiledTransformation) {
+                transformation = new Transformation(transformation);
+            }
+            transformation().fetchFormat(format);
+            this.format = null;
+        }
+        Assembler assembler = new Assembler(useRootPath, transformation(), format);
+        StringBuilder url = new StringBuilder(assembler.transformationStr.length() + source.length() + 80);
+        this.version = assembler.append(url, source, version);
+        return url.toString();
+    }
+
+    /**
+     * Generate the URLs of all <code>sources</code> with the settings of this builder and write them to
+     * <code>out</code>, separated by <code>separator</code>. The transformation, signing setup and prefix
+     * are only computed once. Each URL is the same as the one a new, identically configured builder would generate.
+     *
+     * @param sources   public ids or fetch URLs
+     * @param out       destination of the generated URLs, e.g. a servlet response writer
+     * @param separator written between two URLs
+     * @return <code>out</code>
+     * @throws IOException if writing to <code>out</code> fails
+     */
+    public <A extends Appendable> A generateAll(Iterable<String> sources, A out, String separator) throws IOException {
+        Assembler assembler = batchAssembler();
+        StringBuilder url = new StringBuilder(assembler.transformationStr.length() + 128);
+        boolean first = true;
+        for (String source : sources) {
+            if (!first) out.append(separator);
+            first = false;
+            url.setLength(0);
+            assembler.appendUrl(url, source);
+            out.append(url);
+        }
+        return out;
+    }
+
+    /**
+     * Generate an image tag for each of <code>sources</code>, with the settings of this builder and the same
+     * <code>attributes</code>, and write them to <code>out</code>. Each tag is the same as the one
+     * {@link #imageTag(String, Map)} of a new, identically configured builder would return, except that the
+     * size attributes of the transformation are also applied to sources that are used as is (http URLs without a type).
+     *
+     * @return <code>out</code>
+     * @throws IOException if writing to <code>out</code> fails
+     */
+    public <A extends Appendable> A imageTags(Iterable<String> sources, Map<String, String> attributes, A out) throws IOException {
+        Assembler assembler = batchAssembler();
+        attributes = new TreeMap<String, String>(attributes);
+        Transformation transformation = assembler.transformation;
+        String placeholder = null;
+        boolean lazy = prepareImageTagAttributes(attributes, transformation);
+        if (lazy) {
+            placeholder = attributes.remove("responsive_placeholder");
+            if ("blank".equals(placeholder)) {
+                placeholder = CL_BLANK;
+            }
+            attributes.put("data-src", "");
+        }
+        StringBuilder before = new StringBuilder();
+        StringBuilder after = new StringBuilder();
+        StringBuilder current = before;
+        for (Map.Entry<String, String> attr : attributes.entrySet()) {
+            if (lazy && attr.getKey().equals("data-src")) {
+                current = after;
+                continue;
+            }
+            current.append(" ").append(attr.getKey()).append("='").append(attr.getValue()).append("'");
+        }
+
+        StringBuilder url = new StringBuilder(assembler.transformationStr.length() + 128);
+        for (String source : sources) {
+            url.setLength(0);
+            assembler.appendUrl(url, source);
+            out.append("<img");
+            if (lazy) {
+                if (placeholder != null) out.append(" src='").append(placeholder).append("'");
+                out.append(before).append(" data-src='").append(url).append("'").append(after);
+            } else {
+                out.append(" src='").append(url).append("'").append(before);
+            }
+            out.append("/>");
+        }
+        return out;
+    }
+
+    // validates the configuration and returns whether to use the root path
+    private boolean checkConfiguration() {
         boolean useRootPath = this.config.useRootPath;
         if (this.useRootPath != null) {
             useRootPath = this.useRootPath;
@@ -305,90 +428,215 @@ public class Url {
                 throw new IllegalArgumentException("Root path only supported in private CDN");
             }
         }
+        return useRootPath;
+    }
 
-        if (source == null) {
-            if (publicId == null) {
-                if (this.source == null) {
-                    return null;
-                }
-                source = this.source;
-            } else {
-                source = publicId;
+    // prepares for several URLs without modifying this builder
+    private Assembler batchAssembler() {
+        boolean useRootPath = checkConfiguration();
+        Transformation transformation = this.transformation == null ? new Transformation() : this.transformation;
+        String format = this.format;
+        if (type != null && type.equals("fetch") && !StringUtils.isEmpty(format)) {
+            transformation = new Transformation(transformation).fetchFormat(format);
+            format = null;
+        }
+        return new Assembler(useRootPath, transformation, format);
+    }
+
+    /**
+     * Builds URLs for one transformation and format; everything that depends on the source is done in {@link #append}.
+     */
+    private class Assembler {
+        final boolean useRootPath;
+        final Transformation transformation;
+        final String transformationStr;
+        final String format;
+        private SignatureCache cache;
+
+        Assembler(boolean useRootPath, Transformation transformation, String format) {
+            this.useRootPath = useRootPath;
+            this.transformation = transformation;
+            this.transformationStr = transformation.generate();
+            this.format = format;
+            if (signUrl) {
+                cache = cloudinary.urlSignatureCache();
+                if (cache != null && !cache.isFor(config.apiSecret)) cache = null;
             }
         }
 
-        if (source.toLowerCase(Locale.US).matches("^https?:/.*")) {
-            if (StringUtils.isEmpty(type) || "asset".equals(type)) {
-                return source;
+        // appends the URL of a source given to one of the batch methods
+        void appendUrl(StringBuilder url, String source) {
+            if (source == null) {
+                throw new IllegalArgumentException("Sources must not be null");
+            }
+            if (isHttpUrl(source, true) && (StringUtils.isEmpty(type) || "asset".equals(type))) {
+                url.append(source);
+            } else {
+                append(url, source, version);
             }
         }
 
+        /**
+         * Appends the URL of <code>source</code> to the empty builder <code>url</code>
+         *
+         * @return the version path component used
+         */
+        String append(StringBuilder url, String source, String version) {
+            String signature = "";
 
-        if (type != null && type.equals("fetch") && !StringUtils.isEmpty(format)) {
-            transformation().fetchFormat(format);
-            this.format = null;
-        }
-        String transformationStr = transformation().generate();
-        String signature = "";
+            String[] finalizedSource = finalizeSource(source, format, urlSuffix);
+            source = finalizedSource[0];
+            String sourceToSign = finalizedSource[1];
 
+            if (sourceToSign.indexOf('/') >= 0 && !isVersionPrefixed(sourceToSign) && !isHttpUrl(sourceToSign, false) && StringUtils.isEmpty(version)) {
+                version = "1";
+            }
 
-        String[] finalizedSource = finalizeSource(source, format, urlSuffix);
-        source = finalizedSource[0];
-        String sourceToSign = finalizedSource[1];
+            if (version == null)
+                version = "";
+            else
+                version = "v" + version;
 
-        if (sourceToSign.contains("/") && !sourceToSign.matches("v[0-9]+.*") && !sourceToSign.matches("https?:/.*") && StringUtils.isEmpty(version)) {
-            version = "1";
-        }
 
-        if (version == null)
-            version = "";
-        else
-            version = "v" + version;
+            if (signUrl) {
+                signature = sign(sourceToSign);
+            }
 
+            String resourceType = Url.this.resourceType;
+            if (resourceType == null) resourceType = "image";
+            String finalResourceType = finalizeResourceType(resourceType, type, urlSuffix, useRootPath, config.shorten);
+            String prefix = factory == null ? null : factory.prefix(config, source);
+            if (prefix == null) {
+                prefix = unsignedDownloadUrlPrefix(source, config.cloudName, config.privateCdn, config.cdnSubdomain, config.secureCdnSubdomain, config.cname, config.secure, config.secureDistribution);
+            }
 
-        if (signUrl) {
-            MessageDigest md = null;
-            try {
-                md = MessageDigest.getInstance("SHA-1");
-            } catch (NoSuchAlgorithmException e) {
-                throw new RuntimeException("Unexpected exception", e);
+            appendCollapsingSlashes(url, prefix, false);
+            appendCollapsingSlashes(url, "/", false);
+            if (finalResourceType != null) appendCollapsingSlashes(url, finalResourceType, false);
+            appendCollapsingSlashes(url, "/", false);
+            appendCollapsingSlashes(url, signature, false);
+            appendCollapsingSlashes(url, "/", false);
+            appendCollapsingSlashes(url, transformationStr, false);
+            appendCollapsingSlashes(url, "/", false);
+            appendCollapsingSlashes(url, version, false);
+            appendCollapsingSlashes(url, "/", false);
+            appendCollapsingSlashes(url, source, false);
+            return version;
+        }
+
+        private String sign(String sourceToSign) {
+            StringBuilder toSign = new StringBuilder(transformationStr.length() + sourceToSign.length() + 41);
+            appendCollapsingSlashes(toSign, transformationStr, true);
+            appendCollapsingSlashes(toSign, "/", true);
+            appendCollapsingSlashes(toSign, sourceToSign, true);
+
+            String key = cache == null ? null : toSign.toString();
+            String signature = cache == null ? null : cache.get(key);
+            if (signature == null) {
+                byte[] digest = Signer.getInstance(Signer.SHA1).digest(toSign, config.apiSecret);
+                signature = Base64Coder.encodeURLSafeString(digest);
+                signature = "s--" + signature.substring(0, 8) + "--";
+                if (cache != null) cache.put(key, signature);
             }
+            return signature;
+        }
+    }
+
+    /**
+     * Same as {@code value.matches("^https?:/.*")}, or {@code value.toLowerCase(Locale.US).matches("^https?:/.*")}
+     * when <code>ignoreCase</code> is true.
+     */
+    static boolean isHttpUrl(String value, boolean ignoreCase) {
+        int length = value.length();
+        if (length < 6 || !value.regionMatches(ignoreCase, 0, "http", 0, 4)) return false;
+        int i = 4;
+        char c = value.charAt(i);
+        if (c == 's' || (ignoreCase && c == 'S')) i++;
+        return value.startsWith(":/", i) && !containsLineTerminator(value, i + 2);
+    }
 
-            String toSign = StringUtils.join(new String[]{transformationStr, sourceToSign}, "/");
-            toSign = toSign.replaceAll("^/+", "").replaceAll("([^:])\\/+", "$1/");
+    /**
+     * Same as {@code value.matches("v[0-9]+.*")}
+     */
+    static boolean isVersionPrefixed(String value) {
+        if (value.length() < 2 || value.charAt(0) != 'v') return false;
+        char c = value.charAt(1);
+        return c >= '0' && c <= '9' && !containsLineTerminator(value, 2);
+    }
 
-            byte[] digest = md.digest(cloudinary.getUTF8Bytes(toSign + this.config.apiSecret));
-            signature = Base64Coder.encodeURLSafeString(digest);
-            signature = "s--" + signature.substring(0, 8) + "--";
+    // the characters that the regex "." does not match
+    private static boolean containsLineTerminator(String value, int from) {
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return true;
         }
+        return false;
+    }
 
-        String resourceType = this.resourceType;
-        if (resourceType == null) resourceType = "image";
-        String finalResourceType = finalizeResourceType(resourceType, type, urlSuffix, useRootPath, config.shorten);
-        String prefix = unsignedDownloadUrlPrefix(source, config.cloudName, config.privateCdn, config.cdnSubdomain, config.secureCdnSubdomain, config.cname, config.secure, config.secureDistribution);
+    /**
+     * Same as {@code value.replaceAll("([^:])//", "\1/")}: note that the Java literal "\1" is the
+     * character U+0001, which replaces the character preceding the double slash.
+     */
+    static String replaceDoubleSlashes(String value) {
+        if (value.indexOf("//") < 0) return value;
+        StringBuilder result = new StringBuilder(value.length());
+        int i = 0;
+        while (i < value.length()) {
+            int codePoint = value.codePointAt(i);
+            int next = i + Character.charCount(codePoint);
+            if (codePoint != ':' && value.startsWith("//", next)) {
+                result.append('\u0001').append('/');
+                i = next + 2;
+            } else {
+                result.appendCodePoint(codePoint);
+                i = next;
+            }
+        }
+        return result.toString();
+    }
 
-        return StringUtils.join(new String[]{prefix, finalResourceType, signature, transformationStr, version, source}, "/").replaceAll("([^:])\\/+", "$1/");
+    /**
+     * Appends <code>value</code> to <code>builder</code> so that the accumulated result equals
+     * {@code result.replaceAll("([^:])/+", "$1/")}, preceded by {@code replaceAll("^/+", "")}
+     * when <code>stripLeading</code> is true. That is, a run of slashes following any character
+     * but ':' is collapsed to a single slash, while a run at the start or after ':' keeps at most two.
+     */
+    static void appendCollapsingSlashes(StringBuilder builder, String value, boolean stripLeading) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '/') {
+                int length = builder.length();
+                if (length == 0) {
+                    if (stripLeading) continue;
+                } else if (builder.charAt(length - 1) == '/') {
+                    int run = 1;
+                    while (run < length && builder.charAt(length - 1 - run) == '/') run++;
+                    if (run < length && builder.charAt(length - 1 - run) != ':') continue;
+                    if (run >= 2) continue;
+                }
+            }
+            builder.append(c);
+        }
     }
 
     private String[] finalizeSource(String source, String format, String urlSuffix) {
         String[] result = new String[2];
-        source = source.replaceAll("([^:])//", "\1/");
+        source = replaceDoubleSlashes(source);
 
         String sourceToSign;
-        if (source.toLowerCase().matches("^https?:/.*")) {
+        if (isHttpUrl(source, true)) {
             source = SmartUrlEncoder.encode(source);
             sourceToSign = source;
         } else {
             try {
-                source = SmartUrlEncoder.encode(URLDecoder.decode(source.replace("+", "%2B"), "UTF-8"));
+                if (source.indexOf('+') >= 0) source = source.replace("+", "%2B");
+                source = SmartUrlEncoder.encode(URLDecoder.decode(source, "UTF-8"));
             } catch (UnsupportedEncodingException e) {
                 throw new RuntimeException(e);
             }
             sourceToSign = source;
             if (StringUtils.isNotBlank(urlSuffix)) {
-                Pattern pattern = Pattern.compile("[\\./]");
-                Matcher matcher = pattern.matcher(urlSuffix);
-                if (matcher.find()) {
+                if (urlSuffix.indexOf('.') >= 0 || urlSuffix.indexOf('/') >= 0) {
                     throw new IllegalArgumentException("url_suffix should not include . or /");
                 }
                 source = source + "/" + urlSuffix;
@@ -438,51 +686,59 @@ public class Url {
     }
 
     public String unsignedDownloadUrlPrefix(String source, String cloudName, boolean privateCdn, boolean cdnSubdomain, Boolean secureCdnSubdomain, String cname, boolean secure, String secureDistribution) {
-        if (this.config.cloudName.startsWith("/")) {
-            return "/res" + this.config.cloudName;
+        return unsignedDownloadUrlPrefix(this.config, secureCdnSubdomain, secureDistribution, shard(source));
+    }
+
+    static String unsignedDownloadUrlPrefix(Configuration config, Boolean secureCdnSubdomain, String secureDistribution, String shard) {
+        if (config.cloudName.startsWith("/")) {
+            return "/res" + config.cloudName;
         }
-        boolean sharedDomain = !this.config.privateCdn;
+        boolean sharedDomain = !config.privateCdn;
 
         String prefix;
 
-        if (this.config.secure) {
-            if (StringUtils.isEmpty(this.config.secureDistribution) || this.config.secureDistribution.equals(Cloudinary.OLD_AKAMAI_SHARED_CDN)) {
-                secureDistribution = this.config.privateCdn ? this.config.cloudName + "-res.cloudinary.com" : Cloudinary.SHARED_CDN;
+        if (config.secure) {
+            if (StringUtils.isEmpty(config.secureDistribution) || config.secureDistribution.equals(Cloudinary.OLD_AKAMAI_SHARED_CDN)) {
+                secureDistribution = config.privateCdn ? config.cloudName + "-res.cloudinary.com" : Cloudinary.SHARED_CDN;
             }
             if (!sharedDomain) {
                 sharedDomain = secureDistribution.equals(Cloudinary.SHARED_CDN);
             }
 
             if (secureCdnSubdomain == null && sharedDomain) {
-                secureCdnSubdomain = this.config.cdnSubdomain;
+                secureCdnSubdomain = config.cdnSubdomain;
             }
 
             if (secureCdnSubdomain != null && secureCdnSubdomain == true) {
-                secureDistribution = this.config.secureDistribution.replace("res.cloudinary.com", "res-" + shard(source) + ".cloudinary.com");
+                secureDistribution = config.secureDistribution.replace("res.cloudinary.com", "res-" + shard + ".cloudinary.com");
             }
 
             prefix = "https://" + secureDistribution;
-        } else if (StringUtils.isNotBlank(this.config.cname)) {
-            String subdomain = this.config.cdnSubdomain ? "a" + shard(source) + "." : "";
-            prefix = "http://" + subdomain + this.config.cname;
+        } else if (StringUtils.isNotBlank(config.cname)) {
+            String subdomain = config.cdnSubdomain ? "a" + shard + "." : "";
+            prefix = "http://" + subdomain + config.cname;
         } else {
             String protocol = "http://";
-            cloudName = this.config.privateCdn ? this.config.cloudName + "-" : "";
+            String cloudName = config.privateCdn ? config.cloudName + "-" : "";
             String res = "res";
-            String subdomain = this.config.cdnSubdomain ? "-" + shard(source) : "";
+            String subdomain = config.cdnSubdomain ? "-" + shard : "";
             String domain = ".cloudinary.com";
             prefix = StringUtils.join(new String[]{protocol, cloudName, res, subdomain, domain}, "");
         }
         if (sharedDomain) {
-            prefix += "/" + this.config.cloudName;
+            prefix += "/" + config.cloudName;
         }
         return prefix;
     }
 
     private String shard(String input) {
+        return String.valueOf(shardIndex(cloudinary.getUTF8Bytes(input)) + 1);
+    }
+
+    static int shardIndex(byte[] input) {
         CRC32 crc32 = new CRC32();
-        crc32.update(cloudinary.getUTF8Bytes(input));
-        return String.valueOf((crc32.getValue() % 5 + 5) % 5 + 1);
+        crc32.update(input);
+        return (int) ((crc32.getValue() % 5 + 5) % 5);
     }
 
     @SuppressWarnings("unchecked")
@@ -498,18 +754,8 @@ public class Url {
         String url = generate(source);
         attributes = new TreeMap<String, String>(attributes); // Make sure they
         // are ordered.
-        if (transformation().getHtmlHeight() != null)
-            attributes.put("height", transformation().getHtmlHeight());
-        if (transformation().getHtmlWidth() != null)
-            attributes.put("width", transformation().getHtmlWidth());
-
-        boolean hiDPI = transformation().isHiDPI();
-        boolean responsive = transformation().isResponsive();
-
-        if (!config.clientHints && (hiDPI || responsive)) {
+        if (prepareImageTagAttributes(attributes, transformation())) {
             attributes.put("data-src", url);
-            String extraClass = responsive ? "cld-responsive" : "cld-hidpi";
-            attributes.put("class", (StringUtils.isBlank(attributes.get("class")) ? "" : attributes.get("class") + " ") + extraClass);
             String responsivePlaceholder = attributes.remove("responsive_placeholder");
             if ("blank".equals(responsivePlaceholder)) {
                 responsivePlaceholder = CL_BLANK;
@@ -529,6 +775,24 @@ public class Url {
         return builder.toString();
     }
 
+    // adds the size and class attributes, returns true if the image is loaded by javascript from data-src
+    private boolean prepareImageTagAttributes(Map<String, String> attributes, Transformation transformation) {
+        if (transformation.getHtmlHeight() != null)
+            attributes.put("height", transformation.getHtmlHeight());
+        if (transformation.getHtmlWidth() != null)
+            attributes.put("width", transformation.getHtmlWidth());
+
+        boolean hiDPI = transformation.isHiDPI();
+        boolean responsive = transformation.isResponsive();
+
+        if (!config.clientHints && (hiDPI || responsive)) {
+            String extraClass = responsive ? "cld-responsive" : "cld-hidpi";
+            attributes.put("class", (StringUtils.isBlank(attributes.get("class")) ? "" : attributes.get("class") + " ") + extraClass);
+            return true;
+        }
+        return false;
+    }
+
     public String videoTag() {
         return videoTag("", new HashMap<String, String>());
     }
@@ -0,0 +1,102 @@
+package com.cloudinary;
+
+import com.cloudinary.utils.StringUtils;
+
+/**
+ * Creates {@link Url} instances for a snapshot of a {@link Cloudinary} configuration.
+ * <p>
+ * The delivery URL prefix (protocol, host and shared-domain path) is computed once for every
+ * combination of <code>secure</code>, <code>private_cdn</code>, <code>cname</code> (the configured
+ * one or none) and <code>cdn_subdomain</code>, and for each of the 5 CDN shards, so building a URL
+ * only appends the resource type, signature, transformation, version and public id.
+ * Urls created by the factory share its configuration until one of their configuration setters is called.
+ * <p>
+ * A factory is immutable and safe to use from multiple threads. {@link Cloudinary#urlFactory()}
+ * returns a factory matching the current configuration.
+ */
+public final class UrlFactory {
+    private static final int SHARDS = 5;
+
+    private final Cloudinary cloudinary;
+    final Configuration config;
+    // indexed by (secure, privateCdn, cname, cdnSubdomain) * SHARDS + shard, null where the prefix cannot be built
+    private final String[] prefixes;
+    private final boolean[] sharded;
+
+    UrlFactory(Cloudinary cloudinary) {
+        this.cloudinary = cloudinary;
+        this.config = new Configuration(cloudinary.config);
+        this.prefixes = new String[16 * SHARDS];
+        this.sharded = new boolean[16];
+        if (StringUtils.isEmpty(config.cloudName)) return;
+
+        for (int combination = 0; combination < 16; combination++) {
+            Configuration variant = new Configuration(config);
+            variant.secure = (combination & 8) != 0;
+            variant.privateCdn = (combination & 4) != 0;
+            variant.cname = (combination & 2) != 0 ? config.cname : null;
+            variant.cdnSubdomain = (combination & 1) != 0;
+            for (int shard = 0; shard < SHARDS; shard++) {
+                String prefix;
+                try {
+                    prefix = Url.unsignedDownloadUrlPrefix(variant, variant.secureCdnSubdomain, variant.secureDistribution, String.valueOf(shard + 1));
+                } catch (RuntimeException e) {
+                    // left to Url, which reports the error when the prefix is actually needed
+                    prefix = null;
+                }
+                prefixes[combination * SHARDS + shard] = prefix;
+                if (shard > 0 && prefix != null && !prefix.equals(prefixes[combination * SHARDS])) {
+                    sharded[combination] = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a new Url builder using this factory's configuration
+     */
+    public Url url() {
+        return new Url(cloudinary, this);
+    }
+
+    /**
+     * @return the precomputed prefix for <code>source</code>, or null if <code>config</code> differs
+     * from this factory's configuration in a way the table does not cover
+     */
+    String prefix(Configuration config, String source) {
+        if (config != this.config && !(same(config.cloudName, this.config.cloudName)
+                && same(config.secureDistribution, this.config.secureDistribution)
+                && same(config.secureCdnSubdomain, this.config.secureCdnSubdomain))) {
+            return null;
+        }
+        int combination = (config.secure ? 8 : 0) | (config.privateCdn ? 4 : 0) | (config.cdnSubdomain ? 1 : 0);
+        if (StringUtils.isNotBlank(config.cname)) {
+            if (!config.cname.equals(this.config.cname)) return null;
+            combination |= 2;
+        }
+        int shard = sharded[combination] ? Url.shardIndex(cloudinary.getUTF8Bytes(source)) : 0;
+        return prefixes[combination * SHARDS + shard];
+    }
+
+    /**
+     * @return true if <code>config</code> has the same URL related settings as this factory
+     */
+    boolean isCurrent(Configuration config) {
+        Configuration snapshot = this.config;
+        return same(config.cloudName, snapshot.cloudName)
+                && same(config.apiSecret, snapshot.apiSecret)
+                && same(config.secureDistribution, snapshot.secureDistribution)
+                && same(config.cname, snapshot.cname)
+                && same(config.secureCdnSubdomain, snapshot.secureCdnSubdomain)
+                && config.secure == snapshot.secure
+                && config.privateCdn == snapshot.privateCdn
+                && config.cdnSubdomain == snapshot.cdnSubdomain
+                && config.shorten == snapshot.shorten
+                && config.useRootPath == snapshot.useRootPath
+                && config.clientHints == snapshot.clientHints;
+    }
+
+    private static boolean same(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
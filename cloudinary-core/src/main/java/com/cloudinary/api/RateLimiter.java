@@ -0,0 +1,88 @@
+package com.cloudinary.api;
+
+import java.io.InterruptedIOException;
+import java.util.Date;
+
+/**
+ * Token bucket pacing the Admin API calls of a {@link com.cloudinary.Cloudinary} instance across threads, so that
+ * the remaining rate limit budget reported by the server is spread until its reset time instead of being used up
+ * in a burst. Enabled with the <code>rate_limit_pacing</code> configuration.
+ * <p>
+ * The bucket holds up to <code>burst</code> calls (never more than the remaining budget) and refills at
+ * <code>remaining / time to reset</code>. Calls are not limited before the server reported a rate limit, nor after
+ * the reported reset time until the next response.
+ */
+public class RateLimiter {
+    private final int burst;
+    private double capacity;
+    private double tokens;
+    // tokens per millisecond
+    private double rate;
+    private long reset;
+    private long last;
+
+    public RateLimiter(int burst) {
+        this.burst = Math.max(1, burst);
+    }
+
+    /**
+     * Wait until a call may be sent.
+     */
+    public void acquire() throws InterruptedIOException {
+        long wait = reserve(System.currentTimeMillis());
+        if (wait <= 0) return;
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the API rate limit");
+        }
+    }
+
+    /**
+     * Update the bucket from the rate limit reported with a response, ignored if null.
+     */
+    public void update(RateLimit limit) {
+        if (limit != null) update(limit.getRemaining(), limit.getReset());
+    }
+
+    public void update(long remaining, Date reset) {
+        update(remaining, reset, System.currentTimeMillis());
+    }
+
+    /**
+     * @return the time in milliseconds the caller must wait before sending its call
+     */
+    synchronized long reserve(long now) {
+        if (now >= reset) return 0;
+        refill(now);
+        tokens -= 1;
+        if (tokens >= 0) return 0;
+        if (rate <= 0) return reset - now;
+        return Math.min(reset - now, (long) Math.ceil(-tokens / rate));
+    }
+
+    synchronized void update(long remaining, Date resetDate, long now) {
+        if (resetDate == null) return;
+        long reset = resetDate.getTime();
+        if (reset <= now) {
+            this.reset = 0;
+            return;
+        }
+        boolean known = now < this.reset;
+        if (known) refill(now);
+        capacity = Math.min(burst, Math.max(0, remaining));
+        // tokens already reserved by waiting callers stay spent
+        tokens = known ? Math.min(tokens, capacity) : capacity;
+        rate = Math.max(0, remaining) / (double) (reset - now);
+        this.reset = reset;
+        last = now;
+    }
+
+    private void refill(long now) {
+        if (now > last) {
+            tokens = Math.min(capacity, tokens + (now - last) * rate);
+            last = now;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.cloudinary.api;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * A typed view of a resource, as returned by {@link com.cloudinary.Api#resource(String, Map)} or listed in a
+ * {@link ResourceListPage}. The view reads the response map when its getters are called and copies nothing, so
+ * wrapping a response is free and the map stays the source of truth, see {@link #asMap()}.
+ * <p>
+ * The bulky details (<code>derived</code>, <code>exif</code>, <code>colors</code>, <code>image_metadata</code>...)
+ * are decoded from the response text only when first read, see {@link com.cloudinary.utils.JsonDecoder#LAZY_KEYS}.
+ * Getters of absent values return null.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ResourceInfo {
+    private static final String DATE_FORMAT = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+
+    protected final Map map;
+
+    public ResourceInfo(Map map) {
+        this.map = map;
+    }
+
+    /**
+     * @return the response this view reads
+     */
+    public Map asMap() {
+        return map;
+    }
+
+    public String getPublicId() {
+        return (String) map.get("public_id");
+    }
+
+    public String getFormat() {
+        return (String) map.get("format");
+    }
+
+    public String getResourceType() {
+        return (String) map.get("resource_type");
+    }
+
+    public String getType() {
+        return (String) map.get("type");
+    }
+
+    public Long getVersion() {
+        return asLong(map.get("version"));
+    }
+
+    public Long getBytes() {
+        return asLong(map.get("bytes"));
+    }
+
+    public Integer getWidth() {
+        return asInteger(map.get("width"));
+    }
+
+    public Integer getHeight() {
+        return asInteger(map.get("height"));
+    }
+
+    public String getUrl() {
+        return (String) map.get("url");
+    }
+
+    public String getSecureUrl() {
+        return (String) map.get("secure_url");
+    }
+
+    /**
+     * @return the creation time, or null if absent or not in the format of the API
+     */
+    public Date getCreatedAt() {
+        Object createdAt = map.get("created_at");
+        if (!(createdAt instanceof String)) return null;
+        SimpleDateFormat format = new SimpleDateFormat(DATE_FORMAT);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            return format.parse((String) createdAt);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    public List<String> getTags() {
+        return (List<String>) map.get("tags");
+    }
+
+    public Map getContext() {
+        return (Map) map.get("context");
+    }
+
+    /**
+     * @return the derived resources, each with its <code>transformation</code>, <code>bytes</code> and URLs
+     */
+    public List<Map> getDerived() {
+        return (List<Map>) map.get("derived");
+    }
+
+    public Map<String, Object> getExif() {
+        return (Map<String, Object>) map.get("exif");
+    }
+
+    public Map<String, Object> getImageMetadata() {
+        return (Map<String, Object>) map.get("image_metadata");
+    }
+
+    /**
+     * @return the main colors, each a list of the color and its percentage
+     */
+    public List<List> getColors() {
+        return (List<List>) map.get("colors");
+    }
+
+    public List<List> getFaces() {
+        return (List<List>) map.get("faces");
+    }
+
+    @Override
+    public String toString() {
+        return map.toString();
+    }
+
+    static Long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+
+    static Integer asInteger(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : null;
+    }
+}
@@ -0,0 +1,54 @@
+package com.cloudinary.api;
+
+import java.text.ParseException;
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A typed view of a page of resources, as returned by {@link com.cloudinary.Api#resources(Map)} and the other
+ * listings. Resources are wrapped in a {@link ResourceInfo} when read, without copying the page.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ResourceListPage {
+    private final ApiResponse response;
+
+    public ResourceListPage(ApiResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * @return the response this view reads
+     */
+    public ApiResponse asMap() {
+        return response;
+    }
+
+    public List<ResourceInfo> getResources() {
+        final List<Map> resources = (List<Map>) response.get("resources");
+        if (resources == null) return Collections.emptyList();
+        return new AbstractList<ResourceInfo>() {
+            @Override
+            public ResourceInfo get(int index) {
+                return new ResourceInfo(resources.get(index));
+            }
+
+            @Override
+            public int size() {
+                return resources.size();
+            }
+        };
+    }
+
+    /**
+     * @return the cursor of the next page, or null if this is the last one
+     */
+    public String getNextCursor() {
+        return (String) response.get("next_cursor");
+    }
+
+    public RateLimit getRateLimit() throws ParseException {
+        return response.apiRateLimit();
+    }
+}
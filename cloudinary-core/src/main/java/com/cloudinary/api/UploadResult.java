@@ -0,0 +1,46 @@
+package com.cloudinary.api;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A typed view of the result of {@link com.cloudinary.Uploader#upload(Object, Map)} and the other calls that
+ * return an uploaded resource, see {@link ResourceInfo}.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class UploadResult extends ResourceInfo {
+
+    public UploadResult(Map map) {
+        super(map);
+    }
+
+    public String getSignature() {
+        return (String) map.get("signature");
+    }
+
+    public String getEtag() {
+        return (String) map.get("etag");
+    }
+
+    public String getOriginalFilename() {
+        return (String) map.get("original_filename");
+    }
+
+    /**
+     * @return true if the upload was stored under an existing public ID without being overwritten
+     */
+    public boolean isExisting() {
+        return Boolean.TRUE.equals(map.get("existing"));
+    }
+
+    /**
+     * @return the eager transformations generated with the upload, each with its <code>url</code>
+     */
+    public List<Map> getEager() {
+        return (List<Map>) map.get("eager");
+    }
+
+    public List<Map> getResponsiveBreakpoints() {
+        return (List<Map>) map.get("responsive_breakpoints");
+    }
+}
@@ -3,7 +3,24 @@ package com.cloudinary.api.exceptions;
 public class GeneralError extends ApiException {
     private static final long serialVersionUID = 4553362706625067182L;
 
+    private final int statusCode;
+
+    /**
+     * An error of a call the server answered with 500, see {@link com.cloudinary.Api#CLOUDINARY_API_ERROR_CLASSES}.
+     */
     public GeneralError(String message) {
+        this(message, 500);
+    }
+
+    /**
+     * @param statusCode the unexpected status code the server answered with
+     */
+    public GeneralError(String message, int statusCode) {
         super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,23 @@
 package com.cloudinary.api.exceptions;
 
+import java.util.Date;
 
 public class RateLimited extends ApiException {
     private static final long serialVersionUID = -8298038106172355219L;
+    private Date reset;
 
     public RateLimited(String message) {
         super(message);
     }
+
+    /**
+     * @return the time the rate limit resets, as reported by the server, or null
+     */
+    public Date getReset() {
+        return reset;
+    }
+
+    public void setReset(Date reset) {
+        this.reset = reset;
+    }
 }
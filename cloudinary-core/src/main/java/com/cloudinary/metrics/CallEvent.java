@@ -0,0 +1,207 @@
+package com.cloudinary.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.cloudinary.Cloudinary;
+
+/**
+ * The measurements of a call of the Upload API or the Admin API, passed to the {@link CallListener}s.
+ * <p>
+ * The call and its retries are timed by the strategies' <code>callApiWithRetries</code>; the HTTP adapters add what
+ * their client exposes through {@link #current()}, which is the event of the call in progress on the thread. Timings
+ * are in nanoseconds; those of the connection, the first byte, the status and the sizes are of the last attempt,
+ * and are -1 when unknown.
+ */
+public class CallEvent {
+    private static final ThreadLocal<CallEvent> CURRENT = new ThreadLocal<CallEvent>();
+
+    private final List<CallListener> listeners;
+    private final String endpoint;
+    private final String method;
+    private final long start = System.nanoTime();
+    private long attemptStart = start;
+    private int retries;
+    private int statusCode = -1;
+    private long requestBytes = -1;
+    private long responseBytes = -1;
+    private long connectNanos = -1;
+    private long firstByteNanos = -1;
+    private long totalNanos = -1;
+    private Throwable error;
+
+    CallEvent(List<CallListener> listeners, String endpoint, String method) {
+        this.listeners = listeners;
+        this.endpoint = endpoint;
+        this.method = method;
+    }
+
+    /**
+     * @return the event of a call of <code>cloudinary</code> starting now, or null if it has no listeners
+     */
+    public static CallEvent start(Cloudinary cloudinary, String endpoint, String method) {
+        List<CallListener> listeners = cloudinary.callListeners();
+        if (listeners.isEmpty()) return null;
+        CallEvent event = new CallEvent(listeners, endpoint, method);
+        CURRENT.set(event);
+        return event;
+    }
+
+    /**
+     * @return the event of the call in progress on this thread, or null if it is not measured
+     */
+    public static CallEvent current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * @return the endpoint of an Admin API call to <code>uri</code>, its first component, so that calls about
+     * different resources are grouped together
+     */
+    public static String apiEndpoint(Iterable<String> uri) {
+        for (String component : uri) {
+            return "admin/" + component;
+        }
+        return "admin";
+    }
+
+    /**
+     * @return the endpoint of an Upload API call of <code>action</code>
+     */
+    public static String uploadEndpoint(String action) {
+        return "upload/" + action;
+    }
+
+    /**
+     * Start an attempt, the first one or a retry.
+     */
+    public void attempt(int attempt) {
+        retries = attempt - 1;
+        attemptStart = System.nanoTime();
+        statusCode = -1;
+        requestBytes = responseBytes = connectNanos = firstByteNanos = -1;
+        CURRENT.set(this);
+    }
+
+    /**
+     * Record the time spent opening a connection, called by the adapters for each new connection of the attempt.
+     */
+    public void connected(long nanos) {
+        connectNanos = Math.max(connectNanos, 0) + nanos;
+    }
+
+    /**
+     * Record the arrival of the response headers.
+     */
+    public void firstByte() {
+        firstByteNanos = System.nanoTime() - attemptStart;
+    }
+
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public void setRequestBytes(long requestBytes) {
+        this.requestBytes = requestBytes;
+    }
+
+    public void setResponseBytes(long responseBytes) {
+        this.responseBytes = responseBytes;
+    }
+
+    /**
+     * @return <code>in</code>, counting the bytes read from it as the response size
+     */
+    public InputStream countResponse(InputStream in) {
+        responseBytes = 0;
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) responseBytes++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int count = super.read(buffer, offset, length);
+                if (count > 0) responseBytes += count;
+                return count;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long count = super.skip(n);
+                responseBytes += count;
+                return count;
+            }
+        };
+    }
+
+    /**
+     * End the call, with the exception it threw if any, and notify the listeners.
+     */
+    public void finish(Throwable error) {
+        CURRENT.remove();
+        this.totalNanos = System.nanoTime() - start;
+        this.error = error;
+        for (CallListener listener : listeners) {
+            try {
+                listener.onCall(this);
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+
+    /**
+     * @return the API and the action or first URI component, such as <code>upload/destroy</code> or
+     * <code>admin/resources</code>
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    public long getConnectNanos() {
+        return connectNanos;
+    }
+
+    public long getFirstByteNanos() {
+        return firstByteNanos;
+    }
+
+    /**
+     * @return the time of the whole call, including its retries and the waits before them
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * @return the exception thrown by the call, or null if it succeeded
+     */
+    public Throwable getError() {
+        return error;
+    }
+}
@@ -0,0 +1,12 @@
+package com.cloudinary.metrics;
+
+/**
+ * Notified of every call of the Upload API and the Admin API made by a {@link com.cloudinary.Cloudinary} instance,
+ * see {@link com.cloudinary.Cloudinary#addCallListener(CallListener)}.
+ * <p>
+ * Listeners are called on the thread that made the call, once it completed or failed and after its retries, so they
+ * must be fast and thread safe. Exceptions thrown by listeners are ignored.
+ */
+public interface CallListener {
+    void onCall(CallEvent event);
+}
@@ -0,0 +1,106 @@
+package com.cloudinary.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The built in {@link CallListener}, which keeps latency histograms and counters by endpoint. Enabled with the
+ * <code>call_metrics</code> configuration parameter, see {@link com.cloudinary.Cloudinary#callMetrics()}, and
+ * published over JMX by {@link CallMetricsMBean}.
+ */
+public class CallMetrics implements CallListener {
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<String, Endpoint>();
+
+    @Override
+    public void onCall(CallEvent event) {
+        Endpoint endpoint = endpoints.get(event.getEndpoint());
+        if (endpoint == null) {
+            Endpoint created = new Endpoint();
+            endpoint = endpoints.putIfAbsent(event.getEndpoint(), created);
+            if (endpoint == null) endpoint = created;
+        }
+        endpoint.record(event);
+    }
+
+    /**
+     * @return the metrics of each endpoint called so far, sorted by endpoint
+     */
+    public Map<String, Endpoint> endpoints() {
+        return Collections.unmodifiableMap(new TreeMap<String, Endpoint>(endpoints));
+    }
+
+    /**
+     * @return the metrics of <code>endpoint</code>, such as <code>upload/upload</code>, or null if it was not called
+     */
+    public Endpoint endpoint(String endpoint) {
+        return endpoints.get(endpoint);
+    }
+
+    /**
+     * The metrics of the calls to an endpoint. Latencies are in microseconds.
+     */
+    public static class Endpoint {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram firstByteLatency = new LatencyHistogram();
+        private final LatencyHistogram connectLatency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+        private final AtomicLong requestBytes = new AtomicLong();
+        private final AtomicLong responseBytes = new AtomicLong();
+
+        void record(CallEvent event) {
+            latency.record(event.getTotalNanos() / 1000);
+            if (event.getFirstByteNanos() >= 0) firstByteLatency.record(event.getFirstByteNanos() / 1000);
+            if (event.getConnectNanos() >= 0) connectLatency.record(event.getConnectNanos() / 1000);
+            if (event.getError() != null) errors.incrementAndGet();
+            retries.addAndGet(event.getRetries());
+            if (event.getRequestBytes() > 0) requestBytes.addAndGet(event.getRequestBytes());
+            if (event.getResponseBytes() > 0) responseBytes.addAndGet(event.getResponseBytes());
+        }
+
+        /**
+         * @return the latencies of the whole calls, including their retries
+         */
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        /**
+         * @return the latencies until the response headers of the last attempts, when reported by the adapter
+         */
+        public LatencyHistogram firstByteLatency() {
+            return firstByteLatency;
+        }
+
+        /**
+         * @return the time spent opening connections by the calls that opened one, when reported by the adapter
+         */
+        public LatencyHistogram connectLatency() {
+            return connectLatency;
+        }
+
+        public long calls() {
+            return latency.count();
+        }
+
+        public long errors() {
+            return errors.get();
+        }
+
+        public long retries() {
+            return retries.get();
+        }
+
+        public long requestBytes() {
+            return requestBytes.get();
+        }
+
+        public long responseBytes() {
+            return responseBytes.get();
+        }
+    }
+}
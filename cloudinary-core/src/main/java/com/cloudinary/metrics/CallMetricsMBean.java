@@ -0,0 +1,120 @@
+package com.cloudinary.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import com.cloudinary.Cloudinary;
+
+/**
+ * Publishes the {@link CallMetrics} of a {@link Cloudinary} instance and the stats of its connection pool over JMX,
+ * as read only attributes: <code>&lt;endpoint&gt; calls</code>, <code>errors</code>, <code>retries</code>,
+ * <code>p50 ms</code>, <code>p90 ms</code>, <code>p99 ms</code> and <code>max ms</code> for each endpoint called so
+ * far, and <code>pool &lt;stat&gt;</code> for the stats reported by the HTTP adapter.
+ * <p>
+ * JMX is only used when {@link #register} is called, so that the SDK runs where it is not available.
+ */
+public class CallMetricsMBean implements DynamicMBean {
+    private final Cloudinary cloudinary;
+
+    CallMetricsMBean(Cloudinary cloudinary) {
+        this.cloudinary = cloudinary;
+    }
+
+    /**
+     * Register the metrics of <code>cloudinary</code>, which must have <code>call_metrics</code> enabled, with the
+     * platform MBean server under <code>com.cloudinary:type=CallMetrics,name=&lt;name&gt;</code>.
+     *
+     * @return the name of the MBean, to unregister it
+     */
+    public static ObjectName register(Cloudinary cloudinary, String name) throws JMException {
+        if (cloudinary.callMetrics() == null) {
+            throw new IllegalArgumentException("Must enable call_metrics in the configuration");
+        }
+        ObjectName objectName = new ObjectName("com.cloudinary:type=CallMetrics,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.registerMBean(new CallMetricsMBean(cloudinary), objectName);
+        return objectName;
+    }
+
+    Map<String, Number> attributes() {
+        Map<String, Number> attributes = new LinkedHashMap<String, Number>();
+        CallMetrics metrics = cloudinary.callMetrics();
+        if (metrics != null) {
+            for (Map.Entry<String, CallMetrics.Endpoint> entry : metrics.endpoints().entrySet()) {
+                String name = entry.getKey();
+                CallMetrics.Endpoint endpoint = entry.getValue();
+                LatencyHistogram latency = endpoint.latency();
+                attributes.put(name + " calls", endpoint.calls());
+                attributes.put(name + " errors", endpoint.errors());
+                attributes.put(name + " retries", endpoint.retries());
+                attributes.put(name + " p50 ms", latency.percentile(50) / 1000.0);
+                attributes.put(name + " p90 ms", latency.percentile(90) / 1000.0);
+                attributes.put(name + " p99 ms", latency.percentile(99) / 1000.0);
+                attributes.put(name + " max ms", latency.max() / 1000.0);
+            }
+        }
+        for (Map.Entry<String, Number> stat : cloudinary.connectionPoolStats().entrySet()) {
+            attributes.put("pool " + stat.getKey(), stat.getValue());
+        }
+        return attributes;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        Number value = attributes().get(attribute);
+        if (value == null) throw new AttributeNotFoundException(attribute);
+        return value;
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] names) {
+        Map<String, Number> attributes = attributes();
+        AttributeList list = new AttributeList();
+        for (String name : names) {
+            Number value = attributes.get(name);
+            if (value != null) list.add(new Attribute(name, value));
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Read only attribute " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> infos = new ArrayList<MBeanAttributeInfo>();
+        for (Map.Entry<String, Number> attribute : attributes().entrySet()) {
+            infos.add(new MBeanAttributeInfo(attribute.getKey(), attribute.getValue().getClass().getName(),
+                    attribute.getKey(), true, false, false));
+        }
+        return new MBeanInfo(getClass().getName(), "Cloudinary API call metrics",
+                infos.toArray(new MBeanAttributeInfo[infos.size()]), null, new MBeanOperationInfo[0], null);
+    }
+}
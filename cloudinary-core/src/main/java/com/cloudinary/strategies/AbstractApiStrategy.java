@@ -1,18 +1,119 @@
 package com.cloudinary.strategies;
 
+import java.io.IOException;
+import java.text.ParseException;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.cloudinary.Api;
 import com.cloudinary.Api.HttpMethod;
 import com.cloudinary.api.ApiResponse;
+import com.cloudinary.api.RateLimit;
+import com.cloudinary.api.RateLimiter;
+import com.cloudinary.api.exceptions.RateLimited;
+import com.cloudinary.metrics.CallEvent;
 
 public abstract class AbstractApiStrategy {
     protected Api api;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rateLimitRetries = new AtomicLong();
 
     public void init(Api api) {
         this.api = api;
     }
 
+    /**
+     * Release the connections held for this strategy's {@link com.cloudinary.Cloudinary} instance, see {@link com.cloudinary.Cloudinary#close()}.
+     */
+    public void close() throws IOException {
+    }
+
+    /**
+     * @return the stats of the connection pool, such as <code>leased</code> and <code>available</code> connections,
+     * or an empty map if the adapter does not report them
+     */
+    public Map<String, Number> getConnectionPoolStats() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Call {@link #callApi} and retry it when it fails, as decided by the {@link RetryPolicy} of the call.
+     * Calls wait for the {@link RateLimiter} of the instance, if any, which is updated from their responses,
+     * and are reported to its {@link com.cloudinary.metrics.CallListener}s.
+     */
+    @SuppressWarnings("rawtypes")
+    public ApiResponse callApiWithRetries(HttpMethod method, Iterable<String> uri, Map<String, ? extends Object> params, Map options) throws Exception {
+        CallEvent event = CallEvent.start(api.cloudinary, CallEvent.apiEndpoint(uri), method.name());
+        Exception error = null;
+        try {
+            return callApiWithRetries(method, uri, params, options, event);
+        } catch (Exception e) {
+            error = e;
+            throw e;
+        } finally {
+            if (event != null) event.finish(error);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ApiResponse callApiWithRetries(HttpMethod method, Iterable<String> uri, Map<String, ? extends Object> params, Map options, CallEvent event) throws Exception {
+        RetryPolicy policy = RetryPolicy.forCall(api.cloudinary.config, options);
+        RateLimiter limiter = api.cloudinary.apiRateLimiter();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (event != null) event.attempt(attempt);
+                if (limiter == null) return callApi(method, uri, params, options);
+                limiter.acquire();
+                ApiResponse response = callApi(method, uri, params, options);
+                updateRateLimiter(limiter, response, null);
+                return response;
+            } catch (Exception e) {
+                updateRateLimiter(limiter, null, e);
+                long delay = policy.retryDelay(attempt, e);
+                if (delay < 0) throw e;
+                retries.incrementAndGet();
+                if (RetryPolicy.isRateLimit(e)) rateLimitRetries.incrementAndGet();
+                RetryPolicy.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Update <code>limiter</code>, if any, with the rate limit reported by a call that returned <code>response</code>
+     * or failed with <code>error</code>. Rate limits whose headers cannot be parsed are ignored.
+     */
+    protected static void updateRateLimiter(RateLimiter limiter, ApiResponse response, Throwable error) {
+        if (limiter == null) return;
+        if (response != null) {
+            limiter.update(rateLimit(response));
+        } else if (error instanceof RateLimited) {
+            limiter.update(0, ((RateLimited) error).getReset());
+        }
+    }
+
+    private static RateLimit rateLimit(ApiResponse response) {
+        try {
+            return response.apiRateLimit();
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the number of calls retried so far
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * @return the number of calls retried so far after a rate limit error
+     */
+    public long getRateLimitRetryCount() {
+        return rateLimitRetries.get();
+    }
+
     @SuppressWarnings("rawtypes")
     public abstract ApiResponse callApi(HttpMethod method, Iterable<String> uri, Map<String, ? extends Object> params, Map options) throws Exception;
 }
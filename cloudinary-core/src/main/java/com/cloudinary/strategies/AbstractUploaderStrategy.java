@@ -1,13 +1,19 @@
 package com.cloudinary.strategies;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.Uploader;
+import com.cloudinary.metrics.CallEvent;
 
 public abstract class AbstractUploaderStrategy {
     protected Uploader uploader;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong rateLimitRetries = new AtomicLong();
 
     public void init(Uploader uploader) {
         this.uploader = uploader;
@@ -17,6 +23,87 @@ public abstract class AbstractUploaderStrategy {
         return this.uploader.cloudinary();
     }
 
+    /**
+     * @return true if {@link #callApi} accepts a {@link com.cloudinary.FileRegion} as the file, in which case large
+     * uploads of files are streamed from disk instead of being read into chunk buffers
+     */
+    public boolean supportsFileRegions() {
+        return false;
+    }
+
+    /**
+     * Release the connections held for this strategy's {@link Cloudinary} instance, see {@link Cloudinary#close()}.
+     */
+    public void close() throws IOException {
+    }
+
+    /**
+     * @return the stats of the connection pool, such as <code>leased</code> and <code>available</code> connections,
+     * or an empty map if the adapter does not report them
+     */
+    public Map<String, Number> getConnectionPoolStats() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * Call {@link #callApi} and retry it when it fails, as decided by the {@link RetryPolicy} of the call.
+     * Uploads of an {@link InputStream} are not retried, as the stream cannot be read again.
+     * Calls are reported to the {@link com.cloudinary.metrics.CallListener}s of the instance.
+     */
+    @SuppressWarnings("rawtypes")
+    public Map callApiWithRetries(String action, Map<String, Object> params, Map options, Object file) throws IOException {
+        CallEvent event = CallEvent.start(cloudinary(), CallEvent.uploadEndpoint(action), "POST");
+        Exception error = null;
+        try {
+            return callApiWithRetries(action, params, options, file, event);
+        } catch (IOException e) {
+            error = e;
+            throw e;
+        } catch (RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            if (event != null) event.finish(error);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private Map callApiWithRetries(String action, Map<String, Object> params, Map options, Object file, CallEvent event) throws IOException {
+        RetryPolicy policy = file instanceof InputStream ? RetryPolicy.NONE : RetryPolicy.forCall(cloudinary().config, options);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                if (event != null) event.attempt(attempt);
+                return callApi(action, params, options, file);
+            } catch (IOException e) {
+                awaitRetry(policy, attempt, e);
+            } catch (RuntimeException e) {
+                awaitRetry(policy, attempt, e);
+            }
+        }
+    }
+
+    private <E extends Exception> void awaitRetry(RetryPolicy policy, int attempt, E error) throws E, IOException {
+        long delay = policy.retryDelay(attempt, error);
+        if (delay < 0) throw error;
+        retries.incrementAndGet();
+        if (RetryPolicy.isRateLimit(error)) rateLimitRetries.incrementAndGet();
+        RetryPolicy.sleep(delay);
+    }
+
+    /**
+     * @return the number of calls retried so far
+     */
+    public long getRetryCount() {
+        return retries.get();
+    }
+
+    /**
+     * @return the number of calls retried so far after a rate limit error
+     */
+    public long getRateLimitRetryCount() {
+        return rateLimitRetries.get();
+    }
+
     @SuppressWarnings("rawtypes")
     public abstract Map callApi(String action, Map<String, Object> params, Map options, Object file) throws IOException;
 }
@@ -0,0 +1,35 @@
+package com.cloudinary.strategies;
+
+import java.util.Date;
+
+/**
+ * Thrown by upload strategies when the server answers with an error, so that the status code is available
+ * to the {@link RetryPolicy}.
+ */
+public class HttpStatusException extends RuntimeException {
+    private static final long serialVersionUID = 2740271394829547362L;
+
+    private final int statusCode;
+    private final Date rateLimitReset;
+
+    public HttpStatusException(String message, int statusCode) {
+        this(message, statusCode, null);
+    }
+
+    /**
+     * @param rateLimitReset the time the rate limit resets, for a 420 response that reported it
+     */
+    public HttpStatusException(String message, int statusCode, Date rateLimitReset) {
+        super(message);
+        this.statusCode = statusCode;
+        this.rateLimitReset = rateLimitReset;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Date getRateLimitReset() {
+        return rateLimitReset;
+    }
+}
@@ -0,0 +1,109 @@
+package com.cloudinary.strategies;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Random;
+
+import com.cloudinary.Configuration;
+import com.cloudinary.api.exceptions.GeneralError;
+import com.cloudinary.api.exceptions.RateLimited;
+import com.cloudinary.utils.ObjectUtils;
+
+/**
+ * Decides whether and when a failed API call or upload is retried by {@link AbstractApiStrategy#callApiWithRetries}
+ * and {@link AbstractUploaderStrategy#callApiWithRetries}.
+ * <p>
+ * Rate limited calls (420) wait until the <code>X-FeatureRateLimit-Reset</code> time reported by the server, and give up
+ * if it is further than the maximum delay. Server errors and I/O errors are retried after an exponential backoff with
+ * jitter. The policy of a call is the <code>retry_policy</code> option if given, otherwise it is built from the
+ * <code>max_retries</code> option and the retry settings of the {@link Configuration}. Subclass it to retry other errors.
+ */
+public class RetryPolicy {
+    public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0);
+
+    private final int maxRetries;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final Random random = new Random();
+
+    /**
+     * @param maxRetries number of retries of a failed call
+     * @param baseDelay  time in milliseconds before the first retry, doubled for each further retry
+     * @param maxDelay   longest time in milliseconds to wait before a retry
+     */
+    public RetryPolicy(int maxRetries, long baseDelay, long maxDelay) {
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    @SuppressWarnings("rawtypes")
+    public static RetryPolicy forCall(Configuration config, Map options) {
+        if (options == null) options = ObjectUtils.emptyMap();
+        Object policy = options.get("retry_policy");
+        if (policy instanceof RetryPolicy) return (RetryPolicy) policy;
+        int maxRetries = ObjectUtils.asInteger(options.get("max_retries"), config.maxRetries);
+        if (maxRetries <= 0) return NONE;
+        return new RetryPolicy(maxRetries, config.retryBaseDelay, config.retryMaxDelay);
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param attempt the number of the attempt that failed, starting with 1
+     * @param error   the error it failed with
+     * @return time in milliseconds to wait before the next attempt, or -1 to give up and throw <code>error</code>
+     */
+    public long retryDelay(int attempt, Exception error) {
+        if (attempt > maxRetries || !isRetryable(error)) return -1;
+        Date reset = rateLimitReset(error);
+        if (reset != null) {
+            long wait = reset.getTime() - System.currentTimeMillis();
+            if (wait > maxDelay) return -1;
+            if (wait > 0) return wait;
+        }
+        long delay = Math.min(maxDelay, baseDelay << Math.min(attempt - 1, 30));
+        // wait between half and all of the delay, so that clients failing together do not retry together
+        return delay / 2 + (long) (random.nextDouble() * (delay - delay / 2));
+    }
+
+    /**
+     * @return true for rate limits, server errors (5xx) and I/O errors other than a missing file
+     */
+    protected boolean isRetryable(Exception error) {
+        if (error instanceof RateLimited) return true;
+        if (error instanceof GeneralError) return ((GeneralError) error).getStatusCode() >= 500;
+        if (error instanceof HttpStatusException) {
+            int code = ((HttpStatusException) error).getStatusCode();
+            return code == 420 || code >= 500;
+        }
+        return error instanceof IOException && !(error instanceof FileNotFoundException);
+    }
+
+    /**
+     * @return the time the rate limit reported by <code>error</code> resets, or null
+     */
+    protected Date rateLimitReset(Exception error) {
+        if (error instanceof RateLimited) return ((RateLimited) error).getReset();
+        if (error instanceof HttpStatusException) return ((HttpStatusException) error).getRateLimitReset();
+        return null;
+    }
+
+    static boolean isRateLimit(Exception error) {
+        return error instanceof RateLimited || (error instanceof HttpStatusException && ((HttpStatusException) error).getStatusCode() == 420);
+    }
+
+    static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+}
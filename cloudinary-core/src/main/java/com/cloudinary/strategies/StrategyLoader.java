@@ -11,6 +11,8 @@ public class StrategyLoader {
             Class<?> clazz = Class.forName(className);
             result = (T) clazz.newInstance();
         } catch (Exception e) {
+        } catch (LinkageError e) {
+            // compiled for a newer Java version, or missing its dependencies
         }
         return result;
     }
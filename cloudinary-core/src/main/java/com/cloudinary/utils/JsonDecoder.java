@@ -0,0 +1,284 @@
+package com.cloudinary.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudinary.json.JSONException;
+import org.cloudinary.json.JSONObject;
+
+/**
+ * Decodes a UTF-8 JSON response straight from its stream into the <code>Map</code>/<code>List</code> structure
+ * returned by <code>ObjectUtils.toMap(new JSONObject(text))</code>, without holding the whole text nor an
+ * intermediate <code>JSONObject</code> tree in memory.
+ * <p>
+ * Values are typed as by {@link JSONObject#stringToValue(String)}, and JSON <code>null</code> becomes <code>null</code>.
+ * The objects and arrays of the bulky resource details ({@link #LAZY_KEYS}) are only checked for balanced brackets
+ * and kept as text, in a <code>Map</code> or <code>List</code> that decodes them the first time it is used.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class JsonDecoder {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String LITERAL_END = ",:]}/\\\"[{;=#";
+
+    /**
+     * The keys whose values are decoded when first used.
+     */
+    public static final Set<String> LAZY_KEYS = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "derived", "exif", "colors", "predominant", "image_metadata", "faces", "coordinates", "pages", "eager",
+            "responsive_breakpoints")));
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private long consumed;
+    private final StringBuilder text = new StringBuilder();
+
+    private JsonDecoder(InputStream in) {
+        this(new InputStreamReader(in, UTF8));
+    }
+
+    private JsonDecoder(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Decode a JSON object from <code>in</code>, which is read up to the end of the object and not closed.
+     *
+     * @throws JSONException if the stream does not hold a valid JSON object
+     */
+    public static Map<String, Object> decode(InputStream in) throws IOException, JSONException {
+        JsonDecoder decoder = new JsonDecoder(in);
+        if (decoder.nextClean() != '{') {
+            throw decoder.syntaxError("A JSONObject text must begin with '{'");
+        }
+        return decoder.readObject();
+    }
+
+    /**
+     * @return the length of the text of <code>value</code> if it is a value of {@link #LAZY_KEYS} not decoded yet,
+     * or -1
+     */
+    public static int pendingLength(Object value) {
+        if (value instanceof LazyJsonMap) return ((LazyJsonMap) value).pendingLength();
+        if (value instanceof LazyJsonList) return ((LazyJsonList) value).pendingLength();
+        return -1;
+    }
+
+    /**
+     * @return a copy of <code>value</code> that is not decoded either if it is a value of {@link #LAZY_KEYS} not
+     * decoded yet, or null
+     */
+    public static Object pendingCopy(Object value) {
+        if (value instanceof LazyJsonMap) return ((LazyJsonMap) value).pendingCopy();
+        if (value instanceof LazyJsonList) return ((LazyJsonList) value).pendingCopy();
+        return null;
+    }
+
+    /**
+     * Decode the JSON value in <code>json</code>, kept as text by a previous decoding.
+     */
+    static Object decodeValue(String json) {
+        JsonDecoder decoder = new JsonDecoder(new StringReader(json));
+        try {
+            return decoder.readValue(decoder.nextClean());
+        } catch (IOException e) {
+            // not thrown by a StringReader
+            throw new JSONException(e);
+        }
+    }
+
+    private Map<String, Object> readObject() throws IOException {
+        Map<String, Object> map = new HashMap<String, Object>();
+        int c = nextClean();
+        if (c == '}') return map;
+        while (true) {
+            if (c != '"') throw syntaxError("Expected a key");
+            String key = readString();
+            if (nextClean() != ':') throw syntaxError("Expected a ':' after a key");
+            c = nextClean();
+            map.put(key, (c == '{' || c == '[') && LAZY_KEYS.contains(key) ? readLazy(c) : readValue(c));
+            c = nextClean();
+            if (c == '}') return map;
+            if (c != ',') throw syntaxError("Expected a ',' or '}'");
+            c = nextClean();
+            if (c == '}') return map;
+        }
+    }
+
+    private List readArray() throws IOException {
+        List list = new ArrayList();
+        int c = nextClean();
+        if (c == ']') return list;
+        while (true) {
+            list.add(readValue(c));
+            c = nextClean();
+            if (c == ']') return list;
+            if (c != ',') throw syntaxError("Expected a ',' or ']'");
+            c = nextClean();
+            if (c == ']') return list;
+        }
+    }
+
+    private Object readValue(int c) throws IOException {
+        switch (c) {
+            case '"':
+                return readString();
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case -1:
+                throw syntaxError("Unexpected end of input");
+            default:
+                return readLiteral(c);
+        }
+    }
+
+    /**
+     * Read the object or array starting with <code>open</code> as text.
+     */
+    private Object readLazy(int open) throws IOException {
+        text.setLength(0);
+        text.append((char) open);
+        int depth = 1;
+        boolean inString = false;
+        while (depth > 0) {
+            if (position == limit && !fill()) throw syntaxError("Unterminated " + (open == '{' ? "object" : "array"));
+            // copy runs of characters that do not change the nesting at once
+            int start = position;
+            char c = 0;
+            while (position < limit) {
+                c = buffer[position];
+                if (c == '"' || c == '\\' || (!inString && (c == '{' || c == '[' || c == '}' || c == ']'))) break;
+                position++;
+            }
+            text.append(buffer, start, position - start);
+            if (position == limit) continue;
+            position++;
+            text.append(c);
+            if (c == '"') {
+                inString = !inString;
+            } else if (c == '\\') {
+                int escaped = read();
+                if (escaped == -1) throw syntaxError("Unterminated string");
+                text.append((char) escaped);
+            } else if (c == '{' || c == '[') {
+                depth++;
+            } else {
+                depth--;
+            }
+        }
+        return open == '{' ? new LazyJsonMap(text.toString()) : new LazyJsonList(text.toString());
+    }
+
+    private Object readLiteral(int c) throws IOException {
+        text.setLength(0);
+        while (c >= ' ' && LITERAL_END.indexOf(c) < 0) {
+            text.append((char) c);
+            c = read();
+        }
+        if (c != -1) position--;
+        String literal = text.toString().trim();
+        if (literal.length() == 0) throw syntaxError("Missing value");
+        Object value = JSONObject.stringToValue(literal);
+        return value == JSONObject.NULL ? null : value;
+    }
+
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) throw syntaxError("Unterminated string");
+            // copy runs of plain characters at once
+            int start = position;
+            char c = 0;
+            while (position < limit) {
+                c = buffer[position];
+                if (c == '"' || c == '\\' || c == '\n' || c == '\r') break;
+                position++;
+            }
+            text.append(buffer, start, position - start);
+            if (position == limit) continue;
+            position++;
+            switch (c) {
+                case '"':
+                    return text.toString();
+                case '\\':
+                    text.append(readEscape());
+                    break;
+                default:
+                    throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'f':
+                return '\f';
+            case 'r':
+                return '\r';
+            case 'u':
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit == -1) throw syntaxError("Illegal escape.");
+                    code = (code << 4) | digit;
+                }
+                return (char) code;
+            case '"':
+            case '\'':
+            case '\\':
+            case '/':
+                return (char) c;
+            default:
+                throw syntaxError("Illegal escape.");
+        }
+    }
+
+    private int nextClean() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1 || c > ' ') return c;
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        consumed += limit;
+        position = 0;
+        limit = reader.read(buffer);
+        if (limit <= 0) {
+            limit = 0;
+            return false;
+        }
+        return true;
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at " + (consumed + position));
+    }
+}
@@ -0,0 +1,79 @@
+package com.cloudinary.utils;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JSON array of a response kept as text by {@link JsonDecoder} and decoded the first time it is used, see
+ * {@link LazyJsonMap}.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+final class LazyJsonList extends AbstractList<Object> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String json;
+    private List<Object> list;
+
+    LazyJsonList(String json) {
+        this.json = json;
+    }
+
+    synchronized boolean isDecoded() {
+        return list != null;
+    }
+
+    /**
+     * @return the length of the text not decoded yet, or -1 once decoded
+     */
+    synchronized int pendingLength() {
+        return json == null ? -1 : json.length();
+    }
+
+    /**
+     * @return a copy that is not decoded either, or null once decoded
+     */
+    synchronized LazyJsonList pendingCopy() {
+        return json == null ? null : new LazyJsonList(json);
+    }
+
+    private synchronized List<Object> list() {
+        if (list == null) {
+            list = (List<Object>) JsonDecoder.decodeValue(json);
+            json = null;
+        }
+        return list;
+    }
+
+    @Override
+    public Object get(int index) {
+        return list().get(index);
+    }
+
+    @Override
+    public int size() {
+        return list().size();
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        return list().set(index, element);
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        list().add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public Object remove(int index) {
+        modCount++;
+        return list().remove(index);
+    }
+
+    private Object writeReplace() {
+        return new ArrayList<Object>(list());
+    }
+}
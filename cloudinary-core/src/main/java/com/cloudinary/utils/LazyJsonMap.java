@@ -0,0 +1,88 @@
+package com.cloudinary.utils;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A JSON object of a response kept as text by {@link JsonDecoder} and decoded the first time it is used, so that
+ * large nested objects that the caller does not read are not built.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+final class LazyJsonMap extends AbstractMap<String, Object> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String json;
+    private Map<String, Object> map;
+
+    LazyJsonMap(String json) {
+        this.json = json;
+    }
+
+    synchronized boolean isDecoded() {
+        return map != null;
+    }
+
+    /**
+     * @return the length of the text not decoded yet, or -1 once decoded
+     */
+    synchronized int pendingLength() {
+        return json == null ? -1 : json.length();
+    }
+
+    /**
+     * @return a copy that is not decoded either, or null once decoded
+     */
+    synchronized LazyJsonMap pendingCopy() {
+        return json == null ? null : new LazyJsonMap(json);
+    }
+
+    private synchronized Map<String, Object> map() {
+        if (map == null) {
+            map = (Map<String, Object>) JsonDecoder.decodeValue(json);
+            json = null;
+        }
+        return map;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return map().entrySet();
+    }
+
+    @Override
+    public int size() {
+        return map().size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map().containsKey(key);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return map().get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return map().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return map().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        map().clear();
+    }
+
+    private Object writeReplace() {
+        return new HashMap<String, Object>(map());
+    }
+}
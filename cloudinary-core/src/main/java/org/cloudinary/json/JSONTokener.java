@@ -5,7 +5,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
-import java.io.StringReader;
 
 /*
 Copyright (c) 2002 JSON.org
@@ -49,6 +48,20 @@ public class JSONTokener {
     private Reader reader;
     private boolean usePrevious;
 
+    /*
+     * When parsing a string, the characters are read from this buffer instead
+     * of the reader: position is the number of characters consumed, which may
+     * exceed the length by one once the end was read, and the line and
+     * character of syntax errors are only computed when reported. As reading
+     * a line break again after back() counts it again, the position of the
+     * last back() and the number of line breaks stepped back over are kept.
+     */
+    private final char[] buffer;
+    private int position;
+    private int length;
+    private int lastBack = -1;
+    private int backedLineBreaks;
+
 
     /**
      * Construct a JSONTokener from a Reader.
@@ -56,6 +69,7 @@ public class JSONTokener {
      * @param reader A reader.
      */
     public JSONTokener(Reader reader) {
+        this.buffer = null;
         this.reader = reader.markSupported()
                 ? reader
                 : new BufferedReader(reader);
@@ -84,7 +98,8 @@ public class JSONTokener {
      * @param s A source string.
      */
     public JSONTokener(String s) {
-        this(new StringReader(s));
+        this.buffer = s.toCharArray();
+        this.length = this.buffer.length;
     }
 
 
@@ -94,6 +109,17 @@ public class JSONTokener {
      * the next number or identifier.
      */
     public void back() throws JSONException {
+        if (this.buffer != null) {
+            if (this.position <= 0) {
+                throw new JSONException("Stepping back two steps is not supported");
+            }
+            this.position -= 1;
+            this.lastBack = this.position;
+            if (isLineBreak(this.charAt(this.position))) {
+                this.backedLineBreaks += 1;
+            }
+            return;
+        }
         if (this.usePrevious || this.index <= 0) {
             throw new JSONException("Stepping back two steps is not supported");
         }
@@ -125,6 +151,9 @@ public class JSONTokener {
     }
 
     public boolean end() {
+        if (this.buffer != null) {
+            return this.position > this.length;
+        }
         return this.eof && !this.usePrevious;
     }
 
@@ -151,6 +180,13 @@ public class JSONTokener {
      * @return The next character, or 0 if past the end of the source string.
      */
     public char next() throws JSONException {
+        if (this.buffer != null) {
+            if (this.position < this.length) {
+                return this.buffer[this.position++];
+            }
+            this.position = this.length + 1;
+            return 0;
+        }
         int c;
         if (this.usePrevious) {
             this.usePrevious = false;
@@ -256,6 +292,9 @@ public class JSONTokener {
      * @throws JSONException Unterminated string.
      */
     public String nextString(char quote) throws JSONException {
+        if (this.buffer != null) {
+            return this.nextBufferedString(quote);
+        }
         char c;
         StringBuilder sb = new StringBuilder();
         for (; ; ) {
@@ -266,35 +305,7 @@ public class JSONTokener {
                 case '\r':
                     throw this.syntaxError("Unterminated string");
                 case '\\':
-                    c = this.next();
-                    switch (c) {
-                        case 'b':
-                            sb.append('\b');
-                            break;
-                        case 't':
-                            sb.append('\t');
-                            break;
-                        case 'n':
-                            sb.append('\n');
-                            break;
-                        case 'f':
-                            sb.append('\f');
-                            break;
-                        case 'r':
-                            sb.append('\r');
-                            break;
-                        case 'u':
-                            sb.append((char) Integer.parseInt(this.next(4), 16));
-                            break;
-                        case '"':
-                        case '\'':
-                        case '\\':
-                        case '/':
-                            sb.append(c);
-                            break;
-                        default:
-                            throw this.syntaxError("Illegal escape.");
-                    }
+                    sb.append(this.nextEscaped());
                     break;
                 default:
                     if (c == quote) {
@@ -306,6 +317,73 @@ public class JSONTokener {
     }
 
 
+    /**
+     * Scan the string in the buffer, copying the runs of characters between
+     * escapes at once.
+     */
+    private String nextBufferedString(char quote) throws JSONException {
+        char[] buffer = this.buffer;
+        StringBuilder sb = null;
+        int start = this.position;
+        for (; ; ) {
+            if (this.position >= this.length) {
+                this.position = this.length + 1;
+                throw this.syntaxError("Unterminated string");
+            }
+            char c = buffer[this.position++];
+            if (c == quote) {
+                int end = this.position - 1;
+                if (sb == null) {
+                    return new String(buffer, start, end - start);
+                }
+                return sb.append(buffer, start, end - start).toString();
+            }
+            if (c == '\\') {
+                if (sb == null) {
+                    sb = new StringBuilder(this.position - start + 16);
+                }
+                sb.append(buffer, start, this.position - 1 - start);
+                sb.append(this.nextEscaped());
+                start = this.position;
+            } else if (c == 0 || c == '\n' || c == '\r') {
+                throw this.syntaxError("Unterminated string");
+            }
+        }
+    }
+
+
+    /**
+     * Read the character following a backslash in a string.
+     *
+     * @return The character it stands for.
+     * @throws JSONException Illegal escape.
+     */
+    private char nextEscaped() throws JSONException {
+        char c = this.next();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'f':
+                return '\f';
+            case 'r':
+                return '\r';
+            case 'u':
+                return (char) Integer.parseInt(this.next(4), 16);
+            case '"':
+            case '\'':
+            case '\\':
+            case '/':
+                return c;
+            default:
+                throw this.syntaxError("Illegal escape.");
+        }
+    }
+
+
     /**
      * Get the text up but not including the specified character or the
      * end of line, whichever comes first.
@@ -384,6 +462,9 @@ public class JSONTokener {
          * formatting character.
          */
 
+        if (this.buffer != null) {
+            return this.nextBufferedValue(c);
+        }
         StringBuilder sb = new StringBuilder();
         while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
             sb.append(c);
@@ -399,6 +480,82 @@ public class JSONTokener {
     }
 
 
+    /**
+     * Scan the unquoted text starting with c in the buffer, parsing integers
+     * and the literals without going through {@link JSONObject#stringToValue}.
+     */
+    private Object nextBufferedValue(char c) throws JSONException {
+        char[] buffer = this.buffer;
+        int start = this.position - 1;
+        int end = start;
+        while (end < this.length && isUnquoted(buffer[end])) {
+            end += 1;
+        }
+        // read the character ending the text and step back, as the reader does
+        this.position = end + 1;
+        this.back();
+        while (end > start && buffer[end - 1] <= ' ') {
+            end -= 1;
+        }
+        if (end <= start) {
+            throw this.syntaxError("Missing value");
+        }
+        int count = end - start;
+        if (c == 't' && count == 4 && buffer[start + 1] == 'r' && buffer[start + 2] == 'u' && buffer[start + 3] == 'e') {
+            return Boolean.TRUE;
+        }
+        if (c == 'f' && count == 5 && buffer[start + 1] == 'a' && buffer[start + 2] == 'l' && buffer[start + 3] == 's'
+                && buffer[start + 4] == 'e') {
+            return Boolean.FALSE;
+        }
+        if (c == 'n' && count == 4 && buffer[start + 1] == 'u' && buffer[start + 2] == 'l' && buffer[start + 3] == 'l') {
+            return JSONObject.NULL;
+        }
+        Object number = parseInteger(buffer, start, end);
+        if (number != null) {
+            return number;
+        }
+        return JSONObject.stringToValue(new String(buffer, start, count));
+    }
+
+
+    private static boolean isUnquoted(char c) {
+        return c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0;
+    }
+
+
+    /**
+     * Parse an integer written the way {@link JSONObject#stringToValue} reads
+     * it back, without leading zeros or a negative zero, that is small enough
+     * not to overflow.
+     *
+     * @return An Integer or a Long, or null to parse the text otherwise.
+     */
+    private static Object parseInteger(char[] buffer, int start, int end) {
+        boolean negative = buffer[start] == '-';
+        int first = negative ? start + 1 : start;
+        int digits = end - first;
+        if (digits < 1 || digits > 18 || (buffer[first] == '0' && (digits > 1 || negative))) {
+            return null;
+        }
+        long value = 0;
+        for (int i = first; i < end; i++) {
+            char d = buffer[i];
+            if (d < '0' || d > '9') {
+                return null;
+            }
+            value = value * 10 + (d - '0');
+        }
+        if (negative) {
+            value = -value;
+        }
+        if (value == (int) value) {
+            return Integer.valueOf((int) value);
+        }
+        return Long.valueOf(value);
+    }
+
+
     /**
      * Skip characters until the next character is the requested character.
      * If the requested character is not found, no characters are skipped.
@@ -409,6 +566,18 @@ public class JSONTokener {
      */
     public char skipTo(char to) throws JSONException {
         char c;
+        if (this.buffer != null) {
+            int start = this.position;
+            do {
+                c = this.next();
+                if (c == 0) {
+                    this.position = start;
+                    return c;
+                }
+            } while (c != to);
+            this.back();
+            return c;
+        }
         try {
             long startIndex = this.index;
             long startCharacter = this.character;
@@ -443,12 +612,64 @@ public class JSONTokener {
     }
 
 
+    private char charAt(int i) {
+        return i < this.length ? this.buffer[i] : 0;
+    }
+
+
+    private static boolean isLineBreak(char c) {
+        return c == '\r' || c == '\n';
+    }
+
+
+    /**
+     * Compute the index, line and character of the buffered position the way
+     * next() and back() count them when reading: back() only steps back one
+     * character, and each line break read again counts as a new line.
+     */
+    private void locate() {
+        boolean unread = this.position == this.lastBack;
+        int end = unread ? this.position + 1 : this.position;
+        this.index = this.position;
+        this.character = 1;
+        this.line = 1;
+        char previous = 0;
+        for (int i = 0; i < end; i++) {
+            char c = this.charAt(i);
+            if (previous == '\r') {
+                this.line += 1;
+                this.character = c == '\n' ? 0 : 1;
+            } else if (c == '\n') {
+                this.line += 1;
+                this.character = 0;
+            } else {
+                this.character += 1;
+            }
+            previous = c;
+        }
+        this.line += this.backedLineBreaks;
+        if (unread) {
+            // stepped back over, and not read again
+            this.character -= 1;
+            if (isLineBreak(this.charAt(this.position))) {
+                this.line -= 1;
+            }
+        } else if (this.position - 1 == this.lastBack && this.charAt(this.lastBack) == '\r') {
+            // read again right after itself
+            this.character = 1;
+        }
+    }
+
+
     /**
      * Make a printable string of this JSONTokener.
      *
      * @return " at {index} [character {character} line {line}]"
      */
     public String toString() {
+        if (this.buffer != null) {
+            this.locate();
+        }
         return " at " + this.index + " [character " + this.character + " line " +
                 this.line + "]";
     }
@@ -0,0 +1,124 @@
+package com.cloudinary;
+
+import com.cloudinary.api.exceptions.GeneralError;
+import com.cloudinary.strategies.StubApiStrategy;
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class BulkDeleteTest {
+
+    @Test
+    public void testDeletePublicIds() throws Exception {
+        DeletingStrategy strategy = new DeletingStrategy();
+        Api api = new Api(StubApiStrategy.cloudinary(null), strategy);
+        // ids are generated lazily, as read from a listing or a file
+        Iterator<String> ids = new Iterator<String>() {
+            int next;
+
+            public boolean hasNext() {
+                return next < 1050;
+            }
+
+            public String next() {
+                int id = next++;
+                return id == 500 ? "fail" : id % 10 == 0 ? "missing" + id : "id" + id;
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+        Map result = api.bulkDeleteResources(ids, ObjectUtils.asMap("parallel_requests", 3, "invalidate", true));
+
+        assertEquals(11L, result.get("requests"));
+        assertEquals(11, strategy.calls.get());
+        assertTrue("should send batches in parallel", strategy.maxInFlight.get() > 1);
+        assertTrue("should bound the calls in flight", strategy.maxInFlight.get() <= 3);
+        assertEquals(100, strategy.maxBatch.get());
+        Map counts = (Map) result.get("deleted_counts");
+        assertEquals(855L, ((Long) counts.get("deleted")).longValue());
+        assertEquals(95L, ((Long) counts.get("not_found")).longValue());
+        List failed = (List) result.get("failed");
+        assertEquals(100, failed.size());
+        assertTrue(failed.contains("fail"));
+        assertEquals(1, ((List) result.get("errors")).size());
+    }
+
+    @Test
+    public void testDeleteByPrefix() throws Exception {
+        DeletingStrategy strategy = new DeletingStrategy();
+        strategy.remaining = 250;
+        Api api = new Api(StubApiStrategy.cloudinary(null), strategy);
+        Map result = api.bulkDeleteResourcesByPrefix("folder/", null);
+        assertEquals(3L, result.get("requests"));
+        assertEquals(250L, ((Map) result.get("deleted_counts")).get("deleted"));
+        assertNull(result.get("errors"));
+        assertEquals("folder/", strategy.lastParams.get("prefix"));
+        assertEquals("cursor2", strategy.lastParams.get("next_cursor"));
+
+        strategy.remaining = 250;
+        strategy.page = 0;
+        strategy.failPage = 2;
+        result = api.bulkDeleteResourcesByTag("cleanup", null);
+        assertEquals(2L, result.get("requests"));
+        assertEquals("should report where to continue from", "cursor1", result.get("next_cursor"));
+        assertEquals(1, ((List) result.get("errors")).size());
+    }
+
+    private static class DeletingStrategy extends StubApiStrategy {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final AtomicInteger maxBatch = new AtomicInteger();
+        volatile Map lastParams;
+        int remaining;
+        int page;
+        int failPage = -1;
+
+        @Override
+        protected Map respond(Api.HttpMethod method, String path, Map<String, ? extends Object> params) throws Exception {
+            assertEquals(Api.HttpMethod.DELETE, method);
+            calls.incrementAndGet();
+            lastParams = params;
+            int current = inFlight.incrementAndGet();
+            try {
+                synchronized (maxInFlight) {
+                    maxInFlight.set(Math.max(maxInFlight.get(), current));
+                }
+                Thread.sleep(20);
+                Map deleted = new HashMap();
+                Iterable<String> publicIds = (Iterable<String>) params.get("public_ids");
+                if (publicIds == null) {
+                    // deletion by prefix or tag, 100 at a time
+                    if (++page == failPage) throw new GeneralError("Server returned unexpected status code - 502");
+                    int count = Math.min(100, remaining);
+                    remaining -= count;
+                    for (int i = 0; i < count; i++) deleted.put("p" + page + "_" + i, "deleted");
+                    Map result = ObjectUtils.asMap("deleted", deleted, "partial", remaining > 0);
+                    if (remaining > 0) result.put("next_cursor", "cursor" + page);
+                    return result;
+                }
+                List<String> ids = new ArrayList<String>();
+                for (String id : publicIds) ids.add(id);
+                synchronized (maxBatch) {
+                    maxBatch.set(Math.max(maxBatch.get(), ids.size()));
+                }
+                if (ids.contains("fail")) throw new GeneralError("Server returned unexpected status code - 502");
+                for (String id : ids) deleted.put(id, id.startsWith("missing") ? "not_found" : "deleted");
+                return ObjectUtils.asMap("deleted", deleted, "partial", false);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
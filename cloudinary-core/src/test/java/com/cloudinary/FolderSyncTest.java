@@ -0,0 +1,219 @@
+package com.cloudinary;
+
+import com.cloudinary.strategies.AbstractUploaderStrategy;
+import com.cloudinary.strategies.StubApiStrategy;
+import com.cloudinary.utils.ObjectUtils;
+import com.cloudinary.utils.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class FolderSyncTest {
+    private final Map<String, Map> remote = new ConcurrentHashMap<String, Map>();
+    private final List<String> uploads = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicBoolean failOnce = new AtomicBoolean(true);
+    private Api api;
+    private Uploader uploader;
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        Cloudinary cloudinary = StubApiStrategy.cloudinary(null);
+        api = new Api(cloudinary, new StoreApiStrategy());
+        uploader = new Uploader(cloudinary, new StoreUploaderStrategy());
+        directory = File.createTempFile("folder_sync", "");
+        assertTrue(directory.delete() && directory.mkdir());
+        for (int i = 0; i < 10; i++) {
+            write("image" + i + ".jpg", "content " + i);
+        }
+        write("sub/nested.png", "nested");
+    }
+
+    @After
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void testUploadsOnlyChanges() throws Exception {
+        Map result = sync(ObjectUtils.asMap("parallel_uploads", 3));
+        assertEquals(11L, result.get("uploaded"));
+        assertEquals(0L, result.get("unchanged"));
+        assertEquals(11L, result.get("hashed"));
+        assertTrue("should upload in parallel", maxInFlight.get() > 1);
+        assertTrue("should bound the uploads in flight", maxInFlight.get() <= 3);
+        assertTrue(remote.containsKey("backup/sub/nested"));
+        assertTrue(remote.containsKey("backup/image0"));
+        assertTrue(new File(directory, FolderSync.DEFAULT_MANIFEST).isFile());
+        assertNotNull(result.get("files_per_second"));
+        assertNull(result.get("failed"));
+
+        uploads.clear();
+        result = sync(null);
+        assertEquals(0L, result.get("uploaded"));
+        assertEquals(11L, result.get("unchanged"));
+        assertEquals("should trust the manifest for unmodified files", 0L, result.get("hashed"));
+        assertTrue(uploads.isEmpty());
+
+        write("image3.jpg", "modified content");
+        write("new.jpg", "new");
+        result = sync(null);
+        assertEquals(2L, result.get("uploaded"));
+        assertEquals(2L, result.get("hashed"));
+        assertEquals(Arrays.asList("backup/image3", "backup/new"), sorted(uploads));
+        assertEquals(md5("modified content"), remote.get("backup/image3").get("etag"));
+    }
+
+    @Test
+    public void testWithoutManifest() throws Exception {
+        sync(null);
+        assertTrue(new File(directory, FolderSync.DEFAULT_MANIFEST).delete());
+        remote.get("backup/image5").put("etag", "stale");
+        uploads.clear();
+        Map result = sync(null);
+        assertEquals("should compare the etags of the resources", Arrays.asList("backup/image5"), uploads);
+        assertEquals(10L, result.get("unchanged"));
+    }
+
+    @Test
+    public void testOrphans() throws Exception {
+        sync(null);
+        assertTrue(new File(directory, "image7.jpg").delete());
+        Map result = sync(null);
+        assertEquals(Arrays.asList("backup/image7"), result.get("orphans"));
+        assertNull(result.get("deleted"));
+        assertTrue(remote.containsKey("backup/image7"));
+
+        result = sync(ObjectUtils.asMap("delete_orphans", true));
+        assertNotNull(result.get("deleted"));
+        assertFalse(remote.containsKey("backup/image7"));
+        assertEquals(10, remote.size());
+    }
+
+    @Test
+    public void testFailedUpload() throws Exception {
+        write("fail.jpg", "fail");
+        Map result = sync(null);
+        assertEquals(11L, result.get("uploaded"));
+        assertEquals(Arrays.asList("fail.jpg"), result.get("failed"));
+
+        uploads.clear();
+        result = sync(null);
+        assertEquals("should retry the failed upload", Arrays.asList("backup/fail"), uploads);
+    }
+
+    private Map sync(Map options) throws Exception {
+        return new FolderSync(api, uploader, directory, "backup", options).run();
+    }
+
+    private void write(String path, String content) throws IOException {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) delete(child);
+        }
+        file.delete();
+    }
+
+    private static List<String> sorted(List<String> list) {
+        List<String> copy = new ArrayList<String>(list);
+        Collections.sort(copy);
+        return copy;
+    }
+
+    private static String md5(String content) throws Exception {
+        return md5(content.getBytes("UTF-8"));
+    }
+
+    private static String md5(byte[] content) throws Exception {
+        return StringUtils.encodeHexString(MessageDigest.getInstance("MD5").digest(content));
+    }
+
+    private class StoreApiStrategy extends StubApiStrategy {
+        @Override
+        protected Map respond(Api.HttpMethod method, String path, Map<String, ? extends Object> params) {
+            if (method == Api.HttpMethod.DELETE) {
+                Map deleted = new HashMap();
+                for (String publicId : (Iterable<String>) params.get("public_ids")) {
+                    deleted.put(publicId, remote.remove(publicId) != null ? "deleted" : "not_found");
+                }
+                return ObjectUtils.asMap("deleted", deleted, "partial", false);
+            }
+            String prefix = (String) params.get("prefix");
+            List resources = new ArrayList();
+            for (Map resource : remote.values()) {
+                if (((String) resource.get("public_id")).startsWith(prefix)) resources.add(new HashMap(resource));
+            }
+            return ObjectUtils.asMap("resources", resources);
+        }
+    }
+
+    private class StoreUploaderStrategy extends AbstractUploaderStrategy {
+        @Override
+        public Map callApi(String action, Map<String, Object> params, Map options, Object file) throws IOException {
+            assertEquals("upload", action);
+            assertEquals("true", String.valueOf(params.get("overwrite")));
+            int now = inFlight.incrementAndGet();
+            synchronized (maxInFlight) {
+                maxInFlight.set(Math.max(maxInFlight.get(), now));
+            }
+            try {
+                Thread.sleep(10);
+                File source = (File) file;
+                if (source.getName().equals("fail.jpg") && failOnce.getAndSet(false)) {
+                    throw new IOException("upload failed");
+                }
+                byte[] content = new byte[(int) source.length()];
+                InputStream in = new FileInputStream(source);
+                try {
+                    assertEquals(content.length, in.read(content));
+                } finally {
+                    in.close();
+                }
+                String publicId = (String) params.get("public_id");
+                uploads.add(publicId);
+                Map resource = ObjectUtils.asMap("public_id", publicId, "bytes", content.length, "etag", md5(content));
+                remote.put(publicId, resource);
+                return new HashMap(resource);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.cloudinary;
+
+import com.cloudinary.api.exceptions.GeneralError;
+import com.cloudinary.strategies.StubApiStrategy;
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class PagedIteratorTest {
+
+    @Test
+    public void testIterateResources() throws Exception {
+        PagingStrategy strategy = new PagingStrategy("resources", 3, 2);
+        Api api = new Api(StubApiStrategy.cloudinary(null), strategy);
+        Iterator<Map> resources = api.iterateResources(ObjectUtils.asMap("type", "upload", "max_results", 2));
+        assertEquals("should not fetch before iterating", 0, strategy.calls.size());
+
+        List<Object> ids = new ArrayList<Object>();
+        ids.add(resources.next().get("public_id"));
+        waitForCalls(strategy, 2);
+        assertEquals("should prefetch the next page", 2, strategy.calls.size());
+        while (resources.hasNext()) {
+            ids.add(resources.next().get("public_id"));
+        }
+        assertEquals(Arrays.asList("p0_0", "p0_1", "p1_0", "p1_1", "p2_0", "p2_1"), ids);
+        assertEquals(3, strategy.calls.size());
+        assertEquals("resources/image/upload", strategy.calls.get(0).get("uri"));
+        assertNull(strategy.calls.get(0).get("next_cursor"));
+        assertEquals("cursor1", strategy.calls.get(1).get("next_cursor"));
+        assertEquals(2, strategy.calls.get(2).get("max_results"));
+        try {
+            resources.next();
+            fail("should be exhausted");
+        } catch (NoSuchElementException ignored) {
+        }
+    }
+
+    @Test
+    public void testIterateTags() throws Exception {
+        PagingStrategy strategy = new PagingStrategy("tags", 2, 1);
+        Api api = new Api(StubApiStrategy.cloudinary(null), strategy);
+        Iterator<String> tags = api.iterateTags(null);
+        assertEquals("p0_0", tags.next());
+        assertEquals("p1_0", tags.next());
+        assertFalse(tags.hasNext());
+        assertEquals("tags/image", strategy.calls.get(0).get("uri"));
+    }
+
+    @Test
+    public void testPageError() throws Exception {
+        PagingStrategy strategy = new PagingStrategy("transformations", 3, 1);
+        strategy.failOnPage = 1;
+        Api api = new Api(StubApiStrategy.cloudinary(null), strategy);
+        Iterator<Map> transformations = api.iterateTransformations(null);
+        assertEquals("p0_0", transformations.next().get("public_id"));
+        try {
+            transformations.hasNext();
+            fail("should throw the error of the page");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof GeneralError);
+        }
+        assertEquals("should fetch the failed page again", "p1_0", transformations.next().get("public_id"));
+        assertEquals("p2_0", transformations.next().get("public_id"));
+        assertFalse(transformations.hasNext());
+    }
+
+    @Test
+    public void testFirstPageError() throws Exception {
+        PagingStrategy strategy = new PagingStrategy("resources", 2, 1);
+        strategy.failOnPage = 0;
+        Api api = new Api(StubApiStrategy.cloudinary(null), strategy);
+        Iterator<Map> resources = api.iterateResources(null);
+        try {
+            resources.hasNext();
+            fail("should throw the error of the page");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof GeneralError);
+        }
+        assertTrue("should not end the listing", resources.hasNext());
+        assertEquals("p0_0", resources.next().get("public_id"));
+        assertEquals("p1_0", resources.next().get("public_id"));
+        assertFalse(resources.hasNext());
+    }
+
+    private static void waitForCalls(PagingStrategy strategy, int calls) throws InterruptedException {
+        for (int i = 0; i < 100 && strategy.calls.size() < calls; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static class PagingStrategy extends StubApiStrategy {
+        final List<Map> calls = new CopyOnWriteArrayList<Map>();
+        final String itemsKey;
+        final int pages;
+        final int pageSize;
+        // fails once
+        volatile int failOnPage = -1;
+
+        PagingStrategy(String itemsKey, int pages, int pageSize) {
+            this.itemsKey = itemsKey;
+            this.pages = pages;
+            this.pageSize = pageSize;
+        }
+
+        @Override
+        protected Map respond(Api.HttpMethod method, String path, Map<String, ? extends Object> params) throws Exception {
+            Map call = new HashMap(params);
+            call.put("uri", path);
+            calls.add(call);
+            String cursor = (String) params.get("next_cursor");
+            int page = cursor == null ? 0 : Integer.parseInt(cursor.substring("cursor".length()));
+            if (page == failOnPage) {
+                failOnPage = -1;
+                throw new GeneralError("Server returned unexpected status code - 502", 502);
+            }
+            List items = new ArrayList();
+            for (int i = 0; i < pageSize; i++) {
+                String id = "p" + page + "_" + i;
+                items.add(itemsKey.equals("tags") ? id : ObjectUtils.asMap("public_id", id));
+            }
+            Map result = ObjectUtils.asMap(itemsKey, items);
+            if (page + 1 < pages) result.put("next_cursor", "cursor" + (page + 1));
+            return result;
+        }
+    }
+}
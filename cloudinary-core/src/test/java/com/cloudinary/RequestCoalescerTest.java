@@ -0,0 +1,182 @@
+package com.cloudinary;
+
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.api.exceptions.NotFound;
+import com.cloudinary.strategies.StubApiStrategy;
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class RequestCoalescerTest {
+
+    @Test
+    public void testConcurrentIdenticalCalls() throws Exception {
+        Cloudinary cloudinary = StubApiStrategy.cloudinary("coalesce_requests=true");
+        final BlockingStrategy strategy = new BlockingStrategy();
+        final Api api = new Api(cloudinary, strategy);
+        List<Future<ApiResponse>> results = callConcurrently(cloudinary, strategy, 8, new Callable<ApiResponse>() {
+            @Override
+            public ApiResponse call() throws Exception {
+                return api.resource("sample", null);
+            }
+        });
+        for (Future<ApiResponse> result : results) {
+            assertEquals("sample", result.get().get("public_id"));
+        }
+        assertEquals(1, strategy.calls.get());
+        assertEquals(8, cloudinary.requestCoalescer().calls());
+        assertEquals(7, cloudinary.requestCoalescer().coalesced());
+        assertEquals(0, cloudinary.requestCoalescer().inFlight());
+
+        results.get(0).get().put("public_id", "changed");
+        assertEquals("should not share the response map", "sample", results.get(1).get().get("public_id"));
+        ((List) results.get(1).get().get("tags")).add("changed");
+        assertEquals("should not share the nested lists", Arrays.asList("a"), results.get(2).get().get("tags"));
+
+        api.resource("sample", null);
+        assertEquals("should not keep completed responses", 2, strategy.calls.get());
+    }
+
+    @Test
+    public void testSharedError() throws Exception {
+        Cloudinary cloudinary = StubApiStrategy.cloudinary("coalesce_requests=true");
+        final BlockingStrategy strategy = new BlockingStrategy();
+        final Api api = new Api(cloudinary, strategy);
+        List<Future<ApiResponse>> results = callConcurrently(cloudinary, strategy, 3, new Callable<ApiResponse>() {
+            @Override
+            public ApiResponse call() throws Exception {
+                return api.resource("missing", null);
+            }
+        });
+        for (Future<ApiResponse> result : results) {
+            try {
+                result.get();
+                fail("should throw the error of the shared call");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof NotFound);
+            }
+        }
+        assertEquals(1, strategy.calls.get());
+    }
+
+    @Test
+    public void testUpdateDuringCallWithCache() throws Exception {
+        Cloudinary cloudinary = StubApiStrategy.cloudinary("coalesce_requests=true&resource_cache_max_weight=1000");
+        final UpdatingStrategy strategy = new UpdatingStrategy();
+        final Api api = new Api(cloudinary, strategy);
+        Callable<ApiResponse> read = new Callable<ApiResponse>() {
+            @Override
+            public ApiResponse call() throws Exception {
+                return api.resource("sample", null);
+            }
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<ApiResponse> before = executor.submit(read);
+            strategy.firstGet.await();
+            api.update("sample", ObjectUtils.asMap("tags", "new"));
+            Future<ApiResponse> after = executor.submit(read);
+            for (int i = 0; i < 100 && strategy.gets.get() < 2 && cloudinary.requestCoalescer().coalesced() == 0; i++) {
+                Thread.sleep(10);
+            }
+            strategy.release.countDown();
+            assertEquals("old", before.get().get("tags"));
+            assertEquals("should not share a request sent before the update", "new", after.get().get("tags"));
+            assertEquals(0, cloudinary.requestCoalescer().coalesced());
+            assertEquals("should cache the response read after the update", "new", api.resource("sample", null).get("tags"));
+            assertEquals(2, strategy.gets.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testKey() {
+        Configuration config = new Configuration(ObjectUtils.asMap("cloud_name", "test123", "api_key", "a"));
+        RequestCoalescer coalescer = new RequestCoalescer();
+        List<String> uri = new ArrayList<String>();
+        uri.add("resources");
+        String key = coalescer.key(Api.HttpMethod.GET, uri, ObjectUtils.asMap("a", 1, "b", 2), ObjectUtils.emptyMap(), config);
+        assertEquals(key, coalescer.key(Api.HttpMethod.GET, uri, ObjectUtils.asMap("b", 2, "a", 1), ObjectUtils.emptyMap(), config));
+        assertFalse(key.equals(coalescer.key(Api.HttpMethod.GET, uri, ObjectUtils.asMap("a", 1), ObjectUtils.emptyMap(), config)));
+        assertFalse(key.equals(coalescer.key(Api.HttpMethod.GET, uri, ObjectUtils.asMap("a", 1, "b", 2),
+                ObjectUtils.asMap("cloud_name", "other"), config)));
+        assertFalse("should not share responses authenticated with another secret", key.equals(coalescer.key(
+                Api.HttpMethod.GET, uri, ObjectUtils.asMap("a", 1, "b", 2), ObjectUtils.asMap("api_secret", "wrong"), config)));
+        assertFalse("should not hold the secret", coalescer.key(Api.HttpMethod.GET, uri, ObjectUtils.emptyMap(),
+                ObjectUtils.asMap("api_secret", "wrong"), config).contains("wrong"));
+    }
+
+    /**
+     * Run <code>task</code> from <code>threads</code> threads, holding the API calls until all of them were made.
+     */
+    private static List<Future<ApiResponse>> callConcurrently(Cloudinary cloudinary, BlockingStrategy strategy, int threads,
+                                                             Callable<ApiResponse> task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<ApiResponse>> results = new ArrayList<Future<ApiResponse>>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(task));
+            }
+            for (int i = 0; i < 500 && cloudinary.requestCoalescer().calls() < threads; i++) {
+                Thread.sleep(10);
+            }
+            strategy.release.countDown();
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static class BlockingStrategy extends StubApiStrategy {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        protected Map respond(Api.HttpMethod method, String path, Map<String, ? extends Object> params) throws Exception {
+            calls.incrementAndGet();
+            release.await();
+            String publicId = lastComponent(path);
+            if ("missing".equals(publicId)) throw new NotFound("Resource not found - missing");
+            return ObjectUtils.asMap("public_id", publicId, "tags", new ArrayList(Arrays.asList("a")));
+        }
+    }
+
+    /**
+     * Holds the first read of a resource after reading its tags, so that an update can happen during the call.
+     */
+    private static class UpdatingStrategy extends StubApiStrategy {
+        final AtomicInteger gets = new AtomicInteger();
+        final CountDownLatch firstGet = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile String tags = "old";
+
+        @Override
+        protected Map respond(Api.HttpMethod method, String path, Map<String, ? extends Object> params) throws Exception {
+            if (method != Api.HttpMethod.GET) {
+                tags = String.valueOf(params.get("tags"));
+                return ObjectUtils.asMap("public_id", lastComponent(path));
+            }
+            Map response = ObjectUtils.asMap("public_id", lastComponent(path), "tags", tags);
+            if (gets.incrementAndGet() == 1) {
+                firstGet.countDown();
+                release.await();
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.cloudinary;
+
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.strategies.StubApiStrategy;
+import com.cloudinary.strategies.AbstractUploaderStrategy;
+import com.cloudinary.utils.JsonDecoder;
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ResourceCacheTest {
+
+    @Test
+    public void testHitsAndTtl() {
+        ResourceCache cache = new ResourceCache(100, 10);
+        assertNull(cache.get("sample", "v", 0));
+        cache.put("sample", "v", ObjectUtils.asMap("public_id", "sample", "bytes", 120), cache.generation(), 0);
+        Map cached = cache.get("sample", "v", 9999);
+        assertEquals(120, cached.get("bytes"));
+        cached.put("bytes", 0);
+        assertEquals("should not share the cached map", 120, cache.get("sample", "v", 9999).get("bytes"));
+        assertNull("should not find another variant", cache.get("sample", "w", 9999));
+        assertNull("should expire", cache.get("sample", "v", 10000));
+        assertEquals(2, cache.hits());
+        assertEquals(3, cache.misses());
+        assertEquals(0.4, cache.hitRate(), 0.0001);
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void testNestedCopies() {
+        ResourceCache cache = new ResourceCache(1000, 10);
+        List tags = new ArrayList(Arrays.asList("a"));
+        Map context = new HashMap(ObjectUtils.asMap("alt", "x"));
+        cache.put("sample", "v", ObjectUtils.asMap("public_id", "sample", "tags", tags, "context", ObjectUtils.asMap("custom", context)),
+                cache.generation(), 0);
+        tags.add("b");
+        context.put("alt", "y");
+        Map cached = cache.get("sample", "v", 0);
+        assertEquals("should not share the lists of the response", Arrays.asList("a"), cached.get("tags"));
+        ((List) cached.get("tags")).add("c");
+        ((Map) ((Map) cached.get("context")).get("custom")).put("alt", "z");
+        cached = cache.get("sample", "v", 0);
+        assertEquals("should not share the cached lists", Arrays.asList("a"), cached.get("tags"));
+        assertEquals("x", ((Map) ((Map) cached.get("context")).get("custom")).get("alt"));
+    }
+
+    @Test
+    public void testLazyValuesNotDecoded() throws Exception {
+        ResourceCache cache = new ResourceCache(1000, 10);
+        String exif = "{\"Make\":\"Canon\",\"Model\":\"EOS\"}";
+        Map response = JsonDecoder.decode(new ByteArrayInputStream(
+                ("{\"public_id\":\"sample\",\"exif\":" + exif + "}").getBytes("UTF-8")));
+        assertEquals(3 + exif.length() / 16, ResourceCache.weigh(response));
+        cache.put("sample", "v", response, cache.generation(), 0);
+        Map cached = cache.get("sample", "v", 0);
+        assertEquals("should not decode the response", exif.length(), JsonDecoder.pendingLength(response.get("exif")));
+        assertEquals("should not decode the cached response", exif.length(), JsonDecoder.pendingLength(cached.get("exif")));
+        assertEquals("Canon", ((Map) cached.get("exif")).get("Make"));
+        assertEquals(-1, JsonDecoder.pendingLength(cached.get("exif")));
+        assertEquals(exif.length(), JsonDecoder.pendingLength(cache.get("sample", "v", 0).get("exif")));
+    }
+
+    @Test
+    public void testWeightEviction() {
+        ResourceCache cache = new ResourceCache(160, 60);
+        // weight 4: 1 for the map, 1 for the public ID, 2 for the list of tags; so 2 of them fit in each segment
+        assertEquals(4, ResourceCache.weigh(ObjectUtils.asMap("public_id", "id", "tags", Arrays.asList("a"))));
+        for (int i = 0; i < 100; i++) {
+            cache.put("id" + i, "v", ObjectUtils.asMap("public_id", "id" + i, "tags", Arrays.asList("a")), cache.generation());
+        }
+        assertTrue(cache.weight() <= 160);
+        assertNotNull("should keep the most recent", cache.get("id99", "v"));
+        int kept = 0;
+        for (int i = 0; i < 100; i++) {
+            if (cache.get("id" + i, "v") != null) kept++;
+        }
+        assertTrue("should evict the least recent", kept <= 32);
+    }
+
+    @Test
+    public void testInvalidatedDuringCall() {
+        ResourceCache cache = new ResourceCache(100, 60);
+        long generation = cache.generation();
+        cache.invalidate("other");
+        cache.put("sample", "v", ObjectUtils.asMap("public_id", "sample"), generation);
+        assertNull("should not cache a response that may predate a change", cache.get("sample", "v"));
+    }
+
+    @Test
+    public void testResourceInvalidation() throws Exception {
+        Cloudinary cloudinary = StubApiStrategy.cloudinary("resource_cache_max_weight=1000");
+        ResourceStrategy strategy = new ResourceStrategy();
+        Api api = new Api(cloudinary, strategy);
+
+        api.resource("sample", null);
+        assertEquals("sample", api.resource("sample", null).get("public_id"));
+        assertEquals(1, strategy.gets);
+        api.resource("sample", ObjectUtils.asMap("colors", true));
+        assertEquals("should fetch other options", 2, strategy.gets);
+
+        api.update("sample", ObjectUtils.asMap("tags", "a"));
+        api.resource("sample", null);
+        assertEquals(3, strategy.gets);
+
+        Uploader uploader = new Uploader(cloudinary, new AbstractUploaderStrategy() {
+            @Override
+            public Map callApi(String action, Map<String, Object> params, Map options, Object file) throws IOException {
+                return ObjectUtils.asMap("result", "ok");
+            }
+        });
+        uploader.destroy("sample", null);
+        api.resource("sample", null);
+        assertEquals(4, strategy.gets);
+
+        api.deleteResourcesByPrefix("sam", null);
+        api.resource("sample", null);
+        assertEquals(5, strategy.gets);
+        assertEquals(1, cloudinary.resourceCache().hits());
+        assertEquals(5, cloudinary.resourceCache().misses());
+
+        api.resource("other", null);
+        uploader.addTag("featured", new String[]{"sample"}, ObjectUtils.asMap("exclusive", true));
+        api.resource("other", null);
+        assertEquals("should drop all resources when a tag is made exclusive", 7, strategy.gets);
+    }
+
+    @Test
+    public void testResourcesByIds() throws Exception {
+        Cloudinary cloudinary = StubApiStrategy.cloudinary("resource_cache_max_weight=1000");
+        ResourceStrategy strategy = new ResourceStrategy();
+        Api api = new Api(cloudinary, strategy);
+
+        api.resourcesByIds(Arrays.asList("a", "b"), null);
+        ApiResponse response = api.resourcesByIds(Arrays.asList("c", "a", "b"), null);
+        assertEquals("should fetch only the missing resources", Arrays.asList("c"), strategy.lastIds);
+        List<Object> ids = new ArrayList<Object>();
+        for (Map resource : (List<Map>) response.get("resources")) {
+            ids.add(resource.get("public_id"));
+        }
+        assertEquals(Arrays.asList("c", "a", "b"), ids);
+
+        api.resourcesByIds(Arrays.asList("b", "c"), null);
+        assertEquals("should not call the API when all are cached", 2, strategy.gets);
+    }
+
+    private static class ResourceStrategy extends StubApiStrategy {
+        int gets;
+        List<String> lastIds;
+
+        @Override
+        protected Map respond(Api.HttpMethod method, String path, Map<String, ? extends Object> params) throws Exception {
+            if (method != Api.HttpMethod.GET) return ObjectUtils.asMap("result", "ok");
+            gets++;
+            Iterable<String> publicIds = (Iterable<String>) params.get("public_ids");
+            if (publicIds == null) {
+                return ObjectUtils.asMap("public_id", lastComponent(path), "bytes", 120);
+            }
+            lastIds = new ArrayList<String>();
+            List resources = new ArrayList();
+            for (String publicId : publicIds) {
+                lastIds.add(publicId);
+                resources.add(ObjectUtils.asMap("public_id", publicId));
+            }
+            return ObjectUtils.asMap("resources", resources);
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package com.cloudinary;
 
+import com.cloudinary.transformation.Condition;
 import com.cloudinary.utils.ObjectUtils;
+import com.cloudinary.utils.StringUtils;
 import org.cloudinary.json.JSONArray;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.Assert.*;
 
@@ -141,4 +149,401 @@ public class TransformationTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void nestedBaseTransformations() throws Exception {
+        Map base = ObjectUtils.asMap("crop", "fill", "width", 100, "background", "#ff0000");
+        List transformations = new ArrayList();
+        transformations.add(base);
+        transformations.add("named");
+        Transformation transformation = new Transformation().param("transformation", transformations).effect("sepia").color("#00ff00");
+        assertEquals("should serialize base transformations before the component itself", "b_rgb:ff0000,c_fill,w_100/t_named/co_rgb:00ff00,e_sepia", transformation.generate());
+
+        transformation = new Transformation().named("a", "b").angle("10", "20").flags("progressive", "keep_iptc").rawTransformation("w_10");
+        assertEquals("should join array parameters and append the raw transformation last", "a_10.20,fl_progressive.keep_iptc,t_a.b,w_10", transformation.generate());
+    }
+
+    @Test
+    public void freeze() throws Exception {
+        Transformation transformation = new Transformation().width(100).height(200).crop("fill").chain().width("auto").dpr("auto");
+        CompiledTransformation compiled = transformation.freeze();
+        assertEquals(transformation.generate(), compiled.generate());
+        assertEquals("c_fill,h_200,w_100/dpr_auto,w_auto", compiled.toString());
+        assertTrue(compiled.isResponsive());
+        assertTrue(compiled.isHiDPI());
+        assertSame(compiled, compiled.freeze());
+
+        transformation.effect("sepia");
+        assertEquals("should not be affected by changes to the source transformation", "c_fill,h_200,w_100/dpr_auto,w_auto", compiled.generate());
+
+        try {
+            compiled.width(10);
+            fail("should not allow changes");
+        } catch (UnsupportedOperationException ignored) {
+        }
+        try {
+            compiled.chain();
+            fail("should not allow chaining");
+        } catch (UnsupportedOperationException ignored) {
+        }
+
+        Transformation thawed = new Transformation(compiled).effect("sepia");
+        assertEquals("c_fill,h_200,w_100/dpr_auto,e_sepia,w_auto", thawed.generate());
+        assertEquals("c_fill,h_200,w_100/dpr_auto,w_auto/e_grayscale", compiled.chainWith(new Transformation().effect("grayscale")).generate());
+    }
+
+    @Test
+    public void generateMatchesLegacyForRandomChains() throws Exception {
+        int checked = 0;
+        for (long seed = 0; seed < 20000; seed++) {
+            Transformation transformation = new Transformation();
+            String actual = transformation.generate(randomChain(new Random(seed)));
+            LegacyTransformation legacy = new LegacyTransformation();
+            String expected = legacy.generate(randomChain(new Random(seed)));
+            String chain = randomChain(new Random(seed)).toString();
+            assertEquals(chain, expected, actual);
+            assertEquals(chain, legacy.htmlWidth, transformation.getHtmlWidth());
+            assertEquals(chain, legacy.htmlHeight, transformation.getHtmlHeight());
+            assertEquals(chain, legacy.isResponsive, transformation.isResponsive());
+            assertEquals(chain, legacy.hiDPI, transformation.isHiDPI());
+            checked++;
+        }
+        assertEquals(20000, checked);
+    }
+
+    private static final Object[] SIZES = {100, "100", "auto", "auto:50", "0.5", 1.5, "", "ih"};
+    private static final Object[] RANGES = {"5", 2.5, "10%", "1.5p", "x", "", 3};
+    private static final Object[] OFFSETS = {"2..5", "1.5p..10%", new String[]{"1", "2"}, new Number[]{1, 2.5}, "bad", new String[]{"1"}};
+    private static final Object[] SIMPLE_VALUES = {"a", "", "1", 0, 2.5, "text:x,y"};
+    private static final String[] SIMPLE_KEYS = {"audio_codec", "audio_frequency", "aspect_ratio", "border", "bit_rate",
+            "color_space", "default_image", "delay", "density", "effect", "fetch_format", "gravity", "opacity", "prefix",
+            "page", "quality", "radius", "video_sampling", "x", "y", "zoom"};
+
+    private static List<Map> randomChain(Random random) {
+        List<Map> chain = new ArrayList<Map>();
+        int length = 1 + random.nextInt(3);
+        for (int i = 0; i < length; i++) {
+            chain.add(randomOptions(random, 1));
+        }
+        return chain;
+    }
+
+    private static Map randomOptions(Random random, int depth) {
+        Map options = new HashMap();
+        int count = random.nextInt(6);
+        for (int i = 0; i < count; i++) {
+            switch (random.nextInt(20)) {
+                case 0:
+                    options.put("width", pick(random, SIZES));
+                    break;
+                case 1:
+                    options.put("height", pick(random, SIZES));
+                    break;
+                case 2:
+                    options.put("crop", pick(random, new Object[]{"fill", "fit", "limit", "scale"}));
+                    break;
+                case 3:
+                    options.put("angle", pick(random, new Object[]{10, "auto", new String[]{"10", "20"}, ""}));
+                    break;
+                case 4:
+                    options.put(random.nextBoolean() ? "background" : "color", pick(random, new Object[]{"#ff0000", "red", "#"}));
+                    break;
+                case 5:
+                    options.put(random.nextBoolean() ? "overlay" : "underlay", pick(random, new Object[]{"text:x", "", " "}));
+                    break;
+                case 6:
+                    List base = new ArrayList();
+                    base.add("named");
+                    if (depth > 0 && random.nextBoolean()) base.add(randomOptions(random, depth - 1));
+                    options.put("transformation", pick(random, new Object[]{"named", new String[]{"a", "b"}, base}));
+                    break;
+                case 7:
+                    options.put("flags", pick(random, new Object[]{"progressive", new String[]{"progressive", "keep_iptc"}}));
+                    break;
+                case 8:
+                    options.put(pick(random, new Object[]{"duration", "start_offset", "end_offset"}), pick(random, RANGES));
+                    break;
+                case 9:
+                    options.put("offset", pick(random, OFFSETS));
+                    break;
+                case 10:
+                    options.put("video_codec", pick(random, new Object[]{"h264", ObjectUtils.asMap("codec", "h264"),
+                            ObjectUtils.asMap("codec", "h264", "profile", "basic"),
+                            ObjectUtils.asMap("codec", "h264", "profile", "basic", "level", "3.1")}));
+                    break;
+                case 11:
+                    options.put("dpr", pick(random, new Object[]{"auto", 2.0, 1}));
+                    break;
+                case 12:
+                    options.put("size", pick(random, new Object[]{"100x200", "auto x50"}));
+                    break;
+                case 13:
+                    options.put("raw_transformation", pick(random, new Object[]{"w_10", ""}));
+                    break;
+                case 14:
+                    options.put("if", pick(random, new Object[]{"w_lt_200", "width > 100", "end", "else"}));
+                    break;
+                case 15:
+                    options.put("responsive_width", random.nextBoolean());
+                    break;
+                default:
+                    options.put(pick(random, SIMPLE_KEYS), pick(random, SIMPLE_VALUES));
+                    break;
+            }
+        }
+        return options;
+    }
+
+    private static <T> T pick(Random random, T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * The serialization of Transformation before it was rewritten with a parameter table and a single builder.
+     */
+    @SuppressWarnings("rawtypes")
+    private static class LegacyTransformation {
+        private static final Pattern RANGE_VALUE_RE = Pattern.compile("^((?:\\d+\\.)?\\d+)([%pP])?$");
+        private static final Pattern RANGE_RE = Pattern.compile("^(\\d+\\.)?\\d+[%pP]?\\.\\.(\\d+\\.)?\\d+[%pP]?$");
+
+        String htmlWidth;
+        String htmlHeight;
+        boolean isResponsive;
+        boolean hiDPI;
+
+        String generate(Iterable<Map> optionsList) {
+            List<String> components = new ArrayList<String>();
+            for (Map options : optionsList) {
+                if (options.size() > 0) {
+                    components.add(generate(options));
+                }
+            }
+            return StringUtils.join(components, "/");
+        }
+
+        String generate(Map options) {
+            boolean isResponsive = ObjectUtils.asBoolean(options.get("responsive_width"), Transformation.defaultIsResponsive);
+
+            String size = (String) options.get("size");
+            if (size != null) {
+                String[] size_components = size.split("x");
+                options.put("width", size_components[0]);
+                options.put("height", size_components[1]);
+            }
+            String width = this.htmlWidth = ObjectUtils.asString(options.get("width"));
+            String height = this.htmlHeight = ObjectUtils.asString(options.get("height"));
+            boolean hasLayer = options.get("overlay") != null && StringUtils.isNotBlank(options.get("overlay").toString())
+                    || options.get("underlay") != null && StringUtils.isNotBlank(options.get("underlay").toString());
+
+            String crop = (String) options.get("crop");
+            String angle = StringUtils.join(ObjectUtils.asArray(options.get("angle")), ".");
+
+            boolean noHtmlSizes = hasLayer || StringUtils.isNotBlank(angle) || "fit".equals(crop) || "limit".equals(crop);
+            if (width != null && (width.startsWith("auto") || !isValidAttrValue(width) || noHtmlSizes || isResponsive)) {
+                this.htmlWidth = null;
+            }
+            if (height != null && (!isValidAttrValue(height) || noHtmlSizes || isResponsive)) {
+                this.htmlHeight = null;
+            }
+
+            String background = (String) options.get("background");
+            if (background != null) {
+                background = background.replaceFirst("^#", "rgb:");
+            }
+
+            String color = (String) options.get("color");
+            if (color != null) {
+                color = color.replaceFirst("^#", "rgb:");
+            }
+
+            List transformations = ObjectUtils.asArray(options.get("transformation"));
+            boolean allNamed = true;
+            for (Object baseTransformation : transformations) {
+                if (baseTransformation instanceof Map) {
+                    allNamed = false;
+                    break;
+                }
+            }
+            String namedTransformation = null;
+            if (allNamed) {
+                namedTransformation = StringUtils.join(transformations, ".");
+                transformations = new ArrayList();
+            } else {
+                List ts = transformations;
+                transformations = new ArrayList();
+                for (Object baseTransformation : ts) {
+                    String transformationString;
+                    if (baseTransformation instanceof Map) {
+                        transformationString = generate((Map) baseTransformation);
+                    } else {
+                        Map map = new HashMap();
+                        map.put("transformation", baseTransformation);
+                        transformationString = generate(map);
+                    }
+                    transformations.add(transformationString);
+                }
+            }
+
+            String flags = StringUtils.join(ObjectUtils.asArray(options.get("flags")), ".");
+
+            String duration = normRangeValue(options.get("duration"));
+            String startOffset = normRangeValue(options.get("start_offset"));
+            String endOffset = normRangeValue(options.get("end_offset"));
+            String[] offset = splitRange(options.get("offset"));
+            if (offset != null) {
+                startOffset = normRangeValue(offset[0]);
+                endOffset = normRangeValue(offset[1]);
+            }
+
+            String videoCodec = processVideoCodecParam(options.get("video_codec"));
+            Object defaultDPR = Transformation.defaultDPR;
+            String dpr = ObjectUtils.asString(options.get("dpr"), null == defaultDPR ? null : defaultDPR.toString());
+
+            SortedMap<String, String> params = new TreeMap<String, String>();
+            params.put("a", angle);
+            params.put("b", background);
+            params.put("c", crop);
+            params.put("co", color);
+            params.put("dpr", dpr);
+            params.put("du", duration);
+            params.put("eo", endOffset);
+            params.put("fl", flags);
+            params.put("h", height);
+            params.put("so", startOffset);
+            params.put("t", namedTransformation);
+            params.put("vc", videoCodec);
+            params.put("w", width);
+
+            String[] simple_params = new String[]{
+                    "ac", "audio_codec",
+                    "af", "audio_frequency",
+                    "ar", "aspect_ratio",
+                    "bo", "border",
+                    "br", "bit_rate",
+                    "cs", "color_space",
+                    "d", "default_image",
+                    "dl", "delay",
+                    "dn", "density",
+                    "e", "effect",
+                    "f", "fetch_format",
+                    "g", "gravity",
+                    "l", "overlay",
+                    "o", "opacity",
+                    "p", "prefix",
+                    "pg", "page",
+                    "q", "quality",
+                    "r", "radius",
+                    "u", "underlay",
+                    "vs", "video_sampling",
+                    "x", "x",
+                    "y", "y",
+                    "z", "zoom"};
+
+            for (int i = 0; i < simple_params.length; i += 2) {
+                params.put(simple_params[i], ObjectUtils.asString(options.get(simple_params[i + 1])));
+            }
+            List<String> components = new ArrayList<String>();
+            for (Map.Entry<String, String> param : params.entrySet()) {
+                if (StringUtils.isNotBlank(param.getValue())) {
+                    components.add(param.getKey() + "_" + param.getValue());
+                }
+            }
+            String raw_transformation = (String) options.get("raw_transformation");
+            if (raw_transformation != null) {
+                components.add(raw_transformation);
+            }
+
+            String ifValue = (String) options.get("if");
+            if (ifValue != null) {
+                components.add(0, "if_" + new Condition(ifValue).toString());
+            }
+
+            if (!components.isEmpty()) {
+                transformations.add(StringUtils.join(components, ","));
+            }
+
+            if (isResponsive) {
+                transformations.add(generate(getResponsiveWidthTransformation()));
+            }
+
+            if ("auto".equals(width) || isResponsive) {
+                this.isResponsive = true;
+            }
+
+            if ("auto".equals(dpr)) {
+                this.hiDPI = true;
+            }
+
+            return StringUtils.join(transformations, "/");
+        }
+
+        private static boolean isValidAttrValue(String value) {
+            final float parseFloat;
+            try {
+                parseFloat = Float.parseFloat(value);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            return parseFloat >= 1;
+        }
+
+        private static Map getResponsiveWidthTransformation() {
+            Map result = new HashMap();
+            if (null == Transformation.responsiveWidthTransformation) {
+                result.putAll(ObjectUtils.asMap("width", "auto", "crop", "limit"));
+            } else {
+                result.putAll(Transformation.responsiveWidthTransformation);
+            }
+            return result;
+        }
+
+        private static String[] splitRange(Object range) {
+            if (range instanceof String[] && ((String[]) range).length >= 2) {
+                String[] stringArrayRange = ((String[]) range);
+                return new String[]{stringArrayRange[0], stringArrayRange[1]};
+            } else if (range instanceof Number[] && ((Number[]) range).length >= 2) {
+                Number[] numberArrayRange = ((Number[]) range);
+                return new String[]{numberArrayRange[0].toString(), numberArrayRange[1].toString()};
+            } else if (range instanceof String && RANGE_RE.matcher((String) range).matches()) {
+                return ((String) range).split("\\.\\.", 2);
+            } else {
+                return null;
+            }
+        }
+
+        private static String normRangeValue(Object objectValue) {
+            if (objectValue == null) return null;
+            String value = objectValue.toString();
+            if (StringUtils.isEmpty(value)) return null;
+
+            Matcher matcher = RANGE_VALUE_RE.matcher(value);
+
+            if (!matcher.matches()) {
+                return null;
+            }
+
+            String modifier = "";
+            if (matcher.groupCount() == 2 && !StringUtils.isEmpty(matcher.group(2))) {
+                modifier = "p";
+            }
+            return matcher.group(1) + modifier;
+        }
+
+        private static String processVideoCodecParam(Object param) {
+            StringBuilder outParam = new StringBuilder();
+            if (param instanceof String) {
+                outParam.append(param);
+            }
+            if (param instanceof Map<?, ?>) {
+                Map<String, String> paramMap = (Map<String, String>) param;
+                outParam.append(paramMap.get("codec"));
+                if (paramMap.containsKey("profile")) {
+                    outParam.append(":").append(paramMap.get("profile"));
+                    if (paramMap.containsKey("level")) {
+                        outParam.append(":").append(paramMap.get("level"));
+                    }
+                }
+            }
+            return outParam.toString();
+        }
+    }
+}
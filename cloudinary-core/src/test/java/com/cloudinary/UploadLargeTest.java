@@ -0,0 +1,293 @@
+package com.cloudinary;
+
+import com.cloudinary.strategies.AbstractUploaderStrategy;
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class UploadLargeTest {
+    private static final int CHUNK_SIZE = 1000;
+
+    private Cloudinary cloudinary;
+    private RecordingStrategy strategy;
+    private byte[] payload;
+
+    @Before
+    public void setUp() {
+        cloudinary = new Cloudinary("cloudinary://a:b@test123?load_strategies=false");
+        strategy = new RecordingStrategy();
+        payload = new byte[CHUNK_SIZE * 10 + 500];
+        new Random(7).nextBytes(payload);
+    }
+
+    @Test
+    public void testParallelChunks() throws IOException {
+        final List<Long> progress = Collections.synchronizedList(new ArrayList<Long>());
+        Map result = new Uploader(cloudinary, strategy).uploadLarge(payload, ObjectUtils.asMap("chunk_size", CHUNK_SIZE,
+                "parallel_chunks", 4, "progress_callback", new ProgressCallback() {
+                    @Override
+                    public void onProgress(long bytesUploaded, long totalBytes) {
+                        assertEquals(payload.length, totalBytes);
+                        progress.add(bytesUploaded);
+                    }
+                }));
+
+        assertEquals("final", result.get("chunk"));
+        assertArrayEquals(payload, strategy.received());
+        assertEquals(11, strategy.ranges.size());
+        assertEquals("should send the final chunk after all others", 10, strategy.completedBeforeFinal);
+        assertEquals(1, strategy.uploadIds.size());
+        assertTrue("should send chunks concurrently", strategy.maxActive.get() > 1);
+        assertTrue(strategy.maxActive.get() <= 4);
+
+        assertEquals(11, progress.size());
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) > progress.get(i - 1));
+        }
+        assertEquals(payload.length, (long) progress.get(10));
+    }
+
+    @Test
+    public void testParallelChunksFromStream() throws IOException {
+        byte[] exact = new byte[CHUNK_SIZE * 6];
+        System.arraycopy(payload, 0, exact, 0, exact.length);
+        new Uploader(cloudinary, strategy).uploadLarge(new ByteArrayInputStream(exact), ObjectUtils.asMap("chunk_size", CHUNK_SIZE));
+        List<String> sequential = new ArrayList<String>(strategy.ranges.values());
+
+        strategy = new RecordingStrategy();
+        new Uploader(cloudinary, strategy).uploadLarge(new ByteArrayInputStream(exact), ObjectUtils.asMap("chunk_size", CHUNK_SIZE, "parallel_chunks", 3));
+        assertEquals(sequential, new ArrayList<String>(strategy.ranges.values()));
+        assertEquals("bytes 5000-5999/6000", sequential.get(5));
+        assertEquals("bytes 0-999/-1", sequential.get(0));
+        assertArrayEquals(exact, strategy.received());
+    }
+
+    @Test
+    public void testParallelChunksFailure() {
+        strategy.failAt = 3000;
+        try {
+            new Uploader(cloudinary, strategy).uploadLarge(payload, ObjectUtils.asMap("chunk_size", CHUNK_SIZE, "parallel_chunks", 2));
+            fail("should report the failed chunk");
+        } catch (IOException e) {
+            assertEquals("failed at 3000", e.getMessage());
+        }
+        assertFalse("should not complete the upload", strategy.ranges.containsKey((long) CHUNK_SIZE * 10));
+    }
+
+    @Test
+    public void testFileRegions() throws IOException {
+        File file = File.createTempFile("upload_large", ".bin");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(payload);
+            out.close();
+
+            new Uploader(cloudinary, strategy).uploadLarge(file, ObjectUtils.asMap("chunk_size", CHUNK_SIZE));
+            List<String> buffered = new ArrayList<String>(strategy.ranges.values());
+
+            for (int parallelChunks : new int[]{1, 4}) {
+                strategy = new RecordingStrategy();
+                strategy.fileRegions = true;
+                Map result = new Uploader(cloudinary, strategy).uploadLarge(file.getPath(), ObjectUtils.asMap("chunk_size", CHUNK_SIZE,
+                        "parallel_chunks", parallelChunks));
+                assertEquals("final", result.get("chunk"));
+                assertEquals(buffered, new ArrayList<String>(strategy.ranges.values()));
+                assertArrayEquals(payload, strategy.received());
+                assertEquals(10, strategy.completedBeforeFinal);
+            }
+
+            FileRegion region = new FileRegion(file, 1500, 700);
+            ByteArrayOutputStream written = new ByteArrayOutputStream();
+            region.writeTo(written);
+            InputStream stream = region.openStream();
+            byte[] read = new byte[800];
+            assertEquals(700, stream.read(read));
+            assertEquals(-1, stream.read());
+            stream.close();
+            assertArrayEquals(Arrays.copyOfRange(payload, 1500, 2200), written.toByteArray());
+            assertArrayEquals(Arrays.copyOfRange(payload, 1500, 2200), Arrays.copyOf(read, 700));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testFileRegionsMissingFile() throws IOException {
+        strategy.fileRegions = true;
+        new Uploader(cloudinary, strategy).uploadLarge(new File("no_such_file.bin"), ObjectUtils.asMap("chunk_size", CHUNK_SIZE));
+    }
+
+    @Test
+    public void testResumeLarge() throws IOException {
+        File file = File.createTempFile("upload_large", ".bin");
+        File journal = new File(file.getPath() + ".journal");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(payload);
+            out.close();
+
+            for (int parallelChunks : new int[]{1, 3}) {
+                strategy = new RecordingStrategy();
+                strategy.fileRegions = parallelChunks > 1;
+                strategy.failAt = 4000;
+                Map options = ObjectUtils.asMap("chunk_size", CHUNK_SIZE, "parallel_chunks", parallelChunks, "resume_journal", journal);
+                try {
+                    new Uploader(cloudinary, strategy).uploadLarge(file, options);
+                    fail("should report the failed chunk");
+                } catch (IOException e) {
+                    assertEquals("failed at 4000", e.getMessage());
+                }
+                assertTrue("should keep the journal", journal.isFile());
+                Properties saved = new Properties();
+                FileInputStream in = new FileInputStream(journal);
+                saved.load(in);
+                in.close();
+                long acknowledged = Long.parseLong(saved.getProperty("acknowledged"));
+                assertEquals(0, acknowledged % CHUNK_SIZE);
+                assertTrue(acknowledged <= 4000);
+                if (parallelChunks == 1) assertEquals(4000, acknowledged);
+
+                strategy.failAt = -1;
+                Map result = new Uploader(cloudinary, strategy).resumeLarge(journal.getPath(), ObjectUtils.asMap("parallel_chunks", parallelChunks));
+                assertEquals("final", result.get("chunk"));
+                assertArrayEquals(payload, strategy.received());
+                assertEquals(1, strategy.uploadIds.size());
+                assertEquals(saved.getProperty("upload_id"), strategy.uploadIds.iterator().next());
+                assertFalse("should delete the journal when done", journal.exists());
+            }
+        } finally {
+            file.delete();
+            journal.delete();
+        }
+    }
+
+    @Test
+    public void testResumeLargeChangedFile() throws IOException {
+        File file = File.createTempFile("upload_large", ".bin");
+        File journal = new File(file.getPath() + ".journal");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(payload);
+            out.close();
+            strategy.failAt = 2000;
+            try {
+                new Uploader(cloudinary, strategy).uploadLarge(file, ObjectUtils.asMap("chunk_size", CHUNK_SIZE, "resume_journal", journal.getPath()));
+                fail("should report the failed chunk");
+            } catch (IOException e) {
+                assertEquals("failed at 2000", e.getMessage());
+            }
+
+            payload[0]++;
+            long modified = file.lastModified();
+            out = new FileOutputStream(file);
+            out.write(payload);
+            out.close();
+            file.setLastModified(modified);
+            try {
+                new Uploader(cloudinary, strategy).resumeLarge(journal, null);
+                fail("should not resume a changed file");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("changed since the upload started"));
+            }
+        } finally {
+            file.delete();
+            journal.delete();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testResumeJournalRequiresFile() throws IOException {
+        new Uploader(cloudinary, strategy).uploadLarge(payload, ObjectUtils.asMap("chunk_size", CHUNK_SIZE, "resume_journal", "upload.journal"));
+    }
+
+    private static class RecordingStrategy extends AbstractUploaderStrategy {
+        private static final Pattern RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(-?\\d+)");
+
+        final TreeMap<Long, String> ranges = new TreeMap<Long, String>();
+        final TreeMap<Long, byte[]> chunks = new TreeMap<Long, byte[]>();
+        final Set<String> uploadIds = Collections.synchronizedSet(new HashSet<String>());
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final AtomicInteger completed = new AtomicInteger();
+        volatile int completedBeforeFinal = -1;
+        volatile long failAt = -1;
+        boolean fileRegions;
+
+        @Override
+        public boolean supportsFileRegions() {
+            return fileRegions;
+        }
+
+        @Override
+        public Map callApi(String action, Map<String, Object> params, Map options, Object file) throws IOException {
+            Map headers = (Map) options.get("extra_headers");
+            uploadIds.add((String) headers.get("X-Unique-Upload-Id"));
+            Matcher range = RANGE.matcher((String) headers.get("Content-Range"));
+            assertTrue(range.matches());
+            long start = Long.parseLong(range.group(1));
+            long end = Long.parseLong(range.group(2));
+            long total = Long.parseLong(range.group(3));
+            boolean last = end == total - 1;
+            if (last) completedBeforeFinal = completed.get();
+
+            int now = active.incrementAndGet();
+            while (true) {
+                int max = maxActive.get();
+                if (now <= max || maxActive.compareAndSet(max, now)) break;
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                throw new IOException("interrupted");
+            }
+            active.decrementAndGet();
+            if (start == failAt) throw new IOException("failed at " + start);
+
+            synchronized (this) {
+                ranges.put(start, (String) headers.get("Content-Range"));
+                if (file instanceof FileRegion) {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    ((FileRegion) file).writeTo(out);
+                    chunks.put(start, out.toByteArray());
+                } else {
+                    chunks.put(start, ((byte[]) file).clone());
+                }
+            }
+            completed.incrementAndGet();
+            return ObjectUtils.asMap("chunk", last ? "final" : "part");
+        }
+
+        synchronized byte[] received() {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (byte[] chunk : chunks.values()) {
+                out.write(chunk, 0, chunk.length);
+            }
+            return out.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,524 @@
+package com.cloudinary;
+
+import com.cloudinary.utils.Base64Coder;
+import com.cloudinary.utils.StringUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the scanner based URL assembly in {@link Url} produces exactly the same output
+ * as the regular expression based implementation it replaced, which is kept here as {@link LegacyUrl}.
+ */
+public class UrlTest {
+    private static final String[] ALPHABET = {"a", "/", ":", "h", "t", "p", "s", "H", "S", "v", "1", "\n", "\u2028", "+", "%", "\uD83D\uDE00"};
+    private static final String[] PREFIXES = {"", "http", "https", "HTTP", "hTTps", "http:", "https:", "v", "v1"};
+
+    private static final String[] SOURCES = {"sample", "sample.jpg", "folder/sample", "folder//sample", "folder///sample",
+            "v1234/sample", "v1/folder/sample.jpg", "vx1/sample", "v/sample", "/leading", "//double", "trailing/",
+            "http://example.com/images/some image.jpg", "HTTPS://example.com/x.png", "https:/single", "http://a//b///c",
+            "ftp://example.com/x", "a:/b", "a://b", "a b+c%20d", "\u00e9t\u00e9/\u00fcber", "\uD83D\uDE00//x", "line\nbreak",
+            "http://x\ny", "%2F%3A", "a/b/c/d.e", "", "folder/sub folder/\u00fcmlaut.png"};
+    private static final String[] OPTION_SOURCES = {"sample", "folder//sample", "v1234/sample", "/leading",
+            "http://example.com/images/some image.jpg", "a b+c%20d", "\uD83D\uDE00//x", ""};
+
+    private Cloudinary cloudinary;
+
+    @Before
+    public void setUp() {
+        cloudinary = new Cloudinary("cloudinary://a:b@test123?load_strategies=false");
+    }
+
+    @Test
+    public void scannersMatchRegularExpressions() throws Exception {
+        int checked = 0;
+        for (String value : strings()) {
+            String lower = value.toLowerCase(Locale.US);
+            assertEquals(value, lower.matches("^https?:/.*"), Url.isHttpUrl(value, true));
+            assertEquals(value, value.matches("^https?:/.*"), Url.isHttpUrl(value, false));
+            assertEquals(value, value.matches("v[0-9]+.*"), Url.isVersionPrefixed(value));
+            assertEquals(value, value.replaceAll("([^:])//", "\1/"), Url.replaceDoubleSlashes(value));
+            assertEquals(value, legacyEncode(value), SmartUrlEncoder.encode(value));
+
+            String collapsed = value.replaceAll("([^:])\\/+", "$1/");
+            String stripped = value.replaceAll("^/+", "").replaceAll("([^:])\\/+", "$1/");
+            for (int split = 0; split <= value.length(); split++) {
+                StringBuilder builder = new StringBuilder();
+                Url.appendCollapsingSlashes(builder, value.substring(0, split), false);
+                Url.appendCollapsingSlashes(builder, value.substring(split), false);
+                assertEquals(value, collapsed, builder.toString());
+
+                builder.setLength(0);
+                Url.appendCollapsingSlashes(builder, value.substring(0, split), true);
+                Url.appendCollapsingSlashes(builder, value.substring(split), true);
+                assertEquals(value, stripped, builder.toString());
+            }
+            checked++;
+        }
+        assertTrue(checked > 30000);
+    }
+
+    @Test
+    public void generateMatchesLegacyForAllConfigurations() throws Exception {
+        int checked = 0;
+        for (String cloudName : new String[]{"test123", "/test123"}) {
+            for (boolean secure : new boolean[]{false, true}) {
+                for (boolean privateCdn : new boolean[]{false, true}) {
+                    for (String cname : new String[]{null, "", "example.com"}) {
+                        for (boolean cdnSubdomain : new boolean[]{false, true}) {
+                            for (Boolean secureCdnSubdomain : new Boolean[]{null, true, false}) {
+                                for (String secureDistribution : new String[]{null, "", Cloudinary.SHARED_CDN, Cloudinary.OLD_AKAMAI_SHARED_CDN, "something.cloudfront.net"}) {
+                                    for (boolean shorten : new boolean[]{false, true}) {
+                                        Configuration config = cloudinary.config;
+                                        config.cloudName = cloudName;
+                                        config.secure = secure;
+                                        config.privateCdn = privateCdn;
+                                        config.cname = cname;
+                                        config.cdnSubdomain = cdnSubdomain;
+                                        config.secureCdnSubdomain = secureCdnSubdomain;
+                                        config.secureDistribution = secureDistribution;
+                                        config.shorten = shorten;
+                                        for (String source : OPTION_SOURCES) {
+                                            for (boolean signed : new boolean[]{false, true}) {
+                                                checked += compare(new LegacyUrl(cloudinary).signed(signed), source);
+                                                checked += compare(new LegacyUrl(cloudinary).signed(signed).format("jpg").transformation("c_fill,w_100"), source);
+                                            }
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(checked > 40000);
+    }
+
+    @Test
+    public void generateMatchesLegacyForAllOptions() throws Exception {
+        String[] transformations = {null, "c_fill,h_100/e_sepia", "w_100//h_100"};
+        int checked = 0;
+        for (boolean privateCdn : new boolean[]{false, true}) {
+            cloudinary.config.privateCdn = privateCdn;
+            for (String resourceType : new String[]{null, "raw", "video"}) {
+                for (String type : new String[]{null, "upload", "fetch", "asset", "private"}) {
+                    for (String format : new String[]{null, "", "jpg"}) {
+                        for (String version : new String[]{null, "", "1234"}) {
+                            for (boolean signed : new boolean[]{false, true}) {
+                                for (String transformation : transformations) {
+                                    for (String urlSuffix : new String[]{null, "he.llo"}) {
+                                        for (Boolean useRootPath : new Boolean[]{null, true}) {
+                                            for (String source : OPTION_SOURCES) {
+                                                checked += compare(new LegacyUrl(cloudinary).resourceType(resourceType).type(type).format(format)
+                                                        .version(version).signed(signed).transformation(transformation).suffix(urlSuffix)
+                                                        .useRootPath(useRootPath), source);
+                                            }
+                                        }
+                                    }
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(checked > 20000);
+    }
+
+    @Test
+    public void generateMatchesLegacyForRandomSources() throws Exception {
+        Random random = new Random(4711);
+        cloudinary.config.privateCdn = true;
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder source = new StringBuilder(PREFIXES[random.nextInt(PREFIXES.length)]);
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                source.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            cloudinary.config.cdnSubdomain = random.nextBoolean();
+            cloudinary.config.secure = random.nextBoolean();
+            String raw = random.nextBoolean() ? null : ALPHABET[random.nextInt(ALPHABET.length)] + ALPHABET[random.nextInt(ALPHABET.length)];
+            compare(new LegacyUrl(cloudinary).signed(random.nextBoolean()).format(random.nextBoolean() ? "png" : null)
+                    .type(random.nextBoolean() ? "fetch" : null).transformation(raw), source.toString());
+        }
+    }
+
+    @Test
+    public void urlFactoryMatchesUnsharedUrls() throws Exception {
+        cloudinary.config.cname = "example.com";
+        cloudinary.config.secureDistribution = "something.cloudfront.net";
+        UrlFactory factory = cloudinary.urlFactory();
+        assertSame(factory, cloudinary.urlFactory());
+        int checked = 0;
+        for (int combination = 0; combination < 1 << 7; combination++) {
+            for (String source : SOURCES) {
+                Url shared = factory.url();
+                Url unshared = new Url(cloudinary);
+                for (Url url : new Url[]{shared, unshared}) {
+                    url.secure((combination & 1) != 0).privateCdn((combination & 2) != 0).cdnSubdomain((combination & 4) != 0);
+                    if ((combination & 8) != 0) url.cname(null);
+                    if ((combination & 16) != 0) url.cname("other.example.com");
+                    if ((combination & 32) != 0) url.secureCdnSubdomain(true);
+                    if ((combination & 64) != 0) url.cloudName("other");
+                }
+                assertEquals(source, outcome(null, unshared, source), outcome(null, shared, source));
+                checked++;
+            }
+        }
+        assertTrue(checked > 3000);
+
+        cloudinary.config.secure = true;
+        assertNotSame("should not reuse a factory built for a different configuration", factory, cloudinary.urlFactory());
+        assertEquals("https://something.cloudfront.net/test123/image/upload/sample", cloudinary.url().generate("sample"));
+        assertEquals("http://example.com/test123/image/upload/sample", factory.url().generate("sample"));
+    }
+
+    @Test
+    public void batchesMatchSingleUrls() throws Exception {
+        List<String> sources = new ArrayList<String>();
+        for (String source : SOURCES) {
+            sources.add(source);
+        }
+        Map<String, String> attributes = new HashMap<String, String>();
+        attributes.put("alt", "gallery");
+        attributes.put("responsive_placeholder", "blank");
+        Transformation[] transformations = {null, new Transformation().width(100).height(101).crop("crop"),
+                new Transformation().width("auto").crop("scale"), new Transformation().width(100).dpr("auto"),
+                new Transformation().width(100).height(101).crop("fill").freeze()};
+        for (Transformation transformation : transformations) {
+            for (int options = 0; options < 8; options++) {
+                boolean signed = (options & 1) != 0;
+                String type = (options & 2) != 0 ? "fetch" : null;
+                String version = (options & 4) != 0 ? "1234" : null;
+
+                StringBuilder expectedUrls = new StringBuilder();
+                StringBuilder expectedTags = new StringBuilder();
+                for (String source : sources) {
+                    if (expectedUrls.length() > 0) expectedUrls.append('\n');
+                    expectedUrls.append(batchUrl(transformation, signed, type, version).generate(source));
+                    Url single = batchUrl(transformation, signed, type, version);
+                    single.transformation().generate();
+                    expectedTags.append(single.imageTag(source, attributes));
+                }
+
+                Url url = batchUrl(transformation, signed, type, version);
+                assertEquals(expectedUrls.toString(), url.generateAll(sources, new StringBuilder(), "\n").toString());
+                assertEquals("should not modify the builder", expectedUrls.toString(), url.generateAll(sources, new StringBuilder(), "\n").toString());
+                assertEquals(expectedTags.toString(), url.imageTags(sources, attributes, new StringBuilder()).toString());
+            }
+        }
+        assertEquals("", cloudinary.url().generateAll(new ArrayList<String>(), new StringBuilder(), ",").toString());
+    }
+
+    private Url batchUrl(Transformation transformation, boolean signed, String type, String version) {
+        Url url = cloudinary.url().signed(signed).type(type).version(version).format("png");
+        if (transformation != null) url.transformation(transformation instanceof CompiledTransformation ? transformation : new Transformation(transformation));
+        return url;
+    }
+
+    private int compare(LegacyUrl legacy, String source) {
+        Url url = legacy.toUrl();
+        String expected = outcome(legacy, null, source);
+        String actual = outcome(null, url, source);
+        assertEquals(legacy + " " + source, expected, actual);
+        return 1;
+    }
+
+    private static String outcome(LegacyUrl legacy, Url url, String source) {
+        try {
+            return legacy != null ? legacy.generate(source) : url.generate(source);
+        } catch (RuntimeException e) {
+            // the helpful messages of null pointers on JDK 14+ name the fields of each implementation
+            return e instanceof NullPointerException ? e.getClass().getName() : e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+
+    private static List<String> strings() {
+        List<String> result = new ArrayList<String>();
+        for (String prefix : PREFIXES) {
+            result.add(prefix);
+            for (String a : ALPHABET) {
+                result.add(prefix + a);
+                for (String b : ALPHABET) {
+                    result.add(prefix + a + b);
+                    for (String c : ALPHABET) {
+                        result.add(prefix + a + b + c);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String legacyEncode(String input) throws UnsupportedEncodingException {
+        return URLEncoder.encode(input, "UTF-8").replace("%2F", "/").replace("%3A", ":").replace("+", "%20");
+    }
+
+    /**
+     * The URL generation code of Url before it was rewritten without regular expressions.
+     */
+    private static class LegacyUrl {
+        private final Cloudinary cloudinary;
+        private final Configuration config;
+        private String resourceType;
+        private String type;
+        private String format;
+        private String version;
+        private String transformation;
+        private boolean signUrl;
+        private String urlSuffix;
+        private Boolean useRootPath;
+
+        LegacyUrl(Cloudinary cloudinary) {
+            this.cloudinary = cloudinary;
+            this.config = new Configuration(cloudinary.config);
+        }
+
+        LegacyUrl resourceType(String resourceType) {
+            this.resourceType = resourceType;
+            return this;
+        }
+
+        LegacyUrl type(String type) {
+            this.type = type;
+            return this;
+        }
+
+        LegacyUrl format(String format) {
+            this.format = format;
+            return this;
+        }
+
+        LegacyUrl version(String version) {
+            this.version = version;
+            return this;
+        }
+
+        LegacyUrl transformation(String transformation) {
+            this.transformation = transformation;
+            return this;
+        }
+
+        LegacyUrl signed(boolean signUrl) {
+            this.signUrl = signUrl;
+            return this;
+        }
+
+        LegacyUrl suffix(String urlSuffix) {
+            this.urlSuffix = urlSuffix;
+            return this;
+        }
+
+        LegacyUrl useRootPath(Boolean useRootPath) {
+            this.useRootPath = useRootPath;
+            return this;
+        }
+
+        Url toUrl() {
+            Url url = cloudinary.url().resourceType(resourceType).type(type).format(format).version(version).signed(signUrl).suffix(urlSuffix);
+            if (useRootPath != null) url.useRootPath(useRootPath);
+            if (transformation != null) url.transformation(transformation());
+            return url;
+        }
+
+        private Transformation transformation() {
+            return transformation == null ? new Transformation() : new Transformation().rawTransformation(transformation);
+        }
+
+        @Override
+        public String toString() {
+            return config.asMap() + " resourceType=" + resourceType + " type=" + type + " format=" + format + " version=" + version +
+                    " transformation=" + transformation + " signed=" + signUrl + " suffix=" + urlSuffix + " useRootPath=" + useRootPath;
+        }
+
+        String generate(String source) {
+            boolean useRootPath = this.config.useRootPath;
+            if (this.useRootPath != null) {
+                useRootPath = this.useRootPath;
+            }
+            if (StringUtils.isEmpty(this.config.cloudName)) {
+                throw new IllegalArgumentException("Must supply cloud_name in tag or in configuration");
+            }
+            if (!this.config.privateCdn) {
+                if (StringUtils.isNotBlank(urlSuffix)) {
+                    throw new IllegalArgumentException("URL Suffix only supported in private CDN");
+                }
+                if (useRootPath) {
+                    throw new IllegalArgumentException("Root path only supported in private CDN");
+                }
+            }
+            if (source.toLowerCase(Locale.US).matches("^https?:/.*")) {
+                if (StringUtils.isEmpty(type) || "asset".equals(type)) {
+                    return source;
+                }
+            }
+            Transformation transformation = transformation();
+            String format = this.format;
+            if (type != null && type.equals("fetch") && !StringUtils.isEmpty(format)) {
+                transformation.fetchFormat(format);
+                format = null;
+            }
+            String transformationStr = transformation.generate();
+            String signature = "";
+
+            String[] finalizedSource = finalizeSource(source, format, urlSuffix);
+            source = finalizedSource[0];
+            String sourceToSign = finalizedSource[1];
+
+            String version = this.version;
+            if (sourceToSign.contains("/") && !sourceToSign.matches("v[0-9]+.*") && !sourceToSign.matches("https?:/.*") && StringUtils.isEmpty(version)) {
+                version = "1";
+            }
+            if (version == null)
+                version = "";
+            else
+                version = "v" + version;
+
+            if (signUrl) {
+                MessageDigest md;
+                try {
+                    md = MessageDigest.getInstance("SHA-1");
+                } catch (Exception e) {
+                    throw new RuntimeException("Unexpected exception", e);
+                }
+                String toSign = StringUtils.join(new String[]{transformationStr, sourceToSign}, "/");
+                toSign = toSign.replaceAll("^/+", "").replaceAll("([^:])\\/+", "$1/");
+                byte[] digest = md.digest(cloudinary.getUTF8Bytes(toSign + this.config.apiSecret));
+                signature = Base64Coder.encodeURLSafeString(digest);
+                signature = "s--" + signature.substring(0, 8) + "--";
+            }
+
+            String resourceType = this.resourceType;
+            if (resourceType == null) resourceType = "image";
+            String finalResourceType = finalizeResourceType(resourceType, type, urlSuffix, useRootPath, config.shorten);
+            String prefix = unsignedDownloadUrlPrefix(source, config.secureCdnSubdomain, config.secureDistribution);
+
+            return StringUtils.join(new String[]{prefix, finalResourceType, signature, transformationStr, version, source}, "/").replaceAll("([^:])\\/+", "$1/");
+        }
+
+        private String[] finalizeSource(String source, String format, String urlSuffix) {
+            String[] result = new String[2];
+            source = source.replaceAll("([^:])//", "\1/");
+
+            String sourceToSign;
+            if (source.toLowerCase().matches("^https?:/.*")) {
+                source = SmartUrlEncoder.encode(source);
+                sourceToSign = source;
+            } else {
+                try {
+                    source = SmartUrlEncoder.encode(URLDecoder.decode(source.replace("+", "%2B"), "UTF-8"));
+                } catch (UnsupportedEncodingException e) {
+                    throw new RuntimeException(e);
+                }
+                sourceToSign = source;
+                if (StringUtils.isNotBlank(urlSuffix)) {
+                    Pattern pattern = Pattern.compile("[\\./]");
+                    Matcher matcher = pattern.matcher(urlSuffix);
+                    if (matcher.find()) {
+                        throw new IllegalArgumentException("url_suffix should not include . or /");
+                    }
+                    source = source + "/" + urlSuffix;
+                }
+                if (StringUtils.isNotBlank(format)) {
+                    source = source + "." + format;
+                    sourceToSign = sourceToSign + "." + format;
+                }
+            }
+            result[0] = source;
+            result[1] = sourceToSign;
+            return result;
+        }
+
+        private String finalizeResourceType(String resourceType, String type, String urlSuffix, boolean useRootPath, boolean shorten) {
+            if (type == null) {
+                type = "upload";
+            }
+            if (!StringUtils.isBlank(urlSuffix)) {
+                if (resourceType.equals("image") && type.equals("upload")) {
+                    resourceType = "images";
+                    type = null;
+                } else if (resourceType.equals("raw") && type.equals("upload")) {
+                    resourceType = "files";
+                    type = null;
+                } else {
+                    throw new IllegalArgumentException("URL Suffix only supported for image/upload and raw/upload");
+                }
+            }
+            if (useRootPath) {
+                if ((resourceType.equals("image") && type.equals("upload")) || (resourceType.equals("images") && StringUtils.isBlank(type))) {
+                    resourceType = null;
+                    type = null;
+                } else {
+                    throw new IllegalArgumentException("Root path only supported for image/upload");
+                }
+            }
+            if (shorten && resourceType.equals("image") && type.equals("upload")) {
+                resourceType = "iu";
+                type = null;
+            }
+            String result = resourceType;
+            if (type != null) {
+                result += "/" + type;
+            }
+            return result;
+        }
+
+        private String unsignedDownloadUrlPrefix(String source, Boolean secureCdnSubdomain, String secureDistribution) {
+            if (this.config.cloudName.startsWith("/")) {
+                return "/res" + this.config.cloudName;
+            }
+            boolean sharedDomain = !this.config.privateCdn;
+
+            String prefix;
+
+            if (this.config.secure) {
+                if (StringUtils.isEmpty(this.config.secureDistribution) || this.config.secureDistribution.equals(Cloudinary.OLD_AKAMAI_SHARED_CDN)) {
+                    secureDistribution = this.config.privateCdn ? this.config.cloudName + "-res.cloudinary.com" : Cloudinary.SHARED_CDN;
+                }
+                if (!sharedDomain) {
+                    sharedDomain = secureDistribution.equals(Cloudinary.SHARED_CDN);
+                }
+                if (secureCdnSubdomain == null && sharedDomain) {
+                    secureCdnSubdomain = this.config.cdnSubdomain;
+                }
+                if (secureCdnSubdomain != null && secureCdnSubdomain == true) {
+                    secureDistribution = this.config.secureDistribution.replace("res.cloudinary.com", "res-" + shard(source) + ".cloudinary.com");
+                }
+                prefix = "https://" + secureDistribution;
+            } else if (StringUtils.isNotBlank(this.config.cname)) {
+                String subdomain = this.config.cdnSubdomain ? "a" + shard(source) + "." : "";
+                prefix = "http://" + subdomain + this.config.cname;
+            } else {
+                String cloudName = this.config.privateCdn ? this.config.cloudName + "-" : "";
+                String subdomain = this.config.cdnSubdomain ? "-" + shard(source) : "";
+                prefix = StringUtils.join(new String[]{"http://", cloudName, "res", subdomain, ".cloudinary.com"}, "");
+            }
+            if (sharedDomain) {
+                prefix += "/" + this.config.cloudName;
+            }
+            return prefix;
+        }
+
+        private String shard(String input) {
+            CRC32 crc32 = new CRC32();
+            crc32.update(cloudinary.getUTF8Bytes(input));
+            return String.valueOf((crc32.getValue() % 5 + 5) % 5 + 1);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.cloudinary.api;
+
+import com.cloudinary.Api;
+import com.cloudinary.Cloudinary;
+import com.cloudinary.strategies.AbstractApiStrategy;
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class RateLimiterTest {
+
+    @Test
+    public void testPacing() {
+        RateLimiter limiter = new RateLimiter(2);
+        long now = 1000000;
+        assertEquals("should not limit before a rate limit is known", 0, limiter.reserve(now));
+
+        // 100 calls left for 100 seconds: one per second after a burst of 2
+        limiter.update(100, new Date(now + 100000), now);
+        assertEquals(0, limiter.reserve(now));
+        assertEquals(0, limiter.reserve(now));
+        assertEquals(1000, limiter.reserve(now), 1);
+        assertEquals(2000, limiter.reserve(now), 1);
+        assertEquals(1000, limiter.reserve(now + 2000), 1);
+
+        // a response does not refill the bucket, only the rate: 49 calls left for 98 seconds
+        limiter.update(49, new Date(now + 100000), now + 2000);
+        assertEquals(4000, limiter.reserve(now + 2000), 1);
+
+        assertEquals("should not limit after the reset", 0, limiter.reserve(now + 100000));
+    }
+
+    @Test
+    public void testExhausted() {
+        RateLimiter limiter = new RateLimiter(10);
+        long now = 1000000;
+        limiter.update(0, new Date(now + 5000), now);
+        assertEquals(5000, limiter.reserve(now));
+        assertEquals(3000, limiter.reserve(now + 2000));
+        limiter.update(0, new Date(now - 1), now);
+        assertEquals(0, limiter.reserve(now));
+    }
+
+    @Test
+    public void testApiCallsArePaced() throws Exception {
+        Cloudinary cloudinary = new Cloudinary("cloudinary://a:b@test123?load_strategies=false");
+        assertNull(cloudinary.apiRateLimiter());
+        cloudinary.config.rateLimitPacing = true;
+        cloudinary.config.rateLimitBurst = 1;
+        assertSame(cloudinary.apiRateLimiter(), cloudinary.apiRateLimiter());
+
+        final long reset = System.currentTimeMillis() + 500;
+        AbstractApiStrategy strategy = new AbstractApiStrategy() {
+            @Override
+            public ApiResponse callApi(Api.HttpMethod method, Iterable<String> uri, Map<String, ? extends Object> params, Map options) {
+                RateLimit limit = new RateLimit();
+                limit.setRemaining(5);
+                limit.setReset(new Date(reset));
+                return new LimitedResponse(limit);
+            }
+        };
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            new Api(cloudinary, strategy).ping(ObjectUtils.emptyMap());
+        }
+        // about 100ms, less the rounding of the waits to milliseconds
+        assertTrue("should wait between calls", System.currentTimeMillis() - start >= 90);
+    }
+
+    private static class LimitedResponse extends HashMap implements ApiResponse {
+        private final RateLimit limit;
+
+        LimitedResponse(RateLimit limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public Map<String, RateLimit> rateLimits() {
+            return ObjectUtils.asMap("Api", limit);
+        }
+
+        @Override
+        public RateLimit apiRateLimit() {
+            return limit;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.cloudinary.api;
+
+import com.cloudinary.strategies.StubApiStrategy;
+import com.cloudinary.utils.JsonDecoder;
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class ResourceInfoTest {
+
+    @Test
+    public void testResourceInfo() throws Exception {
+        Map response = JsonDecoder.decode(new ByteArrayInputStream(("{\"public_id\":\"sample\",\"format\":\"jpg\","
+                + "\"version\":1312461204,\"bytes\":3381000000,\"width\":864,\"height\":576,\"created_at\":\"2017-08-04T12:33:24Z\","
+                + "\"tags\":[\"a\"],\"exif\":{\"Make\":\"Canon\"},\"colors\":[[\"#FFFFFF\",80.5]],"
+                + "\"derived\":[{\"transformation\":\"c_fill,w_100\",\"bytes\":1200}]}").getBytes("UTF-8")));
+        ResourceInfo info = new ResourceInfo(response);
+        assertEquals("sample", info.getPublicId());
+        assertEquals("jpg", info.getFormat());
+        assertEquals(Long.valueOf(1312461204L), info.getVersion());
+        assertEquals(Long.valueOf(3381000000L), info.getBytes());
+        assertEquals(Integer.valueOf(864), info.getWidth());
+        Calendar createdAt = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        createdAt.setTime(info.getCreatedAt());
+        assertEquals(2017, createdAt.get(Calendar.YEAR));
+        assertEquals(12, createdAt.get(Calendar.HOUR_OF_DAY));
+        assertEquals("a", info.getTags().get(0));
+        assertEquals("Canon", info.getExif().get("Make"));
+        assertEquals("#FFFFFF", info.getColors().get(0).get(0));
+        assertEquals("c_fill,w_100", info.getDerived().get(0).get("transformation"));
+        assertNull(info.getImageMetadata());
+        assertNull(info.getType());
+        assertSame(response, info.asMap());
+    }
+
+    @Test
+    public void testUploadResult() {
+        UploadResult result = new UploadResult(ObjectUtils.asMap("public_id", "sample", "signature", "abc",
+                "existing", true, "eager", Arrays.asList(ObjectUtils.asMap("url", "http://x"))));
+        assertEquals("sample", result.getPublicId());
+        assertEquals("abc", result.getSignature());
+        assertTrue(result.isExisting());
+        assertEquals("http://x", result.getEager().get(0).get("url"));
+        assertNull(result.getBytes());
+    }
+
+    @Test
+    public void testResourceListPage() {
+        List resources = Arrays.asList(ObjectUtils.asMap("public_id", "a", "bytes", 10),
+                ObjectUtils.asMap("public_id", "b", "bytes", 20));
+        ResourceListPage page = new ResourceListPage(StubApiStrategy.response(ObjectUtils.asMap("resources", resources, "next_cursor", "c1")));
+        assertEquals(2, page.getResources().size());
+        assertEquals("b", page.getResources().get(1).getPublicId());
+        assertEquals(Long.valueOf(10), page.getResources().get(0).getBytes());
+        assertEquals("c1", page.getNextCursor());
+        assertTrue(new ResourceListPage(StubApiStrategy.response(new HashMap())).getResources().isEmpty());
+    }
+}
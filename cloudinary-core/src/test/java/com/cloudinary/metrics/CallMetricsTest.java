@@ -0,0 +1,176 @@
+package com.cloudinary.metrics;
+
+import com.cloudinary.Api;
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import com.cloudinary.api.exceptions.GeneralError;
+import com.cloudinary.api.exceptions.NotFound;
+import com.cloudinary.strategies.AbstractUploaderStrategy;
+import com.cloudinary.strategies.StubApiStrategy;
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class CallMetricsTest {
+
+    @Test
+    public void testHistogramBuckets() {
+        for (long value : new long[]{0, 1, 63, 64, 65, 127, 128, 1000, 123456789L, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(value <= LatencyHistogram.highestValue(bucket));
+            if (bucket > 0) assertTrue(value > LatencyHistogram.highestValue(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(1000000, histogram.max());
+        assertEquals(500500, histogram.mean(), 0.001);
+        assertEquals(500000, histogram.percentile(50), 500000 * 0.04);
+        assertEquals(990000, histogram.percentile(99), 990000 * 0.04);
+        assertEquals(1000000, histogram.percentile(100));
+    }
+
+    @Test
+    public void testListeners() throws Exception {
+        Cloudinary cloudinary = StubApiStrategy.cloudinary("call_metrics=true&max_retries=2&retry_base_delay=1");
+        final List<CallEvent> events = new ArrayList<CallEvent>();
+        cloudinary.addCallListener(new CallListener() {
+            @Override
+            public void onCall(CallEvent event) {
+                events.add(event);
+            }
+        });
+        cloudinary.addCallListener(new CallListener() {
+            @Override
+            public void onCall(CallEvent event) {
+                throw new IllegalStateException("should be ignored");
+            }
+        });
+        Api api = new Api(cloudinary, new StubApiStrategy() {
+            int calls;
+
+            @Override
+            protected Map respond(Api.HttpMethod method, String path, Map<String, ? extends Object> params) throws Exception {
+                CallEvent event = CallEvent.current();
+                event.connected(2000);
+                event.firstByte();
+                if (++calls == 1) {
+                    event.setStatusCode(502);
+                    throw new GeneralError("Server returned unexpected status code - 502");
+                }
+                String last = lastComponent(path);
+                if ("missing".equals(last)) {
+                    event.setStatusCode(404);
+                    throw new NotFound("Resource not found - missing");
+                }
+                event.setStatusCode(200);
+                event.setResponseBytes(42);
+                return ObjectUtils.asMap("public_id", last);
+            }
+        });
+        Uploader uploader = new Uploader(cloudinary, new AbstractUploaderStrategy() {
+            @Override
+            public Map callApi(String action, Map<String, Object> params, Map options, Object file) throws IOException {
+                CallEvent.current().setRequestBytes(100);
+                return ObjectUtils.asMap("result", "ok");
+            }
+        });
+
+        api.resource("sample", null);
+        try {
+            api.resource("missing", null);
+            fail("should throw");
+        } catch (NotFound ignored) {
+        }
+        uploader.destroy("sample", null);
+
+        assertEquals(3, events.size());
+        CallEvent retried = events.get(0);
+        assertEquals("admin/resources", retried.getEndpoint());
+        assertEquals("GET", retried.getMethod());
+        assertEquals(1, retried.getRetries());
+        assertEquals(200, retried.getStatusCode());
+        assertEquals(42, retried.getResponseBytes());
+        assertEquals(2000, retried.getConnectNanos());
+        assertTrue(retried.getFirstByteNanos() >= 0);
+        assertTrue(retried.getTotalNanos() >= retried.getFirstByteNanos());
+        assertNull(retried.getError());
+        assertEquals(404, events.get(1).getStatusCode());
+        assertTrue(events.get(1).getError() instanceof NotFound);
+        assertEquals("upload/destroy", events.get(2).getEndpoint());
+        assertEquals(100, events.get(2).getRequestBytes());
+        assertEquals(-1, events.get(2).getStatusCode());
+        assertNull("should clear the call of the thread", CallEvent.current());
+
+        CallMetrics.Endpoint resources = cloudinary.callMetrics().endpoint("admin/resources");
+        assertEquals(2, resources.calls());
+        assertEquals(1, resources.errors());
+        assertEquals(1, resources.retries());
+        assertEquals(42, resources.responseBytes());
+        assertEquals(2, resources.connectLatency().max());
+        assertEquals(1, cloudinary.callMetrics().endpoint("upload/destroy").calls());
+    }
+
+    @Test
+    public void testNoListeners() throws Exception {
+        Cloudinary cloudinary = StubApiStrategy.cloudinary(null);
+        assertNull(cloudinary.callMetrics());
+        Api api = new Api(cloudinary, new StubApiStrategy() {
+            @Override
+            protected Map respond(Api.HttpMethod method, String path, Map<String, ? extends Object> params) {
+                assertNull("should not measure calls without listeners", CallEvent.current());
+                return new HashMap();
+            }
+        });
+        api.ping(null);
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        Cloudinary cloudinary = StubApiStrategy.cloudinary("call_metrics=true");
+        cloudinary.callMetrics().onCall(finishedEvent("admin/ping", 3000000));
+        ObjectName name = CallMetricsMBean.register(cloudinary, "test");
+        try {
+            Object p99 = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "admin/ping p99 ms");
+            assertEquals(3.0, (Double) p99, 3.0 * 0.04);
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "admin/ping calls"));
+            try {
+                ManagementFactory.getPlatformMBeanServer().invoke(name, "reset", new Object[0], new String[0]);
+                fail("should have no operations");
+            } catch (ReflectionException e) {
+                assertTrue(e.getCause() instanceof NoSuchMethodException);
+            }
+        } finally {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        }
+    }
+
+    private static CallEvent finishedEvent(String endpoint, final long nanos) {
+        CallEvent event = new CallEvent(new ArrayList<CallListener>(), endpoint, "GET") {
+            @Override
+            public long getTotalNanos() {
+                return nanos;
+            }
+        };
+        event.finish(null);
+        return event;
+    }
+}
@@ -0,0 +1,171 @@
+package com.cloudinary.strategies;
+
+import com.cloudinary.Api;
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import com.cloudinary.api.exceptions.BadRequest;
+import com.cloudinary.api.exceptions.GeneralError;
+import com.cloudinary.api.exceptions.RateLimited;
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class RetryPolicyTest {
+    private Cloudinary cloudinary;
+
+    @Before
+    public void setUp() {
+        cloudinary = StubApiStrategy.cloudinary(null);
+        cloudinary.config.retryBaseDelay = 10;
+        cloudinary.config.retryMaxDelay = 1000;
+    }
+
+    @Test
+    public void testRetryDelay() {
+        RetryPolicy policy = new RetryPolicy(5, 100, 1000);
+        for (int attempt = 1; attempt <= 5; attempt++) {
+            long delay = policy.retryDelay(attempt, new IOException("reset"));
+            long max = Math.min(1000, 100 << (attempt - 1));
+            assertTrue(delay + " for attempt " + attempt, delay >= max / 2 && delay <= max);
+        }
+        assertEquals(-1, policy.retryDelay(6, new IOException("reset")));
+        assertEquals(-1, policy.retryDelay(1, new BadRequest("bad")));
+        assertEquals(-1, policy.retryDelay(1, new FileNotFoundException("missing")));
+        assertEquals(-1, policy.retryDelay(1, new HttpStatusException("not found", 404)));
+        assertTrue(policy.retryDelay(1, new HttpStatusException("unavailable", 503)) >= 0);
+        assertTrue(policy.retryDelay(1, new GeneralError("error")) >= 0);
+        assertTrue(policy.retryDelay(1, new GeneralError("Server returned unexpected status code - 502", 502)) >= 0);
+        assertEquals("should not retry a status that cannot succeed", -1,
+                policy.retryDelay(1, new GeneralError("Server returned unexpected status code - 413", 413)));
+        assertEquals(-1, policy.retryDelay(1, new GeneralError("Server returned unexpected status code - 302", 302)));
+
+        RateLimited limited = new RateLimited("limited");
+        limited.setReset(new Date(System.currentTimeMillis() + 800));
+        long delay = policy.retryDelay(1, limited);
+        assertTrue("should wait for the reset, not " + delay, delay > 600 && delay <= 800);
+        limited.setReset(new Date(System.currentTimeMillis() + 5000));
+        assertEquals("should give up when the reset is too far", -1, policy.retryDelay(1, limited));
+        assertEquals(-1, RetryPolicy.NONE.retryDelay(1, new IOException("reset")));
+    }
+
+    @Test
+    public void testApiRetries() throws Exception {
+        FailingApiStrategy strategy = new FailingApiStrategy();
+        Api api = new Api(cloudinary, strategy);
+        RateLimited limited = new RateLimited("limited");
+        limited.setReset(new Date(System.currentTimeMillis() + 200));
+        strategy.failures.add(limited);
+        strategy.failures.add(new GeneralError("Server returned unexpected status code - 502", 502));
+
+        long start = System.currentTimeMillis();
+        assertEquals("pong", api.ping(ObjectUtils.asMap("max_retries", 2)).get("status"));
+        assertTrue("should wait for the rate limit reset", System.currentTimeMillis() - start >= 150);
+        assertEquals(3, strategy.calls);
+        assertEquals(2, strategy.getRetryCount());
+        assertEquals(1, strategy.getRateLimitRetryCount());
+        assertSame(strategy, api.getStrategy());
+    }
+
+    @Test
+    public void testApiNoRetriesByDefault() throws Exception {
+        FailingApiStrategy strategy = new FailingApiStrategy();
+        strategy.failures.add(new GeneralError("error"));
+        try {
+            new Api(cloudinary, strategy).ping(ObjectUtils.emptyMap());
+            fail("should not retry");
+        } catch (GeneralError e) {
+            assertEquals(1, strategy.calls);
+            assertEquals(0, strategy.getRetryCount());
+        }
+    }
+
+    @Test
+    public void testApiUnexpectedStatusNotRetried() throws Exception {
+        FailingApiStrategy strategy = new FailingApiStrategy();
+        strategy.failures.add(new GeneralError("Server returned unexpected status code - 405", 405));
+        try {
+            new Api(cloudinary, strategy).ping(ObjectUtils.asMap("max_retries", 3));
+            fail("should not retry a client error");
+        } catch (GeneralError e) {
+            assertEquals(405, e.getStatusCode());
+            assertEquals(1, strategy.calls);
+            assertEquals(0, strategy.getRetryCount());
+        }
+    }
+
+    @Test
+    public void testUploadRetries() throws IOException {
+        cloudinary.config.maxRetries = 3;
+        FailingUploaderStrategy strategy = new FailingUploaderStrategy();
+        Uploader uploader = new Uploader(cloudinary, strategy);
+        strategy.failures.add(new IOException("connection reset"));
+        strategy.failures.add(new HttpStatusException("limited", 420, new Date(System.currentTimeMillis() + 50)));
+        strategy.failures.add(new HttpStatusException("unavailable", 503));
+        assertEquals("ok", uploader.upload(new byte[10], ObjectUtils.emptyMap()).get("status"));
+        assertEquals(4, strategy.calls);
+        assertEquals(3, uploader.getStrategy().getRetryCount());
+        assertEquals(1, uploader.getStrategy().getRateLimitRetryCount());
+
+        strategy.failures.add(new HttpStatusException("Invalid image file", 400));
+        try {
+            uploader.upload(new byte[10], ObjectUtils.emptyMap());
+            fail("should not retry a bad request");
+        } catch (HttpStatusException e) {
+            assertEquals(400, e.getStatusCode());
+        }
+
+        strategy.failures.add(new IOException("connection reset"));
+        try {
+            uploader.upload(new ByteArrayInputStream(new byte[10]), ObjectUtils.emptyMap());
+            fail("should not retry a stream");
+        } catch (IOException e) {
+            assertEquals("connection reset", e.getMessage());
+        }
+
+        strategy.failures.add(new IOException("connection reset"));
+        try {
+            uploader.upload(new byte[10], ObjectUtils.asMap("retry_policy", RetryPolicy.NONE));
+            fail("should use the retry_policy option");
+        } catch (IOException e) {
+            assertEquals(3, uploader.getStrategy().getRetryCount());
+        }
+    }
+
+    private static class FailingApiStrategy extends StubApiStrategy {
+        final LinkedList<Exception> failures = new LinkedList<Exception>();
+        int calls;
+
+        @Override
+        protected Map respond(Api.HttpMethod method, String path, Map<String, ? extends Object> params) throws Exception {
+            calls++;
+            if (!failures.isEmpty()) throw failures.removeFirst();
+            return ObjectUtils.asMap("status", "pong");
+        }
+    }
+
+    private static class FailingUploaderStrategy extends AbstractUploaderStrategy {
+        final LinkedList<Exception> failures = new LinkedList<Exception>();
+        int calls;
+
+        @Override
+        public Map callApi(String action, Map<String, Object> params, Map options, Object file) throws IOException {
+            calls++;
+            if (!failures.isEmpty()) {
+                Exception failure = failures.removeFirst();
+                if (failure instanceof IOException) throw (IOException) failure;
+                throw (RuntimeException) failure;
+            }
+            return ObjectUtils.asMap("status", "ok");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.cloudinary.strategies;
+
+import com.cloudinary.Api;
+import com.cloudinary.Cloudinary;
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.api.RateLimit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An API strategy that answers calls without a server, for the tests of the core module. Subclasses return the
+ * body of each call from {@link #respond}, or throw the error of a failed call.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public abstract class StubApiStrategy extends AbstractApiStrategy {
+
+    /**
+     * @param query additional configuration in URL query form, e.g. <code>"coalesce_requests=true"</code>, or null
+     * @return an instance that does not load any HTTP strategy
+     */
+    public static Cloudinary cloudinary(String query) {
+        return new Cloudinary("cloudinary://a:b@test123?load_strategies=false" + (query == null ? "" : "&" + query));
+    }
+
+    /**
+     * @return <code>body</code> as an API response without rate limits
+     */
+    public static ApiResponse response(Map body) {
+        return new MapResponse(body);
+    }
+
+    /**
+     * @return the last component of a call path, such as the public ID of a resource
+     */
+    public static String lastComponent(String path) {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    /**
+     * @param path the components of the call URI joined with '/', e.g. <code>resources/image/upload</code>
+     * @return the body of the response
+     */
+    protected abstract Map respond(Api.HttpMethod method, String path, Map<String, ? extends Object> params) throws Exception;
+
+    @Override
+    public ApiResponse callApi(Api.HttpMethod method, Iterable<String> uri, Map<String, ? extends Object> params, Map options) throws Exception {
+        StringBuilder path = new StringBuilder();
+        for (String component : uri) {
+            if (path.length() > 0) path.append('/');
+            path.append(component);
+        }
+        return response(respond(method, path.toString(), params));
+    }
+
+    private static class MapResponse extends HashMap implements ApiResponse {
+        MapResponse(Map map) {
+            super(map);
+        }
+
+        @Override
+        public Map<String, RateLimit> rateLimits() {
+            return new HashMap<String, RateLimit>();
+        }
+
+        @Override
+        public RateLimit apiRateLimit() {
+            return null;
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.cloudinary.test;
 
 import com.cloudinary.Cloudinary;
+import com.cloudinary.CompiledTransformation;
 import com.cloudinary.ResponsiveBreakpoint;
+import com.cloudinary.SignatureCache;
+import com.cloudinary.Signer;
 import com.cloudinary.Transformation;
 import com.cloudinary.transformation.*;
 import com.cloudinary.utils.ObjectUtils;
@@ -382,6 +385,19 @@ public class CloudinaryTest {
         assertEquals("http://res.cloudinary.com/test123/image/fetch/f_jpg/http://cloudinary.com/images/old_logo.png", result);
     }
 
+    @Test
+    public void testCompiledTransformation() {
+        CompiledTransformation transformation = new Transformation().width(100).height(101).crop("crop").freeze();
+        String result = cloudinary.url().transformation(transformation).generate("test");
+        assertEquals(DEFAULT_UPLOAD_PATH + "c_crop,h_101,w_100/test", result);
+        result = cloudinary.url().transformation(transformation).imageTag("test");
+        assertEquals("<img src='" + DEFAULT_UPLOAD_PATH + "c_crop,h_101,w_100/test' height='101' width='100'/>", result);
+        // fetch format must not leak into the shared transformation
+        result = cloudinary.url().format("jpg").type("fetch").transformation(transformation).generate("http://cloudinary.com/images/old_logo.png");
+        assertEquals("http://res.cloudinary.com/test123/image/fetch/c_crop,f_jpg,h_101,w_100/http://cloudinary.com/images/old_logo.png", result);
+        assertEquals("c_crop,h_101,w_100", transformation.generate());
+    }
+
     @Test
     public void testEffect() {
         // should support effect
@@ -575,6 +591,63 @@ public class CloudinaryTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void testSignedUrlCache() {
+        assertNull(cloudinary.urlSignatureCache());
+        cloudinary.config.urlSignatureCacheSize = 2;
+        SignatureCache cache = cloudinary.urlSignatureCache();
+        String expected = DEFAULT_UPLOAD_PATH + "s--Ai4Znfl3--/c_crop,h_20,w_10/v1234/image.jpg";
+        for (int i = 0; i < 3; i++) {
+            String actual = cloudinary.url().version(1234).transformation(new Transformation().crop("crop").width(10).height(20)).signed(true)
+                    .generate("image.jpg");
+            assertEquals(expected, actual);
+        }
+        assertEquals(1, cache.misses());
+        assertEquals(2, cache.hits());
+
+        for (String publicId : new String[]{"a", "b", "c", "d"}) {
+            cloudinary.url().signed(true).generate(publicId);
+        }
+        assertTrue("should evict least recently used signatures", cache.size() <= 2);
+
+        cloudinary.config.apiSecret = "c";
+        assertNotSame("should not reuse signatures made with another secret", cache, cloudinary.urlSignatureCache());
+        assertEquals(DEFAULT_UPLOAD_PATH + "s--rVLDVI4h--/v1234/image.jpg", cloudinary.url().version(1234).signed(true).generate("image.jpg"));
+    }
+
+    @Test
+    public void testApiSignRequest() {
+        StringBuilder longValue = new StringBuilder();
+        for (int i = 0; i < 300; i++) longValue.append('\u00e9');
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("timestamp", 1315060510);
+        params.put("public_id", "b");
+        params.put("eager", Arrays.asList("c_scale,w_100", "c_crop"));
+        params.put("tags", new String[]{"a", "\u03b2"});
+        params.put("text", "h\u00e9llo \ud83d\ude00 \ud800");
+        params.put("long", longValue.toString());
+        params.put("empty", " ");
+        params.put("nil", null);
+
+        assertEquals("daa4cb30944e409573f5cff0d15f0373a5fc13b0", cloudinary.apiSignRequest(params, "abcd"));
+        // the per-thread digest must be reusable
+        assertEquals("daa4cb30944e409573f5cff0d15f0373a5fc13b0", cloudinary.apiSignRequest(params, "abcd"));
+
+        cloudinary.config.signatureAlgorithm = Signer.SHA256;
+        assertEquals("26031184937e6cbca19e8c9a12f2782c3c25f1de059248a1d7147e067f0b284d", cloudinary.apiSignRequest(params, "abcd"));
+        // url signatures are not affected
+        assertEquals(DEFAULT_UPLOAD_PATH + "s--Ai4Znfl3--/c_crop,h_20,w_10/v1234/image.jpg", cloudinary.url().version(1234)
+                .transformation(new Transformation().crop("crop").width(10).height(20)).signed(true).generate("image.jpg"));
+
+        cloudinary.config.signatureAlgorithm = "SHA-0";
+        try {
+            cloudinary.apiSignRequest(params, "abcd");
+            fail("should reject unsupported algorithms");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     @Test
     public void testResponsiveWidth() {
         // should support responsive width
@@ -0,0 +1,129 @@
+package com.cloudinary.utils;
+
+import org.cloudinary.json.JSONException;
+import org.cloudinary.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings("rawtypes")
+public class JsonDecoderTest {
+
+    private static Map<String, Object> decode(String json) throws IOException {
+        return JsonDecoder.decode(new ByteArrayInputStream(json.getBytes("UTF-8")));
+    }
+
+    @Test
+    public void testSameAsToMap() throws IOException {
+        StringBuilder json = new StringBuilder("{\"resources\":[");
+        for (int i = 0; i < 300; i++) {
+            if (i > 0) json.append(",");
+            json.append("{\"public_id\":\"folder/asset_").append(i).append("\",\"version\":").append(1400000000L + i)
+                    .append(",\"bytes\":").append(i * 1000).append(",\"aspect_ratio\":1.5,\"tags\":[\"a\",\"b\"],")
+                    .append("\"context\":{\"custom\":{\"alt\":\"caf\\u00e9 \\\"quoted\\\" \\/ \\\\ \\n\"}},")
+                    .append("\"placeholder\":false,\"moderation\":null,\"exif\":{},\"colors\":[]}");
+        }
+        json.append("],\"next_cursor\":\"abc\",\"rate_limit_remaining\":4999}");
+
+        Map<String, Object> expected = ObjectUtils.toMap(new JSONObject(json.toString()));
+        assertEquals(expected, decode(json.toString()));
+        assertEquals(expected, decode("\n  " + json.toString().replace(",", " ,\r\n\t") + "  "));
+    }
+
+    @Test
+    public void testValues() throws IOException {
+        Map<String, Object> result = decode("{\"int\": 12, \"long\": 12345678901, \"double\": -1.5e3, \"true\": true, "
+                + "\"null\": null, \"empty\": \"\", \"utf8\": \"\u05e9\u05dc\u05d5\u05dd \ud83d\ude00\", \"nested\": [[1], {\"a\": [null]}]}");
+        assertEquals(12, result.get("int"));
+        assertEquals(12345678901L, result.get("long"));
+        assertEquals(-1500.0, result.get("double"));
+        assertEquals(Boolean.TRUE, result.get("true"));
+        assertTrue(result.containsKey("null"));
+        assertNull(result.get("null"));
+        assertEquals("", result.get("empty"));
+        assertEquals("\u05e9\u05dc\u05d5\u05dd \ud83d\ude00", result.get("utf8"));
+        List nested = (List) result.get("nested");
+        assertEquals(Arrays.asList(1), nested.get(0));
+        assertEquals(Arrays.asList((Object) null), ((Map) nested.get(1)).get("a"));
+    }
+
+    @Test
+    public void testLongString() throws IOException {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            value.append("\u00e9\\\"x");
+        }
+        Map<String, Object> result = decode("{\"value\":\"" + value + "\"}");
+        assertEquals(15000, ((String) result.get("value")).length());
+        assertEquals(new JSONObject("{\"value\":\"" + value + "\"}").getString("value"), result.get("value"));
+    }
+
+    @Test
+    public void testStopsAfterObject() throws IOException {
+        InputStream in = new ByteArrayInputStream("{\"a\":1}".getBytes("UTF-8"));
+        assertEquals(ObjectUtils.asMap("a", 1), JsonDecoder.decode(in));
+    }
+
+    @Test
+    public void testInvalid() throws IOException {
+        for (String json : new String[]{"", "[1]", "{\"a\":1", "{\"a\" 1}", "{\"a\":\"b}", "{\"a\":}", "{a:1}", "{\"a\":\"\\x\"}", "<html>"}) {
+            try {
+                decode(json);
+                fail("should reject " + json);
+            } catch (JSONException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testLazyValues() throws Exception {
+        String json = "{\"public_id\":\"sample\",\"exif\":{\"Make\":\"} [\\\"{\",\"Model\":{\"a\":[1,{\"b\":2}]}},"
+                + "\"derived\":[{\"transformation\":\"c_fill\",\"exif\":{\"x\":1}}],\"colors\":[[\"#FFFFFF\",80.5]],\"tags\":[\"a\"]}";
+        Map<String, Object> result = decode(json);
+        Map exif = (Map) result.get("exif");
+        List derived = (List) result.get("derived");
+        assertTrue(exif instanceof LazyJsonMap);
+        assertTrue(derived instanceof LazyJsonList);
+        assertFalse("should not decode values before they are used", ((LazyJsonMap) exif).isDecoded());
+        assertFalse(result.get("tags") instanceof LazyJsonList);
+
+        assertEquals(ObjectUtils.toMap(new JSONObject(json)), result);
+        assertTrue(((LazyJsonMap) exif).isDecoded());
+        assertEquals("} [\"{", exif.get("Make"));
+        assertEquals("c_fill", ((Map) derived.get(0)).get("transformation"));
+        assertEquals(1, ((Map) ((Map) derived.get(0)).get("exif")).get("x"));
+        exif.put("Make", "changed");
+        assertEquals("changed", exif.get("Make"));
+
+        ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream());
+        out.writeObject(new HashMap<String, Object>(result));
+    }
+
+    @Test
+    public void testInvalidLazyValue() throws IOException {
+        try {
+            decode("{\"exif\":{\"a\":1}");
+            fail("should reject an unterminated object");
+        } catch (JSONException e) {
+            // expected
+        }
+        Map exif = (Map) decode("{\"exif\":{\"a\" 1}}").get("exif");
+        try {
+            exif.size();
+            fail("should reject the object when used");
+        } catch (JSONException e) {
+            // expected
+        }
+    }
+}
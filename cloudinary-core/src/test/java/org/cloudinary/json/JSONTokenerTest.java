@@ -0,0 +1,71 @@
+package org.cloudinary.json;
+
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class JSONTokenerTest {
+
+    private static JSONObject read(String json) {
+        return new JSONObject(new JSONTokener(new StringReader(json)));
+    }
+
+    @Test
+    public void testSameAsReader() {
+        String json = "{\"int\": 12, \"negative\" :-7 , \"long\": 12345678901, \"max\": 9223372036854775807,"
+                + " \"min_int\": -2147483648, \"above_int\": 2147483648, \"zero\": 0, \"padded\": 007, \"negative_zero\": -0,"
+                + " \"double\": -1.5e3, \"exponent\": 1E2, \"true\": true, \"upper\": TRUE, \"false\": false, \"null\": null,"
+                + " 'single': 'quoted \"value\"', unquoted: some text , \"escapes\": \"caf\\u00e9 \\\"q\\\" \\/ \\\\ \\n\\t\","
+                + " \"empty\": \"\", \"nested\": [[1, 2.5, \"x\"], {\"a\": [null, true]}, []], \"last\": {}}";
+        assertEquals(ObjectUtils.toMap(read(json)), ObjectUtils.toMap(new JSONObject(json)));
+        JSONObject parsed = new JSONObject(json);
+        assertEquals(12, parsed.get("int"));
+        assertEquals(-7, parsed.get("negative"));
+        assertEquals(9223372036854775807L, parsed.get("max"));
+        assertEquals(-2147483648, parsed.get("min_int"));
+        assertEquals(2147483648L, parsed.get("above_int"));
+        assertEquals("007", parsed.get("padded"));
+        assertEquals("-0", parsed.get("negative_zero"));
+        assertEquals(-1500.0, parsed.get("double"));
+        assertEquals(Boolean.TRUE, parsed.get("upper"));
+        assertEquals("some text", parsed.get("unquoted"));
+        assertEquals("caf\u00e9 \"q\" / \\ \n\t", parsed.get("escapes"));
+        assertEquals("[1,2.5,\"x\"]", new JSONArray("\r\n[1 ,2.5,\"x\"]").toString());
+    }
+
+    @Test
+    public void testErrors() {
+        // line breaks stepped back over are counted again by the reader
+        String[] invalid = {"{\"a\":1", "{\"a\":\"b", "{\"a\":\"b\nc\"}", "{\"a\":}", "{\r\n\"a\" 1}", "[1,2", "{\"a\":\"\\x\"}",
+                "{\"k\": \r}", "{nul\ntrue:\nnul", "{\"a\":1\r\n,\"b\" 2}", "{\"a\":x\r"};
+        for (String json : invalid) {
+            String expected = null;
+            try {
+                read(json);
+            } catch (JSONException e) {
+                expected = e.getMessage();
+            }
+            assertNotNull(json, expected);
+            try {
+                new JSONObject(json.startsWith("[") ? "{\"x\":" + json + "}" : json);
+                fail(json);
+            } catch (JSONException e) {
+                if (!json.startsWith("[")) assertEquals("should report the same position", expected, e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testSkipTo() {
+        JSONTokener tokener = new JSONTokener("abc:def");
+        assertEquals(0, tokener.skipTo('x'));
+        assertEquals('a', tokener.next());
+        assertEquals(':', tokener.skipTo(':'));
+        assertEquals(':', tokener.next());
+        assertEquals("def", tokener.nextTo(','));
+        assertFalse(tokener.more());
+    }
+}
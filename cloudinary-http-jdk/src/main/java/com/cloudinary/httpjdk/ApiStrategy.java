@@ -0,0 +1,185 @@
+package com.cloudinary.httpjdk;
+
+import com.cloudinary.Api;
+import com.cloudinary.Api.HttpMethod;
+import com.cloudinary.Cloudinary;
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.api.RateLimiter;
+import com.cloudinary.api.exceptions.GeneralError;
+import com.cloudinary.api.exceptions.RateLimited;
+import com.cloudinary.httpjdk.api.Response;
+import com.cloudinary.metrics.CallEvent;
+import com.cloudinary.strategies.RetryPolicy;
+import com.cloudinary.utils.Base64Coder;
+import com.cloudinary.utils.JsonDecoder;
+import com.cloudinary.utils.ObjectUtils;
+import com.cloudinary.utils.StringUtils;
+import org.cloudinary.json.JSONException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Constructor;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class ApiStrategy extends com.cloudinary.strategies.AbstractApiStrategy {
+
+    @Override
+    public void close() throws IOException {
+        if (api != null) ConnectionPool.close(api.cloudinary);
+    }
+
+    @SuppressWarnings("rawtypes")
+    public ApiResponse callApi(HttpMethod method, Iterable<String> uri, Map<String, ?> params, Map options) throws Exception {
+        if (options == null)
+            options = ObjectUtils.emptyMap();
+
+        HttpRequest request = prepareRequest(method, uri, params, options);
+        CallEvent event = CallEvent.current();
+        if (event != null) {
+            request.bodyPublisher().ifPresent(body -> event.setRequestBytes(body.contentLength()));
+        }
+        HttpResponse<InputStream> response;
+        try {
+            response = ConnectionPool.get(api.cloudinary).client().send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            throw ApiUtils.interrupted(e);
+        }
+        InputStream responseStream = response.body();
+        if (event != null) {
+            event.firstByte();
+            event.setStatusCode(response.statusCode());
+            responseStream = event.countResponse(responseStream);
+        }
+        try {
+            return toResponse(response, response.statusCode(), response.headers(), responseStream);
+        } finally {
+            // releases the exchange, so that the connection is reused
+            responseStream.close();
+        }
+    }
+
+    /**
+     * Send the call without blocking the calling thread, see {@link AsyncApi}. Concurrent calls share the connections
+     * of the client, which multiplexes them over a single connection to servers that support HTTP/2.
+     * <p>
+     * Failed calls are retried as decided by their {@link RetryPolicy}, waiting without holding a thread. Calls are
+     * not paced by the rate limiter of the instance, but their responses update it.
+     *
+     * @return a future completed with the response, or with the exception {@link #callApi} would throw
+     */
+    @SuppressWarnings("rawtypes")
+    public CompletableFuture<ApiResponse> callApiAsync(HttpMethod method, Iterable<String> uri, Map<String, ?> params, Map options) {
+        final Map callOptions = options == null ? ObjectUtils.emptyMap() : options;
+        final HttpRequest request;
+        try {
+            request = prepareRequest(method, uri, params, callOptions);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        final HttpClient client = ConnectionPool.get(api.cloudinary).client();
+        final RateLimiter limiter = api.cloudinary.apiRateLimiter();
+        // the body is received without holding a thread, then decoded from memory
+        return AsyncRetry.withRetries(RetryPolicy.forCall(api.cloudinary.config, callOptions), () -> client
+                .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenCompose(response -> {
+                    try {
+                        ApiResponse result = toResponse(response, response.statusCode(), response.headers(),
+                                new ByteArrayInputStream(response.body()));
+                        updateRateLimiter(limiter, result, null);
+                        return CompletableFuture.completedFuture(result);
+                    } catch (Exception e) {
+                        updateRateLimiter(limiter, null, e);
+                        return CompletableFuture.failedFuture(e);
+                    }
+                }));
+    }
+
+    @SuppressWarnings("rawtypes")
+    private ApiResponse toResponse(HttpResponse<?> response, int code, HttpHeaders headers, InputStream responseStream) throws Exception {
+        Class<? extends Exception> exceptionClass = Api.CLOUDINARY_API_ERROR_CLASSES.get(code);
+        if (code != 200 && exceptionClass == null) {
+            throw new GeneralError("Server returned unexpected status code - " + code + " - " + StringUtils.read(responseStream), code);
+        }
+
+        Map result;
+        try {
+            result = JsonDecoder.decode(responseStream);
+        } catch (JSONException e) {
+            throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
+        }
+
+        if (code == 200) {
+            return new Response(response, result);
+        } else {
+            String message = (String) ((Map) result.get("error")).get("message");
+            Constructor<? extends Exception> exceptionConstructor = exceptionClass.getConstructor(String.class);
+            Exception exception = exceptionConstructor.newInstance(message);
+            if (exception instanceof RateLimited) {
+                ((RateLimited) exception).setReset(Response.rateLimitReset(headers));
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Prepare a request with the URL and parameters based on the HTTP method used
+     * @param method the HTTP method: GET, PUT, POST, DELETE
+     * @param uri the components of the cloudinary API URI
+     * @param params the parameters to pass to the server
+     * @return an HTTP request
+     * @throws UnsupportedEncodingException
+     */
+    @SuppressWarnings("rawtypes")
+    private HttpRequest prepareRequest(HttpMethod method, Iterable<String> uri, Map<String, ?> params, Map options) throws UnsupportedEncodingException {
+        String prefix = ObjectUtils.asString(options.get("upload_prefix"), ObjectUtils.asString(this.api.cloudinary.config.uploadPrefix, "https://api.cloudinary.com"));
+        String cloudName = ObjectUtils.asString(options.get("cloud_name"), this.api.cloudinary.config.cloudName);
+        if (cloudName == null) throw new IllegalArgumentException("Must supply cloud_name");
+        String apiKey = ObjectUtils.asString(options.get("api_key"), this.api.cloudinary.config.apiKey);
+        if (apiKey == null) throw new IllegalArgumentException("Must supply api_key");
+        String apiSecret = ObjectUtils.asString(options.get("api_secret"), this.api.cloudinary.config.apiSecret);
+        if (apiSecret == null) throw new IllegalArgumentException("Must supply api_secret");
+
+        String apiUrl = StringUtils.join(Arrays.asList(prefix, "v1_1", cloudName), "/");
+        for (String component : uri) {
+            apiUrl = apiUrl + "/" + component;
+        }
+
+        String parameters = ApiUtils.encodeParams(params);
+        HttpRequest.Builder request;
+        if (method == HttpMethod.GET) {
+            request = HttpRequest.newBuilder(URI.create(parameters.isEmpty() ? apiUrl : apiUrl + "?" + parameters)).GET();
+        } else {
+            request = HttpRequest.newBuilder(URI.create(apiUrl))
+                    .header("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+            switch (method) {
+                case PUT:
+                    request.PUT(HttpRequest.BodyPublishers.ofString(parameters));
+                    break;
+                case DELETE: //uses POST instead of DELETE
+                    StringBuilder withMethod = new StringBuilder(parameters);
+                    ApiUtils.appendParam(withMethod, "_method", "delete");
+                    parameters = withMethod.toString();
+                    //continue with POST
+                case POST:
+                    request.POST(HttpRequest.BodyPublishers.ofString(parameters));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown HTTP method");
+            }
+        }
+        request.header("User-Agent", Cloudinary.USER_AGENT + " JavaHttpClient");
+        request.header("Authorization", "Basic " + Base64Coder.encodeString(apiKey + ":" + apiSecret));
+        ApiUtils.setTimeouts(request, options, this.api.cloudinary.config.timeout);
+        return request.build();
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.cloudinary.httpjdk;
+
+import com.cloudinary.utils.ObjectUtils;
+
+import java.io.InterruptedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Map;
+
+public class ApiUtils {
+
+    /**
+     * Set the response timeout of <code>request</code> from the <code>timeout</code> option in milliseconds, or else
+     * from <code>defaultTimeout</code> in seconds. The connect timeout is a setting of the shared client, see
+     * {@link ConnectionPool}, so the <code>connect_timeout</code> and <code>connection_request_timeout</code> options
+     * of the Apache HTTP strategies are not supported.
+     */
+    public static void setTimeouts(HttpRequest.Builder request, Map options, int defaultTimeout) {
+        Integer timeout = (Integer) options.get("timeout");
+        if (timeout != null && timeout > 0) {
+            request.timeout(Duration.ofMillis(timeout));
+        } else if (defaultTimeout > 0) {
+            request.timeout(Duration.ofSeconds(defaultTimeout));
+        }
+    }
+
+    static String encodeParams(Map<String, ?> params) throws UnsupportedEncodingException {
+        StringBuilder encoded = new StringBuilder();
+        for (Map.Entry<String, ?> param : params.entrySet()) {
+            if (param.getValue() instanceof Iterable) {
+                for (Object single : (Iterable<?>) param.getValue()) {
+                    appendParam(encoded, param.getKey() + "[]", ObjectUtils.asString(single));
+                }
+            } else {
+                appendParam(encoded, param.getKey(), ObjectUtils.asString(param.getValue()));
+            }
+        }
+        return encoded.toString();
+    }
+
+    static void appendParam(StringBuilder encoded, String name, String value) throws UnsupportedEncodingException {
+        if (encoded.length() > 0) encoded.append('&');
+        encoded.append(URLEncoder.encode(name, "UTF-8"));
+        if (value != null) encoded.append('=').append(URLEncoder.encode(value, "UTF-8"));
+    }
+
+    static InterruptedIOException interrupted(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        InterruptedIOException interrupted = new InterruptedIOException("Interrupted while waiting for the response");
+        interrupted.initCause(e);
+        return interrupted;
+    }
+}
@@ -0,0 +1,80 @@
+package com.cloudinary.httpjdk;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.cloudinary.Api;
+import com.cloudinary.Api.HttpMethod;
+import com.cloudinary.Cloudinary;
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.utils.ObjectUtils;
+
+/**
+ * Non-blocking counterpart of the most used {@link Api} calls, see {@link AsyncUploader}. Other Admin API endpoints
+ * are available through {@link #callApi}. The resources cached by {@link com.cloudinary.ResourceCache} are
+ * invalidated as by {@link Api} when the calls that change them complete, but not by {@link #callApi}.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class AsyncApi {
+    private final Api api;
+    private final ApiStrategy strategy;
+
+    /**
+     * Use the Admin API strategy of <code>cloudinary</code> if it is this adapter's, and a new one sharing its
+     * client otherwise.
+     */
+    public AsyncApi(Cloudinary cloudinary) {
+        Api api = cloudinary.api();
+        if (!(api.getStrategy() instanceof ApiStrategy)) {
+            api = new Api(cloudinary, new ApiStrategy());
+        }
+        this.api = api;
+        this.strategy = (ApiStrategy) api.getStrategy();
+    }
+
+    public Api api() {
+        return api;
+    }
+
+    public CompletableFuture<ApiResponse> callApi(HttpMethod method, Iterable<String> uri, Map<String, ? extends Object> params, Map options) {
+        return strategy.callApiAsync(method, uri, params, options);
+    }
+
+    public CompletableFuture<ApiResponse> ping(Map options) {
+        return callApi(HttpMethod.GET, Arrays.asList("ping"), ObjectUtils.emptyMap(), options);
+    }
+
+    public CompletableFuture<ApiResponse> resources(Map options) {
+        if (options == null) options = ObjectUtils.emptyMap();
+        String resourceType = ObjectUtils.asString(options.get("resource_type"), "image");
+        String type = ObjectUtils.asString(options.get("type"));
+        List<String> uri = new ArrayList<String>();
+        uri.add("resources");
+        uri.add(resourceType);
+        if (type != null)
+            uri.add(type);
+        return callApi(HttpMethod.GET, uri, ObjectUtils.only(options, "next_cursor", "direction", "max_results", "prefix", "tags", "context", "moderations", "start_at"), options);
+    }
+
+    public CompletableFuture<ApiResponse> resource(String public_id, Map options) {
+        if (options == null) options = ObjectUtils.emptyMap();
+        String resourceType = ObjectUtils.asString(options.get("resource_type"), "image");
+        String type = ObjectUtils.asString(options.get("type"), "upload");
+        return callApi(HttpMethod.GET, Arrays.asList("resources", resourceType, type, public_id),
+                ObjectUtils.only(options, "exif", "colors", "faces", "coordinates",
+                        "image_metadata", "pages", "phash", "max_results"), options);
+    }
+
+    public CompletableFuture<ApiResponse> deleteResources(Iterable<String> publicIds, Map options) {
+        if (options == null) options = ObjectUtils.emptyMap();
+        String resourceType = ObjectUtils.asString(options.get("resource_type"), "image");
+        String type = ObjectUtils.asString(options.get("type"), "upload");
+        Map params = ObjectUtils.only(options, "keep_original", "invalidate", "next_cursor");
+        params.put("public_ids", publicIds);
+        return callApi(HttpMethod.DELETE, Arrays.asList("resources", resourceType, type), params, options)
+                .whenComplete((result, error) -> api.invalidateCachedResources(publicIds));
+    }
+}
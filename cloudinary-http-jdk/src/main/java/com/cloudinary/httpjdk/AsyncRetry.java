@@ -0,0 +1,41 @@
+package com.cloudinary.httpjdk;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.cloudinary.strategies.RetryPolicy;
+
+/**
+ * Retries of asynchronous calls as decided by a {@link RetryPolicy}. The delay before a retry is scheduled instead
+ * of slept, so waiting calls do not hold threads.
+ */
+final class AsyncRetry {
+
+    private AsyncRetry() {
+    }
+
+    static <T> CompletableFuture<T> withRetries(RetryPolicy policy, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<T>();
+        attempt(policy, call, 1, result);
+        return result;
+    }
+
+    private static <T> void attempt(final RetryPolicy policy, final Supplier<CompletableFuture<T>> call, final int attempt, final CompletableFuture<T> result) {
+        call.get().whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            long delay = cause instanceof Exception ? policy.retryDelay(attempt, (Exception) cause) : -1;
+            if (delay < 0 || result.isDone()) {
+                result.completeExceptionally(cause);
+            } else {
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS)
+                        .execute(() -> attempt(policy, call, attempt + 1, result));
+            }
+        });
+    }
+}
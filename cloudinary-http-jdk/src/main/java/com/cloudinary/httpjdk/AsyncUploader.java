@@ -0,0 +1,72 @@
+package com.cloudinary.httpjdk;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import com.cloudinary.utils.ObjectUtils;
+
+/**
+ * Non-blocking counterpart of {@link Uploader}: each call returns as soon as its request is built and signed, and
+ * the returned future completes when the response arrives. Requests are sent with the shared HTTP client of the
+ * {@link Cloudinary} instance, so thousands of concurrent uploads run on the few threads of the client.
+ * <p>
+ * The parameters are built and signed as by {@link Uploader}, and failed calls are retried as configured with
+ * <code>max_retries</code>. Files are streamed from disk and are not read into memory. The resources cached by
+ * {@link com.cloudinary.ResourceCache} are invalidated as by {@link Uploader} when the calls complete.
+ */
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class AsyncUploader {
+    private final Uploader uploader;
+    private final UploaderStrategy strategy;
+
+    /**
+     * Use the upload strategy of <code>cloudinary</code> if it is this adapter's, and a new one sharing its client
+     * otherwise, so that asynchronous calls are available even when another adapter was loaded.
+     */
+    public AsyncUploader(Cloudinary cloudinary) {
+        Uploader uploader = cloudinary.uploader();
+        if (!(uploader.getStrategy() instanceof UploaderStrategy)) {
+            uploader = new Uploader(cloudinary, new UploaderStrategy());
+        }
+        this.uploader = uploader;
+        this.strategy = (UploaderStrategy) uploader.getStrategy();
+    }
+
+    public Uploader uploader() {
+        return uploader;
+    }
+
+    public CompletableFuture<Map> callApi(String action, Map<String, Object> params, Map options, Object file) {
+        return strategy.callApiAsync(action, params, options, file)
+                .whenComplete((result, error) -> uploader.invalidateCachedResources(params));
+    }
+
+    public CompletableFuture<Map> upload(Object file, Map options) {
+        if (options == null)
+            options = ObjectUtils.emptyMap();
+        Map<String, Object> params = uploader.buildUploadParams(options);
+        return callApi("upload", params, options, file);
+    }
+
+    public CompletableFuture<Map> unsignedUpload(Object file, String uploadPreset, Map options) {
+        if (options == null)
+            options = ObjectUtils.emptyMap();
+        HashMap nextOptions = new HashMap(options);
+        nextOptions.put("unsigned", true);
+        nextOptions.put("upload_preset", uploadPreset);
+        return upload(file, nextOptions);
+    }
+
+    public CompletableFuture<Map> destroy(String publicId, Map options) {
+        if (options == null)
+            options = ObjectUtils.emptyMap();
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("type", (String) options.get("type"));
+        params.put("public_id", publicId);
+        params.put("invalidate", ObjectUtils.asBoolean(options.get("invalidate"), false).toString());
+        return callApi("destroy", params, options, null);
+    }
+}
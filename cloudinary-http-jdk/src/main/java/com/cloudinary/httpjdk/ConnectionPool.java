@@ -0,0 +1,76 @@
+package com.cloudinary.httpjdk;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Configuration;
+
+/**
+ * The HTTP client shared by the {@link UploaderStrategy} and the {@link ApiStrategy} of a {@link Cloudinary} instance.
+ * <p>
+ * The client negotiates HTTP/2 with the server, so concurrent calls are multiplexed over few connections instead of
+ * taking one connection each. It is created on first use from the instance's configuration (proxy and
+ * <code>timeout</code> as the connect timeout) and released by {@link Cloudinary#close()}. A client supplied in the
+ * <code>httpClient</code> property is used as is and is left for the application to close.
+ */
+final class ConnectionPool {
+    private static final Map<Cloudinary, ConnectionPool> POOLS = new WeakHashMap<Cloudinary, ConnectionPool>();
+
+    private final HttpClient client;
+    private final boolean ownsClient;
+
+    static ConnectionPool get(Cloudinary cloudinary) {
+        synchronized (POOLS) {
+            ConnectionPool pool = POOLS.get(cloudinary);
+            if (pool == null) {
+                pool = new ConnectionPool(cloudinary.config);
+                POOLS.put(cloudinary, pool);
+            }
+            return pool;
+        }
+    }
+
+    static void close(Cloudinary cloudinary) throws IOException {
+        ConnectionPool pool;
+        synchronized (POOLS) {
+            pool = POOLS.remove(cloudinary);
+        }
+        // HttpClient is AutoCloseable from Java 21, before that its connections are closed once it is unreachable
+        if (pool != null && pool.ownsClient && pool.client instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) pool.client).close();
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private ConnectionPool(Configuration config) {
+        HttpClient client = (HttpClient) config.properties.get("httpClient");
+        this.ownsClient = client == null;
+        if (ownsClient) {
+            HttpClient.Builder builder = HttpClient.newBuilder().version(HttpClient.Version.HTTP_2);
+            // If the configuration specifies a proxy then apply it to the client
+            if (config.proxyHost != null && config.proxyPort != 0) {
+                builder.proxy(ProxySelector.of(new InetSocketAddress(config.proxyHost, config.proxyPort)));
+            }
+            if (config.timeout > 0) {
+                builder.connectTimeout(Duration.ofSeconds(config.timeout));
+            }
+            client = builder.build();
+        }
+        this.client = client;
+    }
+
+    HttpClient client() {
+        return client;
+    }
+}
@@ -0,0 +1,94 @@
+package com.cloudinary.httpjdk;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import com.cloudinary.FileRegion;
+
+/**
+ * A multipart/form-data request body of known length. Files are not read into memory: each send of the body,
+ * including retries, opens them again and streams them after the buffered part headers.
+ */
+final class MultipartBody {
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final String boundary = "cloudinary-" + UUID.randomUUID();
+    // byte[] and FileRegion segments
+    private final List<Object> segments = new ArrayList<Object>();
+    private long length;
+
+    void addText(String name, String value) {
+        addBytes(partHeader(name, null, null));
+        addBytes(value.getBytes(StandardCharsets.UTF_8));
+        addBytes(CRLF);
+    }
+
+    void addBinary(String name, byte[] data, String filename) {
+        addBytes(partHeader(name, filename, "application/octet-stream"));
+        addBytes(data);
+        addBytes(CRLF);
+    }
+
+    void addBinary(String name, FileRegion region, String filename) {
+        addBytes(partHeader(name, filename, "application/octet-stream"));
+        segments.add(region);
+        length += region.getLength();
+        addBytes(CRLF);
+    }
+
+    String contentType() {
+        return "multipart/form-data; boundary=" + boundary;
+    }
+
+    HttpRequest.BodyPublisher publisher() {
+        final List<Object> parts = new ArrayList<Object>(segments);
+        parts.add(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        long total = length + ((byte[]) parts.get(parts.size() - 1)).length;
+        return HttpRequest.BodyPublishers.fromPublisher(HttpRequest.BodyPublishers.ofInputStream(() -> open(parts)), total);
+    }
+
+    private static InputStream open(List<Object> parts) {
+        List<InputStream> streams = new ArrayList<InputStream>(parts.size());
+        try {
+            for (Object part : parts) {
+                streams.add(part instanceof byte[] ? new ByteArrayInputStream((byte[]) part) : ((FileRegion) part).openStream());
+            }
+        } catch (IOException e) {
+            for (InputStream stream : streams) {
+                try {
+                    stream.close();
+                } catch (IOException ignored) {
+                }
+            }
+            throw new UncheckedIOException(e);
+        }
+        return new SequenceInputStream(Collections.enumeration(streams));
+    }
+
+    private byte[] partHeader(String name, String filename, String contentType) {
+        StringBuilder header = new StringBuilder("--").append(boundary).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(quote(name)).append('"');
+        if (filename != null) header.append("; filename=\"").append(quote(filename)).append('"');
+        header.append("\r\n");
+        if (contentType != null) header.append("Content-Type: ").append(contentType).append("\r\n");
+        return header.append("\r\n").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String quote(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\r", "").replace("\n", "");
+    }
+
+    private void addBytes(byte[] bytes) {
+        segments.add(bytes);
+        length += bytes.length;
+    }
+}
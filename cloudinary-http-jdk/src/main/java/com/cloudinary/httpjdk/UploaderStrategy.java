@@ -0,0 +1,191 @@
+package com.cloudinary.httpjdk;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.cloudinary.json.JSONException;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.FileRegion;
+import com.cloudinary.Util;
+import com.cloudinary.httpjdk.api.Response;
+import com.cloudinary.metrics.CallEvent;
+import com.cloudinary.strategies.AbstractUploaderStrategy;
+import com.cloudinary.strategies.HttpStatusException;
+import com.cloudinary.strategies.RetryPolicy;
+import com.cloudinary.utils.JsonDecoder;
+import com.cloudinary.utils.ObjectUtils;
+import com.cloudinary.utils.StringUtils;
+
+public class UploaderStrategy extends AbstractUploaderStrategy {
+
+    @Override
+    public boolean supportsFileRegions() {
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (uploader != null) ConnectionPool.close(cloudinary());
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    @Override
+    public Map callApi(String action, Map<String, Object> params, Map options, Object file) throws IOException {
+        // initialize options if passed as null
+        if (options == null) {
+            options = ObjectUtils.emptyMap();
+        }
+        HttpRequest request = prepareRequest(action, params, options, file);
+
+        CallEvent event = CallEvent.current();
+        if (event != null) {
+            request.bodyPublisher().ifPresent(body -> event.setRequestBytes(body.contentLength()));
+        }
+        HttpResponse<InputStream> response;
+        try {
+            response = ConnectionPool.get(cloudinary()).client().send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            throw ApiUtils.interrupted(e);
+        }
+        InputStream responseStream = response.body();
+        if (event != null) {
+            event.firstByte();
+            event.setStatusCode(response.statusCode());
+            responseStream = event.countResponse(responseStream);
+        }
+        try {
+            return toResult(response.statusCode(), response.headers(), responseStream, options);
+        } finally {
+            responseStream.close();
+        }
+    }
+
+    /**
+     * Send the call without blocking the calling thread, see {@link AsyncUploader}. The request is signed once, so
+     * a retry of the returned call sends the same request again.
+     *
+     * @return a future completed with the result, or with the exception {@link #callApi} would throw
+     */
+    @SuppressWarnings("rawtypes")
+    public CompletableFuture<Map> callApiAsync(String action, Map<String, Object> params, Map options, Object file) {
+        final Map callOptions = options == null ? ObjectUtils.emptyMap() : options;
+        final HttpRequest request;
+        try {
+            request = prepareRequest(action, params, callOptions, file);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        RetryPolicy policy = file instanceof InputStream ? RetryPolicy.NONE : RetryPolicy.forCall(cloudinary().config, callOptions);
+        final HttpClient client = ConnectionPool.get(cloudinary()).client();
+        return AsyncRetry.withRetries(policy, () -> client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenCompose(response -> {
+                    try {
+                        return CompletableFuture.completedFuture(toResult(response.statusCode(), response.headers(),
+                                new ByteArrayInputStream(response.body()), callOptions));
+                    } catch (Exception e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                }));
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private HttpRequest prepareRequest(String action, Map<String, Object> params, Map options, Object file) throws IOException {
+        if (options.get("unsigned") == null || Boolean.FALSE.equals(options.get("unsigned"))) {
+            uploader.signRequestParams(params, options);
+        } else {
+            Util.clearEmpty(params);
+        }
+
+        String apiUrl = uploader.cloudinary().cloudinaryApiUrl(action, options);
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(apiUrl));
+        ApiUtils.setTimeouts(request, options, 0);
+        request.header("User-Agent", Cloudinary.USER_AGENT + " JavaHttpClient");
+
+        Map<String, String> extraHeaders = (Map<String, String>) options.get("extra_headers");
+        if (extraHeaders != null) {
+            for (Map.Entry<String, String> header : extraHeaders.entrySet()) {
+                request.setHeader(header.getKey(), header.getValue());
+            }
+        }
+
+        MultipartBody multipart = new MultipartBody();
+        // Remove blank parameters
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            if (param.getValue() instanceof Collection) {
+                for (Object value : (Collection) param.getValue()) {
+                    multipart.addText(param.getKey() + "[]", ObjectUtils.asString(value));
+                }
+            } else {
+                String value = param.getValue().toString();
+                if (StringUtils.isNotBlank(value)) {
+                    multipart.addText(param.getKey(), value);
+                }
+            }
+        }
+
+        if (file instanceof String && !((String) file).matches("ftp:.*|https?:.*|s3:.*|data:[^;]*;base64,([a-zA-Z0-9/+\n=]+)")) {
+            File _file = new File((String) file);
+            if (!_file.isFile() && !_file.canRead()) {
+                throw new IOException("File not found or unreadable: " + file);
+            }
+            file = _file;
+        }
+        String filename = (String) options.get("filename");
+        if (file instanceof File) {
+            if (filename == null) filename = ((File) file).getName();
+            multipart.addBinary("file", new FileRegion((File) file, 0, ((File) file).length()), filename);
+        } else if (file instanceof String) {
+            multipart.addText("file", (String) file);
+        } else if (file instanceof byte[]) {
+            if (filename == null) filename = "file";
+            multipart.addBinary("file", (byte[]) file, filename);
+        } else if (file instanceof FileRegion) {
+            if (filename == null) filename = "file";
+            multipart.addBinary("file", (FileRegion) file, filename);
+        } else if (file == null) {
+            // no-problem
+        } else {
+            throw new IOException("Unrecognized file parameter " + file);
+        }
+        request.header("Content-Type", multipart.contentType());
+        request.POST(multipart.publisher());
+        return request.build();
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Map toResult(int code, HttpHeaders headers, InputStream responseStream, Map options) throws IOException {
+        if (code != 200 && code != 400 && code != 404 && code != 500) {
+            throw new HttpStatusException("Server returned unexpected status code - " + code + " - " + StringUtils.read(responseStream),
+                    code, code == 420 ? Response.rateLimitReset(headers) : null);
+        }
+
+        Map result;
+        try {
+            result = JsonDecoder.decode(responseStream);
+        } catch (JSONException e) {
+            throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
+        }
+
+        if (result.containsKey("error")) {
+            Map error = (Map) result.get("error");
+            if (ObjectUtils.asBoolean(options.get("return_error"), false)) {
+                error.put("http_code", code);
+            } else {
+                throw new HttpStatusException((String) error.get("message"), code);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,90 @@
+package com.cloudinary.httpjdk.api;
+
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.api.RateLimit;
+import com.cloudinary.utils.StringUtils;
+
+@SuppressWarnings("rawtypes")
+public class Response extends HashMap implements ApiResponse {
+    private static final long serialVersionUID = 2516452016473214532L;
+    private HttpResponse<?> response = null;
+
+    @SuppressWarnings("unchecked")
+    public Response(HttpResponse<?> response, Map result) {
+        super(result);
+        this.response = response;
+    }
+
+    public HttpResponse<?> getRawHttpResponse() {
+        return this.response;
+    }
+
+    // HTTP/2 header names are lower case
+    private static final Pattern RATE_LIMIT_REGEX = Pattern
+            .compile("X-Feature(\\w*)RateLimit(-Limit|-Reset|-Remaining)", Pattern.CASE_INSENSITIVE);
+
+    public Map<String, RateLimit> rateLimits() throws java.text.ParseException {
+        Map<String, RateLimit> limits = new HashMap<String, RateLimit>();
+        for (Map.Entry<String, List<String>> header : this.response.headers().map().entrySet()) {
+            Matcher m = RATE_LIMIT_REGEX.matcher(header.getKey());
+            if (m.matches() && !header.getValue().isEmpty()) {
+                String limitName = "Api";
+                String value = header.getValue().get(0);
+                if (!StringUtils.isEmpty(m.group(1))) {
+                    limitName = m.group(1);
+                }
+                RateLimit limit = limits.get(limitName);
+                if (limit == null) {
+                    limit = new RateLimit();
+                }
+                if (m.group(2).equalsIgnoreCase("-limit")) {
+                    limit.setLimit(Long.parseLong(value));
+                } else if (m.group(2).equalsIgnoreCase("-remaining")) {
+                    limit.setRemaining(Long.parseLong(value));
+                } else if (m.group(2).equalsIgnoreCase("-reset")) {
+                    try {
+                        limit.setReset(parseDate(value));
+                    } catch (DateTimeParseException e) {
+                        throw new java.text.ParseException(e.getMessage(), e.getErrorIndex());
+                    }
+                }
+                limits.put(limitName, limit);
+            }
+        }
+        return limits;
+    }
+
+    /**
+     * @return the time the API rate limit of a response with these headers resets, or null if it has no valid reset header
+     */
+    public static Date rateLimitReset(HttpHeaders headers) {
+        Optional<String> header = headers.firstValue("X-FeatureRateLimit-Reset");
+        if (!header.isPresent()) return null;
+        try {
+            return parseDate(header.get());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static Date parseDate(String value) {
+        return Date.from(ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+    }
+
+    public RateLimit apiRateLimit() throws java.text.ParseException {
+        return rateLimits().get("Api");
+    }
+}
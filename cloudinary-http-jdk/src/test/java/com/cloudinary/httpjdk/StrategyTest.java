@@ -0,0 +1,258 @@
+package com.cloudinary.httpjdk;
+
+import com.cloudinary.Api;
+import com.cloudinary.Cloudinary;
+import com.cloudinary.FileRegion;
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.api.exceptions.NotFound;
+import com.cloudinary.api.exceptions.RateLimited;
+import com.cloudinary.strategies.HttpStatusException;
+import com.cloudinary.utils.ObjectUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@SuppressWarnings({"rawtypes", "unchecked"})
+public class StrategyTest {
+    private HttpServer server;
+    private Cloudinary cloudinary;
+    private volatile String lastMethod;
+    private volatile String lastUri;
+    private volatile String lastAuthorization;
+    private volatile String lastContentType;
+    private volatile String lastContentLength;
+    private volatile byte[] lastBody;
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+        cloudinary = new Cloudinary("cloudinary://a:b@test123?upload_prefix=http://localhost:" + server.getAddress().getPort());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        cloudinary.close();
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        lastMethod = exchange.getRequestMethod();
+        lastUri = exchange.getRequestURI().toString();
+        lastAuthorization = exchange.getRequestHeaders().getFirst("Authorization");
+        lastContentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        lastContentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+        lastBody = exchange.getRequestBody().readAllBytes();
+        String path = exchange.getRequestURI().getPath();
+        int code = 200;
+        String body = "{\"status\":\"ok\",\"length\":" + lastBody.length + "}";
+        if (path.endsWith("/missing")) {
+            code = 404;
+            body = "{\"error\":{\"message\":\"Resource not found\"}}";
+        } else if (path.endsWith("/limited")) {
+            code = 420;
+            body = "{\"error\":{\"message\":\"Rate limit exceeded\"}}";
+            exchange.getResponseHeaders().add("X-FeatureRateLimit-Reset", "Sun, 18 Oct 2026 10:00:00 GMT");
+        } else if (path.endsWith("/malformed")) {
+            exchange.getResponseHeaders().add("X-FeatureRateLimit-Reset", "not a date");
+        } else if (path.endsWith("/unavailable") || path.endsWith("/flaky") && flakyCalls.incrementAndGet() == 1) {
+            code = 503;
+            body = "Service Unavailable";
+        }
+        exchange.getResponseHeaders().add("X-FeatureRateLimit-Limit", "500");
+        exchange.getResponseHeaders().add("X-FeatureRateLimit-Remaining", "499");
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, bytes.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+
+    private ApiStrategy apiStrategy() {
+        return (ApiStrategy) cloudinary.api().getStrategy();
+    }
+
+    @Test
+    public void testLoadedByDefault() throws IOException {
+        assertTrue(cloudinary.api().getStrategy() instanceof ApiStrategy);
+        assertTrue(cloudinary.uploader().getStrategy() instanceof UploaderStrategy);
+        HttpClient client = ConnectionPool.get(cloudinary).client();
+        assertSame(client, ConnectionPool.get(cloudinary).client());
+        assertEquals(HttpClient.Version.HTTP_2, client.version());
+        cloudinary.close();
+        assertNotSame("should create a new client after close", client, ConnectionPool.get(cloudinary).client());
+    }
+
+    @Test
+    public void testApiCalls() throws Exception {
+        ApiResponse response = cloudinary.api().resources(ObjectUtils.asMap("max_results", 10, "tags", true));
+        assertEquals("ok", response.get("status"));
+        assertEquals("GET", lastMethod);
+        assertEquals("/v1_1/test123/resources/image?max_results=10&tags=true", lastUri);
+        assertEquals("Basic YTpi", lastAuthorization);
+        assertEquals(499, response.apiRateLimit().getRemaining());
+        assertEquals(500, response.apiRateLimit().getLimit());
+
+        cloudinary.api().deleteResources(Arrays.asList("a b", "c"), ObjectUtils.emptyMap());
+        assertEquals("POST", lastMethod);
+        assertEquals("/v1_1/test123/resources/image/upload", lastUri);
+        assertEquals("public_ids%5B%5D=a+b&public_ids%5B%5D=c&_method=delete", new String(lastBody, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testApiErrors() throws Exception {
+        try {
+            apiStrategy().callApi(Api.HttpMethod.GET, Arrays.asList("missing"), ObjectUtils.emptyMap(), null);
+            fail("should throw NotFound");
+        } catch (NotFound e) {
+            assertEquals("Resource not found", e.getMessage());
+        }
+        try {
+            apiStrategy().callApi(Api.HttpMethod.GET, Arrays.asList("limited"), ObjectUtils.emptyMap(), null);
+            fail("should throw RateLimited");
+        } catch (RateLimited e) {
+            assertEquals(1792317600000L, e.getReset().getTime());
+        }
+    }
+
+    @Test
+    public void testAsyncCalls() throws Exception {
+        AsyncApi api = new AsyncApi(cloudinary);
+        assertSame(cloudinary.api().getStrategy(), api.api().getStrategy());
+        List<CompletableFuture<ApiResponse>> futures = new ArrayList<CompletableFuture<ApiResponse>>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(api.resource("sample" + i, null));
+        }
+        for (CompletableFuture<ApiResponse> future : futures) {
+            assertEquals("ok", future.join().get("status"));
+        }
+        try {
+            api.callApi(Api.HttpMethod.GET, Arrays.asList("missing"), ObjectUtils.emptyMap(), null).join();
+            fail("should complete exceptionally");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof NotFound);
+        }
+    }
+
+    @Test
+    public void testAsyncMalformedRateLimit() throws Exception {
+        cloudinary.config.rateLimitPacing = true;
+        Map response = (Map) new AsyncApi(cloudinary).callApi(Api.HttpMethod.GET, Arrays.asList("malformed"),
+                ObjectUtils.emptyMap(), null).join();
+        assertEquals("should ignore the rate limit as the sync calls do", "ok", response.get("status"));
+    }
+
+    @Test
+    public void testAsyncUploads() throws Exception {
+        AsyncUploader uploader = new AsyncUploader(cloudinary);
+        List<CompletableFuture<Map>> futures = new ArrayList<CompletableFuture<Map>>();
+        for (int i = 0; i < 50; i++) {
+            futures.add(uploader.upload(new byte[1000], ObjectUtils.asMap("public_id", "sample" + i)));
+        }
+        for (CompletableFuture<Map> future : futures) {
+            assertEquals("ok", future.join().get("status"));
+        }
+        assertEquals("/v1_1/test123/image/upload", lastUri);
+
+        try {
+            uploader.callApi("unavailable", ObjectUtils.asMap("timestamp", "1"), null, new byte[10]).join();
+            fail("should complete exceptionally");
+        } catch (CompletionException e) {
+            assertEquals(503, ((HttpStatusException) e.getCause()).getStatusCode());
+        }
+    }
+
+    @Test
+    public void testAsyncInvalidation() throws Exception {
+        cloudinary.config.resourceCacheMaxWeight = 1000;
+        cloudinary.api().resource("sample", null);
+        cloudinary.api().resource("other", null);
+        String read = lastUri;
+        cloudinary.api().resource("sample", null);
+        assertEquals("should be cached", read, lastUri);
+
+        new AsyncUploader(cloudinary).destroy("sample", null).join();
+        cloudinary.api().resource("sample", null);
+        assertEquals("/v1_1/test123/resources/image/upload/sample", lastUri);
+        cloudinary.api().resource("other", null);
+        assertEquals("/v1_1/test123/resources/image/upload/sample", lastUri);
+
+        new AsyncApi(cloudinary).deleteResources(Arrays.asList("other"), null).join();
+        cloudinary.api().resource("other", null);
+        assertEquals("/v1_1/test123/resources/image/upload/other", lastUri);
+    }
+
+    @Test
+    public void testAsyncRetries() throws Exception {
+        cloudinary.config.retryBaseDelay = 10;
+        Map result = (Map) new AsyncUploader(cloudinary).callApi("flaky", ObjectUtils.asMap("timestamp", "1"),
+                ObjectUtils.asMap("max_retries", 2), new byte[10]).join();
+        assertEquals("ok", result.get("status"));
+        assertEquals(2, flakyCalls.get());
+        assertTrue("should send the body again", new String(lastBody, StandardCharsets.ISO_8859_1).contains("name=\"signature\""));
+    }
+
+    @Test
+    public void testUpload() throws Exception {
+        File file = File.createTempFile("cloudinary-http-jdk", ".bin");
+        file.deleteOnExit();
+        byte[] content = new byte[100000];
+        for (int i = 0; i < content.length; i++) content[i] = (byte) i;
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(content);
+        out.close();
+
+        Map result = cloudinary.uploader().upload(file, ObjectUtils.asMap("public_id", "sample", "tags", Arrays.asList("a", "b")));
+        assertEquals("ok", result.get("status"));
+        assertEquals("POST", lastMethod);
+        assertEquals("/v1_1/test123/image/upload", lastUri);
+        assertTrue(lastContentType.startsWith("multipart/form-data; boundary="));
+        assertEquals("should send a known length", String.valueOf(lastBody.length), lastContentLength);
+        String body = new String(lastBody, StandardCharsets.ISO_8859_1);
+        assertTrue(body.contains("name=\"public_id\"\r\n\r\nsample\r\n"));
+        assertTrue(body.contains("name=\"tags\"\r\n\r\na,b\r\n"));
+        assertTrue(body.contains("name=\"file\"; filename=\"" + file.getName() + "\""));
+        assertTrue(body.contains(new String(content, StandardCharsets.ISO_8859_1)));
+
+        cloudinary.uploader().upload(new FileRegion(file, 1000, 5000), ObjectUtils.asMap("public_id", "sample"));
+        body = new String(lastBody, StandardCharsets.ISO_8859_1);
+        assertTrue(body.contains("\r\n\r\n" + new String(content, 1000, 5000, StandardCharsets.ISO_8859_1) + "\r\n--"));
+        assertTrue(cloudinary.uploader().getStrategy().supportsFileRegions());
+    }
+
+    @Test
+    public void testUploadErrors() throws Exception {
+        try {
+            cloudinary.uploader().callApi("unavailable", ObjectUtils.asMap("timestamp", "1"), ObjectUtils.emptyMap(), new byte[10]);
+            fail("should throw HttpStatusException");
+        } catch (HttpStatusException e) {
+            assertEquals(503, e.getStatusCode());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.cloudinary.test;
+
+import com.cloudinary.api.ApiResponse;
+import com.cloudinary.utils.ObjectUtils;
+import org.junit.Test;
+
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+
+public class ApiTest extends AbstractApiTest {
+
+    @Test(expected = HttpTimeoutException.class)
+    public void testTimeoutParameter() throws Exception {
+        // should allow listing resources
+        Map options = ObjectUtils.asMap(
+                "max_results", 500,
+                "timeout", 1);
+        ApiResponse result = cloudinary.api().resources(options);
+    }
+
+}
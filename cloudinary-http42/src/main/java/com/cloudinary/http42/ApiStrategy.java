@@ -14,25 +14,29 @@ import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.conn.ClientConnectionManager;
-import org.apache.http.impl.client.DefaultHttpClient;
 import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 import org.cloudinary.json.JSONException;
-import org.cloudinary.json.JSONObject;
 
 import com.cloudinary.Api;
 import com.cloudinary.Api.HttpMethod;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.api.ApiResponse;
 import com.cloudinary.api.exceptions.GeneralError;
+import com.cloudinary.api.exceptions.RateLimited;
 import com.cloudinary.http42.api.Response;
 import com.cloudinary.utils.Base64Coder;
+import com.cloudinary.utils.JsonDecoder;
 import com.cloudinary.utils.ObjectUtils;
 import com.cloudinary.utils.StringUtils;
 
 public class ApiStrategy extends AbstractApiStrategy {
 
+    @Override
+    public void close() {
+        if (api != null) ConnectionPool.close(api.cloudinary);
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     public ApiResponse callApi(HttpMethod method, Iterable<String> uri, Map<String, ? extends Object> params, Map options) throws Exception {
         if (options == null) options = ObjectUtils.emptyMap();
@@ -61,15 +65,6 @@ public class ApiStrategy extends AbstractApiStrategy {
                 apiUrlBuilder.addParameter(param.getKey(), ObjectUtils.asString(param.getValue()));
             }
         }
-        ClientConnectionManager connectionManager = (ClientConnectionManager) this.api.cloudinary.config.properties.get("connectionManager");
-
-        DefaultHttpClient client = new DefaultHttpClient(connectionManager);
-        if (timeout > 0) {
-            HttpParams httpParams = client.getParams();
-            HttpConnectionParams.setConnectionTimeout(httpParams, timeout);
-            HttpConnectionParams.setSoTimeout(httpParams, timeout);
-        }
-
         URI apiUri = apiUrlBuilder.build();
         HttpUriRequest request = null;
         switch (method) {
@@ -88,24 +83,33 @@ public class ApiStrategy extends AbstractApiStrategy {
         }
         request.setHeader("Authorization", "Basic " + Base64Coder.encodeString(apiKey + ":" + apiSecret));
         request.setHeader("User-Agent", Cloudinary.USER_AGENT + " ApacheHTTPComponents/4.2");
+        // the client is shared with the uploader, so the timeout is set on the request
+        if (timeout > 0) {
+            HttpParams httpParams = request.getParams();
+            HttpConnectionParams.setConnectionTimeout(httpParams, timeout);
+            HttpConnectionParams.setSoTimeout(httpParams, timeout);
+        }
 
-        HttpResponse response = client.execute(request);
+        HttpResponse response = ConnectionPool.get(api.cloudinary).client().execute(request);
 
         int code = response.getStatusLine().getStatusCode();
         InputStream responseStream = response.getEntity().getContent();
-        String responseData = StringUtils.read(responseStream);
-
-        Class<? extends Exception> exceptionClass = Api.CLOUDINARY_API_ERROR_CLASSES.get(code);
-        if (code != 200 && exceptionClass == null) {
-            throw new GeneralError("Server returned unexpected status code - " + code + " - " + responseData);
-        }
+        Class<? extends Exception> exceptionClass;
         Map result;
-
         try {
-            JSONObject responseJSON = new JSONObject(responseData);
-            result = ObjectUtils.toMap(responseJSON);
-        } catch (JSONException e) {
-            throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
+            exceptionClass = Api.CLOUDINARY_API_ERROR_CLASSES.get(code);
+            if (code != 200 && exceptionClass == null) {
+                throw new GeneralError("Server returned unexpected status code - " + code + " - " + StringUtils.read(responseStream), code);
+            }
+
+            try {
+                result = JsonDecoder.decode(responseStream);
+            } catch (JSONException e) {
+                throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
+            }
+        } finally {
+            // reads the rest of the entity and releases the connection
+            responseStream.close();
         }
 
         if (code == 200) {
@@ -113,7 +117,11 @@ public class ApiStrategy extends AbstractApiStrategy {
         } else {
             String message = (String) ((Map) result.get("error")).get("message");
             Constructor<? extends Exception> exceptionConstructor = exceptionClass.getConstructor(String.class);
-            throw exceptionConstructor.newInstance(message);
+            Exception exception = exceptionConstructor.newInstance(message);
+            if (exception instanceof RateLimited) {
+                ((RateLimited) exception).setReset(Response.rateLimitReset(response));
+            }
+            throw exception;
         }
     }
 
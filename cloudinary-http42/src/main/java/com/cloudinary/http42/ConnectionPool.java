@@ -0,0 +1,105 @@
+package com.cloudinary.http42;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.params.ConnRoutePNames;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.protocol.HttpContext;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Configuration;
+
+/**
+ * The pooled HTTP client shared by the {@link UploaderStrategy} and the {@link ApiStrategy} of a {@link Cloudinary} instance.
+ * <p>
+ * The client is created on first use from the instance's configuration (proxy, <code>max_connections</code>,
+ * <code>max_connections_per_route</code>, <code>connection_keep_alive</code> and <code>idle_connection_timeout</code>)
+ * and closed by {@link Cloudinary#close()}. Idle connections are evicted when the client is used, so no background
+ * thread is needed. A connection manager supplied in the <code>connectionManager</code> property is used as is and
+ * is left for the application to shut down.
+ */
+final class ConnectionPool {
+    private static final Map<Cloudinary, ConnectionPool> POOLS = new WeakHashMap<Cloudinary, ConnectionPool>();
+
+    private final DefaultHttpClient client;
+    private final ClientConnectionManager connectionManager;
+    private final boolean ownsConnectionManager;
+    private final long idleTimeout;
+    private final AtomicLong nextEviction = new AtomicLong();
+
+    static ConnectionPool get(Cloudinary cloudinary) {
+        synchronized (POOLS) {
+            ConnectionPool pool = POOLS.get(cloudinary);
+            if (pool == null) {
+                pool = new ConnectionPool(cloudinary.config);
+                POOLS.put(cloudinary, pool);
+            }
+            return pool;
+        }
+    }
+
+    static void close(Cloudinary cloudinary) {
+        ConnectionPool pool;
+        synchronized (POOLS) {
+            pool = POOLS.remove(cloudinary);
+        }
+        if (pool != null && pool.ownsConnectionManager) {
+            pool.connectionManager.shutdown();
+        }
+    }
+
+    private ConnectionPool(Configuration config) {
+        ClientConnectionManager connectionManager = (ClientConnectionManager) config.properties.get("connectionManager");
+        this.ownsConnectionManager = connectionManager == null;
+        if (ownsConnectionManager) {
+            PoolingClientConnectionManager poolingManager = new PoolingClientConnectionManager(SchemeRegistryFactory.createSystemDefault());
+            if (config.maxConnections > 0) poolingManager.setMaxTotal(config.maxConnections);
+            if (config.maxConnectionsPerRoute > 0) poolingManager.setDefaultMaxPerRoute(config.maxConnectionsPerRoute);
+            connectionManager = poolingManager;
+        }
+        this.connectionManager = connectionManager;
+        this.client = new DefaultHttpClient(connectionManager);
+
+        // If the configuration specifies a proxy then apply it to the client
+        if (config.proxyHost != null && config.proxyPort != 0) {
+            HttpHost proxy = new HttpHost(config.proxyHost, config.proxyPort);
+            client.getParams().setParameter(ConnRoutePNames.DEFAULT_PROXY, proxy);
+        }
+
+        final long keepAlive = config.connectionKeepAlive * 1000L;
+        if (keepAlive > 0) {
+            final ConnectionKeepAliveStrategy serverKeepAlive = new DefaultConnectionKeepAliveStrategy();
+            client.setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+                @Override
+                public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                    long duration = serverKeepAlive.getKeepAliveDuration(response, context);
+                    return duration > 0 && duration < keepAlive ? duration : keepAlive;
+                }
+            });
+        }
+        this.idleTimeout = config.idleConnectionTimeout * 1000L;
+    }
+
+    HttpClient client() {
+        if (idleTimeout > 0) {
+            long now = System.currentTimeMillis();
+            long next = nextEviction.get();
+            if (now >= next && nextEviction.compareAndSet(next, now + Math.max(idleTimeout / 2, 1000))) {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+            }
+        }
+        return client;
+    }
+}
@@ -0,0 +1,43 @@
+package com.cloudinary.http42;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+import com.cloudinary.FileRegion;
+
+/**
+ * Multipart body that streams a {@link FileRegion} from disk.
+ */
+class FileRegionBody extends AbstractContentBody {
+    private final FileRegion region;
+    private final String filename;
+
+    FileRegionBody(FileRegion region, String filename) {
+        super("application/octet-stream");
+        this.region = region;
+        this.filename = filename;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        region.writeTo(out);
+    }
+
+    public String getCharset() {
+        return null;
+    }
+
+    public String getTransferEncoding() {
+        return MIME.ENC_BINARY;
+    }
+
+    public long getContentLength() {
+        return region.getLength();
+    }
+}
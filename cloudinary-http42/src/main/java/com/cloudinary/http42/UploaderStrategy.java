@@ -7,29 +7,37 @@ import java.nio.charset.Charset;
 import java.util.Collection;
 import java.util.Map;
 
-import org.apache.http.HttpHost;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.ClientConnectionManager;
-import org.apache.http.conn.params.ConnRoutePNames;
 import org.apache.http.entity.mime.HttpMultipartMode;
 import org.apache.http.entity.mime.MultipartEntity;
 import org.apache.http.entity.mime.content.ByteArrayBody;
 import org.apache.http.entity.mime.content.FileBody;
 import org.apache.http.entity.mime.content.StringBody;
-import org.apache.http.impl.client.DefaultHttpClient;
 import org.cloudinary.json.JSONException;
-import org.cloudinary.json.JSONObject;
 
 import com.cloudinary.Cloudinary;
+import com.cloudinary.FileRegion;
 import com.cloudinary.Util;
+import com.cloudinary.http42.api.Response;
 import com.cloudinary.strategies.AbstractUploaderStrategy;
+import com.cloudinary.strategies.HttpStatusException;
+import com.cloudinary.utils.JsonDecoder;
 import com.cloudinary.utils.ObjectUtils;
 import com.cloudinary.utils.StringUtils;
 
 public class UploaderStrategy extends AbstractUploaderStrategy {
 
+    @Override
+    public boolean supportsFileRegions() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (uploader != null) ConnectionPool.close(cloudinary());
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     @Override
     public Map callApi(String action, Map<String, Object> params, Map options, Object file) throws IOException {
@@ -48,15 +56,6 @@ public class UploaderStrategy extends AbstractUploaderStrategy {
 
         String apiUrl = uploader.cloudinary().cloudinaryApiUrl(action, options);
 
-        ClientConnectionManager connectionManager = (ClientConnectionManager) this.uploader.cloudinary().config.properties.get("connectionManager");
-        HttpClient client = new DefaultHttpClient(connectionManager);
-
-        // If the configuration specifies a proxy then apply it to the client
-        if (uploader.cloudinary().config.proxyHost != null && uploader.cloudinary().config.proxyPort != 0) {
-            HttpHost proxy = new HttpHost(uploader.cloudinary().config.proxyHost, uploader.cloudinary().config.proxyPort);
-            client.getParams().setParameter(ConnRoutePNames.DEFAULT_PROXY, proxy);
-        }
-
         HttpPost postMethod = new HttpPost(apiUrl);
         postMethod.setHeader("User-Agent", Cloudinary.USER_AGENT + " ApacheHTTPComponents/4.2");
 
@@ -99,6 +98,9 @@ public class UploaderStrategy extends AbstractUploaderStrategy {
         } else if (file instanceof byte[]) {
             if (filename == null) filename = "file";
             multipart.addPart("file", new ByteArrayBody((byte[]) file, filename));
+        } else if (file instanceof FileRegion) {
+            if (filename == null) filename = "file";
+            multipart.addPart("file", new FileRegionBody((FileRegion) file, filename));
         } else if (file == null) {
             // no-problem
         } else {
@@ -106,22 +108,24 @@ public class UploaderStrategy extends AbstractUploaderStrategy {
         }
         postMethod.setEntity(multipart);
 
-        HttpResponse response = client.execute(postMethod);
+        HttpResponse response = ConnectionPool.get(cloudinary()).client().execute(postMethod);
         int code = response.getStatusLine().getStatusCode();
         InputStream responseStream = response.getEntity().getContent();
-        String responseData = StringUtils.read(responseStream);
-
-        if (code != 200 && code != 400 && code != 404 && code != 500) {
-            throw new RuntimeException("Server returned unexpected status code - " + code + " - " + responseData);
-        }
-
         Map result;
-
         try {
-            JSONObject responseJSON = new JSONObject(responseData);
-            result = ObjectUtils.toMap(responseJSON);
-        } catch (JSONException e) {
-            throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
+            if (code != 200 && code != 400 && code != 404 && code != 500) {
+                throw new HttpStatusException("Server returned unexpected status code - " + code + " - " + StringUtils.read(responseStream),
+                        code, code == 420 ? Response.rateLimitReset(response) : null);
+            }
+
+            try {
+                result = JsonDecoder.decode(responseStream);
+            } catch (JSONException e) {
+                throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
+            }
+        } finally {
+            // reads the rest of the entity and releases the connection
+            responseStream.close();
         }
 
         if (result.containsKey("error")) {
@@ -129,7 +133,7 @@ public class UploaderStrategy extends AbstractUploaderStrategy {
             if (returnError) {
                 error.put("http_code", code);
             } else {
-                throw new RuntimeException((String) error.get("message"));
+                throw new HttpStatusException((String) error.get("message"), code);
             }
         }
         return result;
@@ -5,24 +5,21 @@ import com.cloudinary.Api.HttpMethod;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.api.ApiResponse;
 import com.cloudinary.api.exceptions.GeneralError;
+import com.cloudinary.api.exceptions.RateLimited;
 import com.cloudinary.http43.api.Response;
 import com.cloudinary.utils.Base64Coder;
+import com.cloudinary.utils.JsonDecoder;
 import com.cloudinary.utils.ObjectUtils;
 import com.cloudinary.utils.StringUtils;
-import org.apache.http.HttpHost;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.*;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.conn.HttpClientConnectionManager;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
 import org.apache.http.message.BasicNameValuePair;
 import org.cloudinary.json.JSONException;
-import org.cloudinary.json.JSONObject;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Constructor;
@@ -38,36 +35,9 @@ import static com.cloudinary.http43.ApiUtils.setTimeouts;
 
 public class ApiStrategy extends com.cloudinary.strategies.AbstractApiStrategy {
 
-    private CloseableHttpClient client = null;
-
     @Override
-    public void init(Api api) {
-        super.init(api);
-
-        HttpClientBuilder clientBuilder = HttpClients.custom();
-        clientBuilder.useSystemProperties().setUserAgent(Cloudinary.USER_AGENT + " ApacheHTTPComponents/4.3");
-
-        // If the configuration specifies a proxy then apply it to the client
-        if (api.cloudinary.config.proxyHost != null && api.cloudinary.config.proxyPort != 0) {
-            HttpHost proxy = new HttpHost(api.cloudinary.config.proxyHost, api.cloudinary.config.proxyPort);
-            clientBuilder.setProxy(proxy);
-        }
-
-        HttpClientConnectionManager connectionManager = (HttpClientConnectionManager) api.cloudinary.config.properties.get("connectionManager");
-        if (connectionManager != null) {
-            clientBuilder.setConnectionManager(connectionManager);
-        }
-
-        int timeout = this.api.cloudinary.config.timeout;
-        if (timeout > 0) {
-            RequestConfig config = RequestConfig.custom()
-                    .setSocketTimeout(timeout * 1000)
-                    .setConnectTimeout(timeout * 1000)
-                    .build();
-            clientBuilder.setDefaultRequestConfig(config);
-        }
-
-        this.client = clientBuilder.build();
+    public void close() throws IOException {
+        if (api != null) ConnectionPool.close(api.cloudinary);
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
@@ -92,36 +62,39 @@ public class ApiStrategy extends com.cloudinary.strategies.AbstractApiStrategy {
 
         request.setHeader("Authorization", "Basic " + Base64Coder.encodeString(apiKey + ":" + apiSecret));
 
-        String responseData = null;
         int code = 0;
-        CloseableHttpResponse response = client.execute(request);
+        Class<? extends Exception> exceptionClass;
+        Map result;
+        CloseableHttpResponse response = ConnectionPool.get(api.cloudinary).client().execute(request);
         try {
             code = response.getStatusLine().getStatusCode();
             InputStream responseStream = response.getEntity().getContent();
-            responseData = StringUtils.read(responseStream);
+            exceptionClass = Api.CLOUDINARY_API_ERROR_CLASSES.get(code);
+            if (code != 200 && exceptionClass == null) {
+                throw new GeneralError("Server returned unexpected status code - " + code + " - " + StringUtils.read(responseStream), code);
+            }
+
+            try {
+                result = JsonDecoder.decode(responseStream);
+            } catch (JSONException e) {
+                throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
+            }
+            // reads the rest of the entity, so that the connection is kept in the pool
+            responseStream.close();
         } finally {
             response.close();
         }
 
-        Class<? extends Exception> exceptionClass = Api.CLOUDINARY_API_ERROR_CLASSES.get(code);
-        if (code != 200 && exceptionClass == null) {
-            throw new GeneralError("Server returned unexpected status code - " + code + " - " + responseData);
-        }
-        Map result;
-
-        try {
-            JSONObject responseJSON = new JSONObject(responseData);
-            result = ObjectUtils.toMap(responseJSON);
-        } catch (JSONException e) {
-            throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
-        }
-
         if (code == 200) {
             return new Response(response, result);
         } else {
             String message = (String) ((Map) result.get("error")).get("message");
             Constructor<? extends Exception> exceptionConstructor = exceptionClass.getConstructor(String.class);
-            throw exceptionConstructor.newInstance(message);
+            Exception exception = exceptionConstructor.newInstance(message);
+            if (exception instanceof RateLimited) {
+                ((RateLimited) exception).setReset(Response.rateLimitReset(response));
+            }
+            throw exception;
         }
     }
 
@@ -162,6 +135,14 @@ public class ApiStrategy extends com.cloudinary.strategies.AbstractApiStrategy {
             ((HttpEntityEnclosingRequestBase) request).setEntity(new UrlEncodedFormEntity(parameters));
         }
 
+        // the client is shared with the uploader, so the default API timeout is set on each request
+        int timeout = this.api.cloudinary.config.timeout;
+        if (timeout > 0) {
+            request.setConfig(RequestConfig.custom()
+                    .setSocketTimeout(timeout * 1000)
+                    .setConnectTimeout(timeout * 1000)
+                    .build());
+        }
         setTimeouts(request, options);
         return request;
     }
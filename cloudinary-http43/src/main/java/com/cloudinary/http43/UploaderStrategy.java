@@ -6,50 +6,35 @@ import java.io.InputStream;
 import java.util.Collection;
 import java.util.Map;
 
-import org.apache.http.HttpHost;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
-import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.HttpMultipartMode;
 import org.apache.http.entity.mime.MIME;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.client.HttpClients;
 import org.cloudinary.json.JSONException;
-import org.cloudinary.json.JSONObject;
 
 import com.cloudinary.Cloudinary;
+import com.cloudinary.FileRegion;
 import com.cloudinary.Uploader;
 import com.cloudinary.Util;
+import com.cloudinary.http43.api.Response;
 import com.cloudinary.strategies.AbstractUploaderStrategy;
+import com.cloudinary.strategies.HttpStatusException;
+import com.cloudinary.utils.JsonDecoder;
 import com.cloudinary.utils.ObjectUtils;
 import com.cloudinary.utils.StringUtils;
 
 public class UploaderStrategy extends AbstractUploaderStrategy {
 
-    private CloseableHttpClient client = null;
-
     @Override
-    public void init(Uploader uploader) {
-        super.init(uploader);
-
-        HttpClientBuilder clientBuilder = HttpClients.custom();
-        clientBuilder.useSystemProperties().setUserAgent(Cloudinary.USER_AGENT + " ApacheHTTPComponents/4.3");
-
-        // If the configuration specifies a proxy then apply it to the client
-        if (cloudinary().config.proxyHost != null && cloudinary().config.proxyPort != 0) {
-            HttpHost proxy = new HttpHost(cloudinary().config.proxyHost, cloudinary().config.proxyPort);
-            clientBuilder.setProxy(proxy);
-        }
-
-        HttpClientConnectionManager connectionManager = (HttpClientConnectionManager) cloudinary().config.properties.get("connectionManager");
-        if (connectionManager != null) {
-            clientBuilder.setConnectionManager(connectionManager);
-        }
+    public boolean supportsFileRegions() {
+        return true;
+    }
 
-        this.client = clientBuilder.build();
+    @Override
+    public void close() throws IOException {
+        if (uploader != null) ConnectionPool.close(cloudinary());
     }
 
     @SuppressWarnings({"rawtypes", "unchecked"})
@@ -113,6 +98,9 @@ public class UploaderStrategy extends AbstractUploaderStrategy {
         } else if (file instanceof byte[]) {
             if (filename == null) filename = "file";
             multipart.addBinaryBody("file", (byte[]) file, ContentType.APPLICATION_OCTET_STREAM, filename);
+        } else if (file instanceof FileRegion) {
+            if (filename == null) filename = "file";
+            multipart.addPart("file", new FileRegionBody((FileRegion) file, ContentType.APPLICATION_OCTET_STREAM, filename));
         } else if (file == null) {
             // no-problem
         } else {
@@ -120,36 +108,34 @@ public class UploaderStrategy extends AbstractUploaderStrategy {
         }
         postMethod.setEntity(multipart.build());
 
-        String responseData = null;
         int code = 0;
-        CloseableHttpResponse response = client.execute(postMethod);
+        Map result;
+        CloseableHttpResponse response = ConnectionPool.get(cloudinary()).client().execute(postMethod);
         try {
             code = response.getStatusLine().getStatusCode();
             InputStream responseStream = response.getEntity().getContent();
-            responseData = StringUtils.read(responseStream);
+            if (code != 200 && code != 400 && code != 404 && code != 500) {
+                throw new HttpStatusException("Server returned unexpected status code - " + code + " - " + StringUtils.read(responseStream),
+                        code, code == 420 ? Response.rateLimitReset(response) : null);
+            }
+
+            try {
+                result = JsonDecoder.decode(responseStream);
+            } catch (JSONException e) {
+                throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
+            }
+            // reads the rest of the entity, so that the connection is kept in the pool
+            responseStream.close();
         } finally {
             response.close();
         }
 
-        if (code != 200 && code != 400 && code != 404 && code != 500) {
-            throw new RuntimeException("Server returned unexpected status code - " + code + " - " + responseData);
-        }
-
-        Map result;
-
-        try {
-            JSONObject responseJSON = new JSONObject(responseData);
-            result = ObjectUtils.toMap(responseJSON);
-        } catch (JSONException e) {
-            throw new RuntimeException("Invalid JSON response from server " + e.getMessage());
-        }
-
         if (result.containsKey("error")) {
             Map error = (Map) result.get("error");
             if (returnError) {
                 error.put("http_code", code);
             } else {
-                throw new RuntimeException((String) error.get("message"));
+                throw new HttpStatusException((String) error.get("message"), code);
             }
         }
         return result;
@@ -0,0 +1,132 @@
+package com.cloudinary.http44;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Configuration;
+
+/**
+ * The pooled HTTP client shared by the {@link UploaderStrategy} and the {@link ApiStrategy} of a {@link Cloudinary} instance.
+ * <p>
+ * The client is created on first use from the instance's configuration (proxy, <code>max_connections</code>,
+ * <code>max_connections_per_route</code>, <code>connection_keep_alive</code> and <code>idle_connection_timeout</code>)
+ * and closed by {@link Cloudinary#close()}. Idle connections are evicted when the client is used, so no background
+ * thread is needed. A connection manager supplied in the <code>connectionManager</code> property is used as is and
+ * is left for the application to shut down.
+ */
+final class ConnectionPool {
+    private static final Map<Cloudinary, ConnectionPool> POOLS = new WeakHashMap<Cloudinary, ConnectionPool>();
+
+    private final CloseableHttpClient client;
+    private final HttpClientConnectionManager connectionManager;
+    private final boolean ownsConnectionManager;
+    private final long idleTimeout;
+    private final AtomicLong nextEviction = new AtomicLong();
+
+    static ConnectionPool get(Cloudinary cloudinary) {
+        synchronized (POOLS) {
+            ConnectionPool pool = POOLS.get(cloudinary);
+            if (pool == null) {
+                pool = new ConnectionPool(cloudinary.config);
+                POOLS.put(cloudinary, pool);
+            }
+            return pool;
+        }
+    }
+
+    static void close(Cloudinary cloudinary) throws IOException {
+        ConnectionPool pool;
+        synchronized (POOLS) {
+            pool = POOLS.remove(cloudinary);
+        }
+        if (pool != null && pool.ownsConnectionManager) {
+            pool.client.close();
+        }
+    }
+
+    private ConnectionPool(Configuration config) {
+        HttpClientBuilder clientBuilder = HttpClients.custom();
+        clientBuilder.useSystemProperties().setUserAgent(Cloudinary.USER_AGENT + " ApacheHTTPComponents/4.4");
+
+        // If the configuration specifies a proxy then apply it to the client
+        if (config.proxyHost != null && config.proxyPort != 0) {
+            HttpHost proxy = new HttpHost(config.proxyHost, config.proxyPort);
+            clientBuilder.setProxy(proxy);
+        }
+
+        HttpClientConnectionManager connectionManager = (HttpClientConnectionManager) config.properties.get("connectionManager");
+        this.ownsConnectionManager = connectionManager == null;
+        if (ownsConnectionManager) {
+            PoolingHttpClientConnectionManager poolingManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                    .register("http", TimedConnectionSocketFactory.wrap(PlainConnectionSocketFactory.getSocketFactory()))
+                    .register("https", TimedConnectionSocketFactory.wrap(SSLConnectionSocketFactory.getSystemSocketFactory()))
+                    .build());
+            if (config.maxConnections > 0) poolingManager.setMaxTotal(config.maxConnections);
+            if (config.maxConnectionsPerRoute > 0) poolingManager.setDefaultMaxPerRoute(config.maxConnectionsPerRoute);
+            connectionManager = poolingManager;
+        }
+        clientBuilder.setConnectionManager(connectionManager);
+        this.connectionManager = connectionManager;
+
+        final long keepAlive = config.connectionKeepAlive * 1000L;
+        if (keepAlive > 0) {
+            clientBuilder.setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+                @Override
+                public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+                    long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return duration > 0 && duration < keepAlive ? duration : keepAlive;
+                }
+            });
+        }
+        this.idleTimeout = config.idleConnectionTimeout * 1000L;
+        this.client = clientBuilder.build();
+    }
+
+    /**
+     * @return the totals of the pooled connections, or an empty map for a connection manager that is not a pool
+     */
+    Map<String, Number> stats() {
+        if (!(connectionManager instanceof PoolingHttpClientConnectionManager)) return Collections.emptyMap();
+        PoolStats stats = ((PoolingHttpClientConnectionManager) connectionManager).getTotalStats();
+        Map<String, Number> result = new LinkedHashMap<String, Number>();
+        result.put("leased", stats.getLeased());
+        result.put("available", stats.getAvailable());
+        result.put("pending", stats.getPending());
+        result.put("max", stats.getMax());
+        return result;
+    }
+
+    CloseableHttpClient client() {
+        if (idleTimeout > 0) {
+            long now = System.currentTimeMillis();
+            long next = nextEviction.get();
+            if (now >= next && nextEviction.compareAndSet(next, now + Math.max(idleTimeout / 2, 1000))) {
+                connectionManager.closeExpiredConnections();
+                connectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+            }
+        }
+        return client;
+    }
+}
@@ -0,0 +1,44 @@
+package com.cloudinary.http44;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+import com.cloudinary.FileRegion;
+
+/**
+ * Multipart body that streams a {@link FileRegion} from disk.
+ */
+class FileRegionBody extends AbstractContentBody {
+    private final FileRegion region;
+    private final String filename;
+
+    FileRegionBody(FileRegion region, ContentType contentType, String filename) {
+        super(contentType);
+        this.region = region;
+        this.filename = filename;
+    }
+
+    @Override
+    public String getFilename() {
+        return filename;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException {
+        region.writeTo(out);
+    }
+
+    @Override
+    public String getTransferEncoding() {
+        return MIME.ENC_BINARY;
+    }
+
+    @Override
+    public long getContentLength() {
+        return region.getLength();
+    }
+}
@@ -0,0 +1,74 @@
+package com.cloudinary.http44;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+import com.cloudinary.metrics.CallEvent;
+
+/**
+ * Reports the time spent opening connections, including the TLS handshake, to the {@link CallEvent} of the call
+ * that opens them. Connections are opened on the thread of the call, as the pool's client is blocking.
+ */
+class TimedConnectionSocketFactory implements ConnectionSocketFactory {
+    private final ConnectionSocketFactory factory;
+
+    private TimedConnectionSocketFactory(ConnectionSocketFactory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @return a factory timing <code>factory</code>, layered only if <code>factory</code> is
+     */
+    static ConnectionSocketFactory wrap(ConnectionSocketFactory factory) {
+        if (factory instanceof LayeredConnectionSocketFactory) {
+            return new Layered((LayeredConnectionSocketFactory) factory);
+        }
+        return new TimedConnectionSocketFactory(factory);
+    }
+
+    @Override
+    public Socket createSocket(HttpContext context) throws IOException {
+        return factory.createSocket(context);
+    }
+
+    @Override
+    public Socket connectSocket(int connectTimeout, Socket socket, HttpHost host, InetSocketAddress remoteAddress,
+                                InetSocketAddress localAddress, HttpContext context) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return factory.connectSocket(connectTimeout, socket, host, remoteAddress, localAddress, context);
+        } finally {
+            reportConnected(start);
+        }
+    }
+
+    private static void reportConnected(long start) {
+        CallEvent event = CallEvent.current();
+        if (event != null) event.connected(System.nanoTime() - start);
+    }
+
+    private static class Layered extends TimedConnectionSocketFactory implements LayeredConnectionSocketFactory {
+        private final LayeredConnectionSocketFactory layered;
+
+        Layered(LayeredConnectionSocketFactory factory) {
+            super(factory);
+            this.layered = factory;
+        }
+
+        @Override
+        public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return layered.createLayeredSocket(socket, target, port, context);
+            } finally {
+                reportConnected(start);
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.cloudinary.http44.api;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -55,7 +56,9 @@ public class Response extends HashMap implements ApiResponse {
                 } else if (m.group(2).equalsIgnoreCase("-remaining")) {
                     limit.setRemaining(Long.parseLong(header.getValue()));
                 } else if (m.group(2).equalsIgnoreCase("-reset")) {
-                    limit.setReset(RFC1123.parse(header.getValue()));
+                    synchronized (RFC1123) {
+                        limit.setReset(RFC1123.parse(header.getValue()));
+                    }
                 }
                 limits.put(limitName, limit);
             }
@@ -63,6 +66,21 @@ public class Response extends HashMap implements ApiResponse {
         return limits;
     }
 
+    /**
+     * @return the time the API rate limit of <code>response</code> resets, or null if it has no valid reset header
+     */
+    public static Date rateLimitReset(HttpResponse response) {
+        Header header = response.getFirstHeader("X-FeatureRateLimit-Reset");
+        if (header == null) return null;
+        try {
+            synchronized (RFC1123) {
+                return RFC1123.parse(header.getValue());
+            }
+        } catch (java.text.ParseException e) {
+            return null;
+        }
+    }
+
     public RateLimit apiRateLimit() throws java.text.ParseException {
         return rateLimits().get("Api");
     }
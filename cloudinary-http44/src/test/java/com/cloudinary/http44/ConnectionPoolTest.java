@@ -0,0 +1,116 @@
+package com.cloudinary.http44;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.metrics.CallEvent;
+import com.cloudinary.metrics.CallListener;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ConnectionPoolTest {
+    private HttpServer server;
+    private final Set<Integer> clientPorts = Collections.synchronizedSet(new HashSet<Integer>());
+    private Cloudinary cloudinary;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                byte[] body = "{\"status\":\"ok\"}".getBytes("UTF-8");
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        cloudinary = new Cloudinary("cloudinary://a:b@test123?upload_prefix=http://localhost:" + server.getAddress().getPort());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        cloudinary.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void testSharedClient() throws IOException {
+        cloudinary.uploader();
+        cloudinary.api();
+        CloseableHttpClient client = ConnectionPool.get(cloudinary).client();
+        assertSame(client, ConnectionPool.get(cloudinary).client());
+
+        Cloudinary other = new Cloudinary(cloudinary.config.asMap());
+        other.api();
+        assertNotSame(client, ConnectionPool.get(other).client());
+        other.close();
+
+        cloudinary.close();
+        assertNotSame("should open a new pool after close", client, ConnectionPool.get(cloudinary).client());
+    }
+
+    @Test
+    public void testConnectionReuse() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals("ok", cloudinary.api().ping(null).get("status"));
+        }
+        assertEquals(1, clientPorts.size());
+
+        cloudinary.close();
+        cloudinary.api().ping(null);
+        assertEquals(2, clientPorts.size());
+    }
+
+    @Test
+    public void testCallEvents() throws Exception {
+        final List<CallEvent> events = new ArrayList<CallEvent>();
+        cloudinary.addCallListener(new CallListener() {
+            @Override
+            public void onCall(CallEvent event) {
+                events.add(event);
+            }
+        });
+        cloudinary.api().ping(null);
+        cloudinary.api().ping(null);
+
+        CallEvent first = events.get(0);
+        assertEquals("admin/ping", first.getEndpoint());
+        assertEquals(200, first.getStatusCode());
+        assertEquals(15, first.getResponseBytes());
+        assertTrue("should time the new connection", first.getConnectNanos() > 0);
+        assertTrue(first.getFirstByteNanos() > 0);
+        assertEquals("should reuse the connection", -1, events.get(1).getConnectNanos());
+        assertEquals(0, cloudinary.connectionPoolStats().get("leased").intValue());
+        assertEquals(1, cloudinary.connectionPoolStats().get("available").intValue());
+    }
+
+    @Test
+    public void testTimedFactories() {
+        assertFalse("should not claim layering for plain sockets", TimedConnectionSocketFactory.wrap(
+                PlainConnectionSocketFactory.getSocketFactory()) instanceof LayeredConnectionSocketFactory);
+        assertTrue(TimedConnectionSocketFactory.wrap(
+                SSLConnectionSocketFactory.getSystemSocketFactory()) instanceof LayeredConnectionSocketFactory);
+    }
+}